@@ -27,6 +27,16 @@ fi
 
 ## Create new sorted report file.
 sortedReportName=report_ortho_inference_test_reactome_${releaseNumber}_sorted.txt
+
+## Runs that wrote per-species JSON reports are combined by the ReportAggregator, which sorts them itself.
+if ls report_ortho_inference_${releaseNumber}_*.json > /dev/null 2>&1
+then
+	orthoinference_jar_file=$(ls target/orthoinference-*-jar-with-dependencies.jar)
+	java -cp $orthoinference_jar_file org.reactome.orthoinference.ReportAggregator $releaseNumber
+	echo "Successfully generated $sortedReportName"
+	exit 0
+fi
+
 rm -f $sortedReportName
 touch $sortedReportName
 ## Add header
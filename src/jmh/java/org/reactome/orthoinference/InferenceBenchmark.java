@@ -0,0 +1,195 @@
+package org.reactome.orthoinference;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.gk.model.GKInstance;
+import org.gk.schema.GKSchemaClass;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import static org.gk.model.ReactomeJavaConstants.*;
+
+/**
+ * Benchmarks of the methods each RlE inference spends its time in, over in-memory graphs of the shapes that make them slow:
+ * deeply nested Complexes, large CandidateSets, and EWAS with many paralogs (see BenchmarkGraphs). Run with
+ * 'mvn -P benchmarks test-compile exec:exec', adding eg: -Djmh.args="inferEWAS -p paralogs=100" to choose benchmarks and parameters.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InferenceBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class Graphs
+	{
+		BenchmarkGraphs graphs;
+
+		@Setup(Level.Trial)
+		public void connect() throws Exception
+		{
+			graphs = BenchmarkGraphs.connect();
+		}
+	}
+
+	// An RlE whose input and catalyst are Complexes nested 'complexDepth' levels deep, with 'complexFanOut' components at each level
+	@State(Scope.Benchmark)
+	public static class DeepComplexGraph
+	{
+		@Param({"3", "5"})
+		int complexDepth;
+
+		@Param({"4"})
+		int complexFanOut;
+
+		GKInstance complexInst;
+		GKInstance reactionInst;
+
+		@Setup(Level.Trial)
+		public void build(Graphs graphs) throws Exception
+		{
+			complexInst = graphs.graphs.createComplex(complexDepth, complexFanOut);
+			GKInstance catalystInst = graphs.graphs.createComplex(complexDepth, complexFanOut);
+			reactionInst = graphs.graphs.createReaction(Arrays.asList(complexInst), Arrays.asList(graphs.graphs.createEWAS(1, 0)), catalystInst);
+		}
+	}
+
+	// An RlE whose input is a CandidateSet of 'setSize' EWAS, a tenth of which are members and the rest candidates, and a Complex of 'setSize' components
+	@State(Scope.Benchmark)
+	public static class LargeSetGraph
+	{
+		@Param({"50", "500"})
+		int setSize;
+
+		GKInstance reactionInst;
+		GKInstance wideComplexInst;
+
+		@Setup(Level.Trial)
+		public void build(Graphs graphs) throws Exception
+		{
+			GKInstance candidateSetInst = graphs.graphs.createCandidateSet(setSize / 10, setSize - setSize / 10);
+			reactionInst = graphs.graphs.createReaction(Arrays.asList(candidateSetInst), Arrays.asList(graphs.graphs.createEWAS(1, 0)), null);
+			wideComplexInst = graphs.graphs.createComplex(1, setSize);
+		}
+	}
+
+	// An EWAS with 'paralogs' mouse homologues and 'modifiedResidues' modified residues, inferred once so that the identity caches hold its inferences
+	@State(Scope.Benchmark)
+	public static class ParalogGraph
+	{
+		@Param({"5", "50"})
+		int paralogs;
+
+		@Param({"2"})
+		int modifiedResidues;
+
+		InMemoryAdaptor dba;
+		GKInstance ewasInst;
+		GKInstance inferredEWASInst;
+
+		@Setup(Level.Trial)
+		public void build(Graphs graphs) throws Exception
+		{
+			dba = graphs.graphs.getAdaptor();
+			ewasInst = graphs.graphs.createEWAS(paralogs, modifiedResidues);
+			List<GKInstance> inferredEWASInstances = EWASInferrer.inferEWAS(ewasInst);
+			inferredEWASInst = inferredEWASInstances.get(inferredEWASInstances.size() - 1);
+		}
+	}
+
+	// Empties the identity caches and the in-memory DB before each call, so that every paralog is inferred and stored again
+	@State(Scope.Thread)
+	public static class EmptyEWASCaches
+	{
+		@Setup(Level.Invocation)
+		public void clear(ParalogGraph paralogGraph) throws Exception
+		{
+			for (Map<String, GKInstance> cache : EWASInferrer.getStringKeyedCaches().values())
+			{
+				cache.clear();
+			}
+			paralogGraph.ewasInst.setAttributeValue(inferredTo, new ArrayList<>());
+			paralogGraph.dba.discardStoredInstances();
+		}
+	}
+
+	// Forgets the memoized species closures before each call, so that they are computed for the whole graph
+	@State(Scope.Thread)
+	public static class EmptySpeciesClosures
+	{
+		@Setup(Level.Invocation)
+		public void clear()
+		{
+			EntitySpeciesClosure.clear();
+		}
+	}
+
+	@Benchmark
+	public List<Integer> proteinCountDeepComplex(DeepComplexGraph graph) throws Exception
+	{
+		return ProteinCountUtility.getDistinctProteinCounts(graph.reactionInst);
+	}
+
+	@Benchmark
+	public List<Integer> proteinCountLargeCandidateSet(LargeSetGraph graph) throws Exception
+	{
+		return ProteinCountUtility.getDistinctProteinCounts(graph.reactionInst);
+	}
+
+	@Benchmark
+	public String cacheKeyDeepComplex(DeepComplexGraph graph) throws Exception
+	{
+		return InstanceUtilities.getCacheKey((GKSchemaClass) graph.complexInst.getSchemClass(), graph.complexInst);
+	}
+
+	@Benchmark
+	public String cacheKeyWideComplex(LargeSetGraph graph) throws Exception
+	{
+		return InstanceUtilities.getCacheKey((GKSchemaClass) graph.wideComplexInst.getSchemClass(), graph.wideComplexInst);
+	}
+
+	// The human EWAS already refers to the inferred EWAS, as it does whenever the inferred EWAS comes from the identity cache
+	@Benchmark
+	public GKInstance addAttributeValueIfNecessary(ParalogGraph graph) throws Exception
+	{
+		return InstanceUtilities.addAttributeValueIfNecessary(graph.ewasInst, graph.inferredEWASInst, inferredTo);
+	}
+
+	@Benchmark
+	public boolean speciesCheckDeepComplex(DeepComplexGraph graph, EmptySpeciesClosures emptySpeciesClosures) throws Exception
+	{
+		return SpeciesCheckUtility.checkForSpeciesAttribute(graph.complexInst);
+	}
+
+	@Benchmark
+	public boolean speciesCheckDeepComplexMemoized(DeepComplexGraph graph) throws Exception
+	{
+		return SpeciesCheckUtility.checkForSpeciesAttribute(graph.complexInst);
+	}
+
+	@Benchmark
+	public List<GKInstance> inferEWAS(ParalogGraph graph, EmptyEWASCaches emptyEWASCaches) throws Exception
+	{
+		return EWASInferrer.inferEWAS(graph.ewasInst);
+	}
+
+	@Benchmark
+	public List<GKInstance> inferEWASCached(ParalogGraph graph) throws Exception
+	{
+		return EWASInferrer.inferEWAS(graph.ewasInst);
+	}
+}
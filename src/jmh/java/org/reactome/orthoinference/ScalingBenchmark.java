@@ -0,0 +1,127 @@
+package org.reactome.orthoinference;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.gk.model.GKInstance;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import static org.gk.model.ReactomeJavaConstants.*;
+
+/**
+ * Measures how inferring the participants of every RlE, and counting their proteins, scale with the size and shape of the
+ * content, over synthetic graphs of 1, 5 and 10 times the RlEs of a current release (see SyntheticGraphGenerator). Each
+ * measurement is a single pass over all of the RlEs. Run with 'mvn -P benchmarks test-compile exec:exec', adding eg:
+ * -Djmh.args="ScalingBenchmark -p scale=10 -p sharingRatio=0.3 -jvmArgsAppend -Xmx16g" as the larger scales need a larger heap.
+ * Adding -Dorthoinference.syntheticOrthopairs=(directory) to the JVM arguments writes the orthopairs of each graph there.
+ * ScalingBenchmarkTest runs one iteration over a small graph, with 'mvn -P benchmarks test'.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class ScalingBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class SyntheticGraph
+	{
+		@Param({"1", "5", "10"})
+		double scale;
+
+		@Param({"0.6"})
+		double sharingRatio;
+
+		@Param({"1.5"})
+		double paralogFanOut;
+
+		InMemoryAdaptor dba;
+		SyntheticGraphGenerator generator;
+		List<GKInstance> reactionInstances;
+		List<GKInstance> participantInstances = new ArrayList<>();
+
+		@Setup(Level.Trial)
+		public void generate() throws Exception
+		{
+			BenchmarkGraphs graphs = BenchmarkGraphs.connect();
+			dba = graphs.getAdaptor();
+			generator = new SyntheticGraphGenerator(graphs, 1);
+			generator.setScale(scale);
+			generator.setSharingRatio(sharingRatio);
+			generator.setParalogFanOut(paralogFanOut);
+			reactionInstances = generator.generate();
+			for (GKInstance reactionInst : reactionInstances)
+			{
+				participantInstances.addAll(reactionInst.getAttributeValuesList(input));
+				participantInstances.addAll(reactionInst.getAttributeValuesList(output));
+				for (GKInstance catalystActivityInst : (List<GKInstance>) reactionInst.getAttributeValuesList(catalystActivity))
+				{
+					participantInstances.add((GKInstance) catalystActivityInst.getAttributeValue(physicalEntity));
+				}
+			}
+			String orthopairsDirectory = System.getProperty("orthoinference.syntheticOrthopairs");
+			if (orthopairsDirectory != null)
+			{
+				generator.writeOrthopairs(Paths.get(orthopairsDirectory, "scale" + scale), "mmus");
+			}
+		}
+
+		// Each pass starts without any inferences, as a release run does
+		@Setup(Level.Iteration)
+		public void clear() throws Exception
+		{
+			for (Map<GKInstance, GKInstance> cache : OrthologousEntityGenerator.getInstanceKeyedCaches().values())
+			{
+				cache.clear();
+			}
+			for (Map<String, GKInstance> cache : InferenceCheckpoint.getStringKeyedCaches().values())
+			{
+				cache.clear();
+			}
+			EntitySpeciesClosure.clear();
+			for (GKInstance entityInst : generator.getEntities())
+			{
+				entityInst.setAttributeValue(inferredTo, new ArrayList<>());
+			}
+			dba.discardStoredInstances();
+		}
+	}
+
+	@Benchmark
+	public int inferParticipants(SyntheticGraph graph) throws Exception
+	{
+		int inferredCount = 0;
+		for (GKInstance participantInst : graph.participantInstances)
+		{
+			if (OrthologousEntityGenerator.createOrthoEntity(participantInst, false) != null)
+			{
+				inferredCount++;
+			}
+		}
+		return inferredCount;
+	}
+
+	@Benchmark
+	public long proteinCounts(SyntheticGraph graph) throws Exception
+	{
+		long proteinCount = 0;
+		for (GKInstance reactionInst : graph.reactionInstances)
+		{
+			proteinCount += ProteinCountUtility.getDistinctProteinCounts(reactionInst).get(0);
+		}
+		return proteinCount;
+	}
+}
@@ -0,0 +1,31 @@
+package org.reactome.orthoinference;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import java.sql.SQLException;
+
+// Runs one iteration of each ScalingBenchmark over a small graph. Needs the release database in config.properties for its schema.
+public class ScalingBenchmarkTest {
+
+    @Test
+    public void oneIterationInfersParticipantsAndCountsProteins() throws Exception {
+        ScalingBenchmark.SyntheticGraph graph = new ScalingBenchmark.SyntheticGraph();
+        graph.scale = 0.01;
+        graph.sharingRatio = 0.6;
+        graph.paralogFanOut = 1.5;
+        try {
+            graph.generate();
+        } catch (SQLException e) {
+            Assume.assumeNoException("No release database to read the schema from", e);
+        }
+        graph.clear();
+        ScalingBenchmark benchmark = new ScalingBenchmark();
+
+        assertThat(benchmark.inferParticipants(graph), is(greaterThan(0)));
+        assertThat(benchmark.proteinCounts(graph), is(greaterThan(0L)));
+    }
+}
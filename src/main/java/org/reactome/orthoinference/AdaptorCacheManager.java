@@ -0,0 +1,224 @@
+package org.reactome.orthoinference;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.gk.model.GKInstance;
+import org.gk.persistence.MySQLAdaptor;
+
+/**
+ * Bounds the MySQLAdaptor's instance cache during long runs. The adaptor keeps every instance it has loaded (with its attribute
+ * values) for as long as it lives, so over a full species run it ends up holding most of the DB. Every 'cacheEvictionInterval' RlEs,
+ * or once the heap is more than 'cacheEvictionHeapFraction' full after a garbage collection, the adaptor's caches are refreshed.
+ *
+ * Refreshing drops every cached instance, but any instance still referenced by the pipeline stays reachable through that reference, and
+ * the adaptor would load a second copy of it the next time it is reached from another instance. The collections the pipeline still
+ * needs (identity caches, the RlEs left to infer and the pathway stage's inputs) are pinned: after each eviction their instances are
+ * replaced by the adaptor's fresh (unloaded) instances of the same DB IDs, which load their attribute values from the DB again when used.
+ * Everything the pipeline writes has been committed by then, so the reloaded values are current. The species, instance edit,
+ * summation, evidence type and reference DB singletons are never modified after being set up, so they are kept as they are.
+ *
+ * Evictions only happen between RlEs, never while a ReactionWriteBuffer unit is open.
+ */
+public class AdaptorCacheManager {
+
+	private static final Logger logger = LogManager.getLogger();
+	private static MySQLAdaptor dba;
+	private static int evictionInterval = 0;
+	private static double evictionHeapFraction = 0;
+	private static List<Map<?, ?>> pinnedMaps = new ArrayList<>();
+	private static List<List<GKInstance>> pinnedLists = new ArrayList<>();
+	private static int reactionsSinceEviction = 0;
+	private static volatile long evictionCount = 0;
+	private static long reboundCount = 0;
+	private static long evictionMillis = 0;
+	private static double heapFractionAtEviction = -1;
+
+	public static boolean isEnabled()
+	{
+		return evictionInterval > 0 || evictionHeapFraction > 0;
+	}
+
+	// Pinned maps have their GKInstance keys and values rebound after each eviction
+	public static void pin(Map<?, ?> pinnedMap)
+	{
+		pinnedMaps.add(pinnedMap);
+	}
+
+	public static void pin(List<GKInstance> pinnedList)
+	{
+		pinnedLists.add(pinnedList);
+	}
+
+	// Called before each RlE is inferred, and evicts the adaptor's caches when the interval or heap threshold has been reached
+	public static void beforeReaction() throws Exception
+	{
+		if (!isEnabled())
+		{
+			return;
+		}
+		if (evictionInterval > 0 && reactionsSinceEviction >= evictionInterval)
+		{
+			evict("every " + evictionInterval + " RlEs");
+		} else if (evictionHeapFraction > 0)
+		{
+			// Until the heap has been collected again, it still shows the instances dropped by the last eviction
+			double heapFraction = getHeapFraction();
+			if (heapFraction >= evictionHeapFraction && heapFraction != heapFractionAtEviction)
+			{
+				evict(String.format("heap %.0f%% full", 100 * heapFraction));
+			}
+		}
+		reactionsSinceEviction++;
+	}
+
+	public static void evict(String reason) throws Exception
+	{
+		if (ReactionWriteBuffer.isActive())
+		{
+			logger.warn("Adaptor cache eviction skipped, as an RlE's writes are still buffered");
+			return;
+		}
+		long startTime = System.currentTimeMillis();
+		long usedHeapBefore = getUsedHeap();
+		dba.refreshCaches();
+		long rebound = 0;
+		for (Map<?, ?> pinnedMap : pinnedMaps)
+		{
+			rebound += rebind(pinnedMap);
+		}
+		for (List<GKInstance> pinnedList : pinnedLists)
+		{
+			rebound += rebind(pinnedList);
+		}
+		evictionCount++;
+		heapFractionAtEviction = getHeapFraction();
+		reboundCount += rebound;
+		evictionMillis += System.currentTimeMillis() - startTime;
+		logger.info("Adaptor cache eviction " + evictionCount + " (" + reason + ", after " + reactionsSinceEviction + " RlEs): " + rebound
+				+ " pinned instances rebound in " + (System.currentTimeMillis() - startTime) + " ms, heap used " + toMegabytes(usedHeapBefore)
+				+ " MB before eviction, " + toMegabytes(getUsedHeap()) + " MB after");
+		reactionsSinceEviction = 0;
+	}
+
+	// Background adaptors (eg: in the RlE pipeline and prefetcher) can only be used by their own threads, so each thread refreshes its
+	// own adaptor when it sees the main adaptor has been evicted since it last checked. Returns the eviction count to check against next time.
+	public static long refreshIfEvicted(MySQLAdaptor adaptor, long lastSeenEvictionCount)
+	{
+		long currentEvictionCount = evictionCount;
+		if (currentEvictionCount != lastSeenEvictionCount)
+		{
+			adaptor.refreshCaches();
+		}
+		return currentEvictionCount;
+	}
+
+	public static long getEvictionCount()
+	{
+		return evictionCount;
+	}
+
+	public static void logStatistics()
+	{
+		if (isEnabled())
+		{
+			logger.info("Adaptor cache evictions: " + evictionCount + ", " + reboundCount + " pinned instances rebound, " + evictionMillis + " ms spent evicting");
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static long rebind(Map<?, ?> pinnedMap) throws Exception
+	{
+		// Keys are rebound too, so the map is rebuilt in its own iteration order
+		Map<Object, Object> reboundEntries = new LinkedHashMap<>();
+		long rebound = 0;
+		for (Map.Entry<?, ?> pinnedEntry : pinnedMap.entrySet())
+		{
+			Object key = rebindInstance(pinnedEntry.getKey());
+			Object value = rebindInstance(pinnedEntry.getValue());
+			rebound += (key != pinnedEntry.getKey() ? 1 : 0) + (value != pinnedEntry.getValue() ? 1 : 0);
+			reboundEntries.put(key, value);
+		}
+		pinnedMap.clear();
+		((Map<Object, Object>) pinnedMap).putAll(reboundEntries);
+		return rebound;
+	}
+
+	private static long rebind(List<GKInstance> pinnedList) throws Exception
+	{
+		long rebound = 0;
+		for (ListIterator<GKInstance> pinnedIterator = pinnedList.listIterator(); pinnedIterator.hasNext();)
+		{
+			GKInstance pinnedInst = pinnedIterator.next();
+			GKInstance reboundInst = (GKInstance) rebindInstance(pinnedInst);
+			if (reboundInst != pinnedInst)
+			{
+				pinnedIterator.set(reboundInst);
+				rebound++;
+			}
+		}
+		return rebound;
+	}
+
+	// Returns the adaptor's instance with the same class and DB ID, which is created unloaded now that its cache is empty
+	private static Object rebindInstance(Object pinnedObject) throws Exception
+	{
+		if (!(pinnedObject instanceof GKInstance) || ((GKInstance) pinnedObject).getDBID() == null)
+		{
+			return pinnedObject;
+		}
+		GKInstance pinnedInst = (GKInstance) pinnedObject;
+		return dba.fetchInstance(pinnedInst.getSchemClass().getName(), pinnedInst.getDBID());
+	}
+
+	// Heap use as of the last garbage collection, so that garbage which hasn't been collected yet doesn't trigger evictions
+	private static double getHeapFraction()
+	{
+		long used = 0;
+		long max = 0;
+		for (MemoryPoolMXBean memoryPool : ManagementFactory.getMemoryPoolMXBeans())
+		{
+			MemoryUsage collectionUsage = memoryPool.getCollectionUsage();
+			if (memoryPool.getType() == MemoryType.HEAP && collectionUsage != null && collectionUsage.getMax() > 0)
+			{
+				used += collectionUsage.getUsed();
+				max += collectionUsage.getMax();
+			}
+		}
+		return max > 0 ? (double) used / max : (double) getUsedHeap() / Runtime.getRuntime().maxMemory();
+	}
+
+	private static long getUsedHeap()
+	{
+		return Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+	}
+
+	private static long toMegabytes(long bytes)
+	{
+		return bytes / (1024 * 1024);
+	}
+
+	public static void setEvictionInterval(int evictionIntervalCopy)
+	{
+		evictionInterval = evictionIntervalCopy;
+	}
+
+	public static void setEvictionHeapFraction(double evictionHeapFractionCopy)
+	{
+		evictionHeapFraction = evictionHeapFractionCopy;
+	}
+
+	public static void setAdaptor(MySQLAdaptor dbAdaptor)
+	{
+		dba = dbAdaptor;
+	}
+}
@@ -0,0 +1,23 @@
+package org.reactome.orthoinference;
+
+/**
+ * A cache whose lookups are counted, so that InferenceStatistics can report how often each cache pays off.
+ */
+public interface CountedCache {
+
+	String getName();
+
+	long getHits();
+
+	long getMisses();
+
+	int size();
+
+	// Size and hit rate of the cache's lookups so far
+	default String getStatistics()
+	{
+		long lookups = getHits() + getMisses();
+		String hitRate = lookups > 0 ? String.format("%.1f%%", 100.0 * getHits() / lookups) : "n/a";
+		return getName() + ": " + size() + " entries, " + lookups + " lookups, " + hitRate + " hit rate";
+	}
+}
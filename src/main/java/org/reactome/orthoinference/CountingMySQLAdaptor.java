@@ -0,0 +1,88 @@
+package org.reactome.orthoinference;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collection;
+
+import org.gk.model.GKInstance;
+import org.gk.persistence.MySQLAdaptor;
+
+/**
+ * A MySQLAdaptor that counts its identity check, store, update and attribute query calls by schema class (see InferenceStatistics).
+ * Calls made from within the GK API and release-common-lib through this adaptor are counted too.
+ * When SQL profiling is enabled, its JDBC connection is handed out wrapped by the SqlProfiler.
+ * Adaptors of background threads (the pipeline's filter stage, the prefetcher) are created with 'countCalls' false, so that the
+ * per-1,000-RlE statistics only cover the calls made by the inference itself. Their queries are still profiled.
+ */
+public class CountingMySQLAdaptor extends MySQLAdaptor {
+
+	private Connection connection;
+	private Connection profiledConnection;
+	private final boolean countCalls;
+
+	public CountingMySQLAdaptor(String host, String database, String username, String password, int port) throws SQLException
+	{
+		this(host, database, username, password, port, true);
+	}
+
+	public CountingMySQLAdaptor(String host, String database, String username, String password, int port, boolean countCalls) throws SQLException
+	{
+		super(host, database, username, password, port);
+		this.countCalls = countCalls;
+	}
+
+	// The adaptor's queries get its connection through this method, so they are profiled along with those made through it directly
+	@Override
+	public Connection getConnection()
+	{
+		Connection currentConnection = super.getConnection();
+		if (!SqlProfiler.isEnabled() || currentConnection == null)
+		{
+			return currentConnection;
+		}
+		if (currentConnection != connection)
+		{
+			connection = currentConnection;
+			profiledConnection = SqlProfiler.wrap(currentConnection);
+		}
+		return profiledConnection;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public Collection<GKInstance> fetchIdenticalInstances(GKInstance instance) throws Exception
+	{
+		recordDbCall(InferenceStatistics.FETCH_IDENTICAL_INSTANCES, instance.getSchemClass().getName());
+		return (Collection<GKInstance>) super.fetchIdenticalInstances(instance);
+	}
+
+	@Override
+	public Long storeInstance(GKInstance instance) throws Exception
+	{
+		recordDbCall(InferenceStatistics.STORE_INSTANCE, instance.getSchemClass().getName());
+		return super.storeInstance(instance);
+	}
+
+	@Override
+	public void updateInstanceAttribute(GKInstance instance, String attributeName) throws Exception
+	{
+		recordDbCall(InferenceStatistics.UPDATE_INSTANCE_ATTRIBUTE, instance.getSchemClass().getName());
+		super.updateInstanceAttribute(instance, attributeName);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public Collection<GKInstance> fetchInstanceByAttribute(String className, String attributeName, String operator, Object value) throws Exception
+	{
+		recordDbCall(InferenceStatistics.FETCH_INSTANCE_BY_ATTRIBUTE, className);
+		return (Collection<GKInstance>) super.fetchInstanceByAttribute(className, attributeName, operator, value);
+	}
+
+	private void recordDbCall(String call, String schemaClassName)
+	{
+		if (countCalls)
+		{
+			InferenceStatistics.recordDbCall(call, schemaClassName);
+		}
+	}
+}
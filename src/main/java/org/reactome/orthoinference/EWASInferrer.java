@@ -33,9 +33,9 @@ public class EWASInferrer {
 	private static GKInstance speciesInst;
 	private static Map<String, String[]> homologueMappings = new HashMap<>();
 	private static Map<String, List<String>> ensgMappings = new HashMap<>();
-	private static Map<String, GKInstance> referenceGeneProductIdenticals = new HashMap<>();
-	private static Map<String,GKInstance> ewasIdenticals = new HashMap<>();
-	private static Map<String,GKInstance> residueIdenticals = new HashMap<>();
+	private static Map<String, GKInstance> referenceGeneProductIdenticals = new KeyedIdentityCache("referenceGeneProduct");
+	private static Map<String,GKInstance> ewasIdenticals = new KeyedIdentityCache("ewas");
+	private static Map<String,GKInstance> residueIdenticals = new KeyedIdentityCache("residue");
 	private static Map<String, List<String>> wormbaseMappings = new HashMap<>();
 	private static Map<String, String> geneNameMappings = new HashMap<>();
 
@@ -43,22 +43,26 @@ public class EWASInferrer {
 	@SuppressWarnings("unchecked")
 	public static List<GKInstance> inferEWAS(GKInstance ewasInst) throws InvalidAttributeException, Exception
 	{
+		InferenceEvents.EWASInferenceEvent ewasEvent = new InferenceEvents.EWASInferenceEvent();
+		ewasEvent.begin();
+		// Counts the inferred EWAS' that were already in the identity cache
+		int cachedEWASCount = 0;
 		List<GKInstance> infEWASInstances = new ArrayList<>();
 		String referenceEntityId = ((GKInstance) ewasInst.getAttributeValue(referenceEntity)).getAttributeValue(identifier).toString();
 		if (homologueMappings.get(referenceEntityId) != null)
 		{
 			// Iterate through the array of homologue mappings, attempting to infer EWAS instances for each.
-			logger.info("EWAS homologue(s): " + Arrays.toString(homologueMappings.get(referenceEntityId)));
+			logger.debug("EWAS homologue(s): {}", () -> Arrays.toString(homologueMappings.get(referenceEntityId)));
 			for (String homologue : homologueMappings.get(referenceEntityId)) {
-				logger.info("Homologue:" + homologue + "  Source:" + referenceEntityId);
+				logger.debug("Homologue:{}  Source:{}", homologue, referenceEntityId);
 				// Handles homologues formatted as either DB:ID or just ID
 				String homologueSource = homologue.contains(":") ? homologue.split(":")[0] : "";
 				String homologueId = homologue.contains(":") ? homologue.split(":")[1] : homologue;
 
 				if (checkValidSpeciesProtein(homologueId)) {
-					GKInstance infReferenceGeneProductInst;
-					if (referenceGeneProductIdenticals.get(homologueId) == null) {
-						logger.info("Creating ReferenceGeneProduct for " + homologue);
+					GKInstance infReferenceGeneProductInst = referenceGeneProductIdenticals.get(homologueId);
+					if (infReferenceGeneProductInst == null) {
+						logger.debug("Creating ReferenceGeneProduct for {}", homologue);
 						infReferenceGeneProductInst = InstanceUtilities.createNewInferredGKInstance((GKInstance) ewasInst.getAttributeValue(referenceEntity));
 						infReferenceGeneProductInst.addAttributeValue(identifier, homologueId);
 						// Reference DB can differ between homologue mappings, but can be differentiated by the 'homologueSource' found in each mapping.
@@ -79,12 +83,12 @@ public class EWASInferrer {
 							infReferenceGeneProductInst.addAttributeValue(geneName, geneNameMappings.get(homologueId));
 						}
 
-						logger.info("ReferenceGeneProduct instance created");
+						logger.debug("ReferenceGeneProduct instance created");
 						infReferenceGeneProductInst = InstanceUtilities.checkForIdenticalInstances(infReferenceGeneProductInst, null);
 						referenceGeneProductIdenticals.put(homologueId, infReferenceGeneProductInst);
+						ReactionWriteBuffer.registerCacheEntry(referenceGeneProductIdenticals, homologueId);
 					} else {
-						logger.info("Orthologous ReferenceGeneProduct already exists");
-						infReferenceGeneProductInst = referenceGeneProductIdenticals.get(homologueId);
+						logger.debug("Orthologous ReferenceGeneProduct already exists");
 					}
 					// Creating inferred EWAS
 					GKInstance infEWASInst = InstanceUtilities.createNewInferredGKInstance(ewasInst);
@@ -124,7 +128,7 @@ public class EWASInferrer {
 					List<GKInstance> infModifiedResidueInstances = new ArrayList<>();
 					boolean phosFlag = true;
 					for (GKInstance modifiedResidueInst : (Collection<GKInstance>) ewasInst.getAttributeValuesList(hasModifiedResidue)) {
-						logger.info("Inferring ModifiedResidue: " + modifiedResidueInst);
+						logger.debug("Inferring ModifiedResidue: {}", modifiedResidueInst);
 						String infModifiedResidueDisplayName = "";
 						GKInstance infModifiedResidueInst = InstanceUtilities.createNewInferredGKInstance(modifiedResidueInst);
 						infModifiedResidueInst.addAttributeValue(referenceSequence, infReferenceGeneProductInst);
@@ -154,7 +158,7 @@ public class EWASInferrer {
 							String phosphoDisplayName = phosphoName + " [" + ((GKInstance) ewasInst.getAttributeValue(compartment)).getDisplayName() + "]";
 							infEWASInst.setAttributeValue(_displayName, phosphoDisplayName);
 							// This flag ensures the 'phospho-' is only prepended once.
-							logger.info("Updated EWAS name to reflect phosphorylation. Original: " + originalName + ". Updated: " + phosphoName);
+							logger.debug("Updated EWAS name to reflect phosphorylation. Original: {}. Updated: {}", originalName, phosphoName);
 							phosFlag = false;
 						}
 						for (GKInstance psiModInst : (Collection<GKInstance>) modifiedResidueInst.getAttributeValuesList(psiMod)) {
@@ -190,39 +194,45 @@ public class EWASInferrer {
 						}
 						// Caching based on an instance's defining attributes. This reduces the number of 'checkForIdenticalInstance' calls, which slows things.
 						String cacheKey = InstanceUtilities.getCacheKey((GKSchemaClass) infModifiedResidueInst.getSchemClass(), infModifiedResidueInst);
-						if (residueIdenticals.get(cacheKey) != null) {
-							infModifiedResidueInst = residueIdenticals.get(cacheKey);
+						GKInstance cachedModifiedResidueInst = residueIdenticals.get(cacheKey);
+						if (cachedModifiedResidueInst != null) {
+							infModifiedResidueInst = cachedModifiedResidueInst;
 						} else {
 							infModifiedResidueInst = InstanceUtilities.checkForIdenticalInstances(infModifiedResidueInst, null);
 							residueIdenticals.put(cacheKey, infModifiedResidueInst);
+							ReactionWriteBuffer.registerCacheEntry(residueIdenticals, cacheKey);
 						}
 						infModifiedResidueInstances.add(infModifiedResidueInst);
-						logger.info("Successfully inferred ModifiedResidue");
+						logger.debug("Successfully inferred ModifiedResidue");
 					}
 					infEWASInst.addAttributeValue(hasModifiedResidue, infModifiedResidueInstances);
 					// Caching based on an instance's defining attributes. This reduces the number of 'checkForIdenticalInstance' calls, which slows things.
 					String cacheKey = InstanceUtilities.getCacheKey((GKSchemaClass) infEWASInst.getSchemClass(), infEWASInst);
-					if (ewasIdenticals.get(cacheKey) != null) {
-						infEWASInst = ewasIdenticals.get(cacheKey);
+					GKInstance cachedInfEWASInst = ewasIdenticals.get(cacheKey);
+					if (cachedInfEWASInst != null) {
+						infEWASInst = cachedInfEWASInst;
+						cachedEWASCount++;
 					} else {
 						infEWASInst = InstanceUtilities.checkForIdenticalInstances(infEWASInst, ewasInst);
 						ewasIdenticals.put(cacheKey, infEWASInst);
+						ReactionWriteBuffer.registerCacheEntry(ewasIdenticals, cacheKey);
 					}
 
 					infEWASInst = InstanceUtilities.addAttributeValueIfNecessary(infEWASInst, ewasInst, inferredFrom);
-					dba.updateInstanceAttribute(infEWASInst, inferredFrom);
+					ReactionWriteBuffer.updateInstanceAttribute(infEWASInst, inferredFrom);
 					ewasInst = InstanceUtilities.addAttributeValueIfNecessary(ewasInst, infEWASInst, inferredTo);
-					dba.updateInstanceAttribute(ewasInst, inferredTo);
-					logger.info("Successfully inferred EWAS instance for " + homologue + " homologue");
+					ReactionWriteBuffer.updateInstanceAttribute(ewasInst, inferredTo);
+					logger.debug("Successfully inferred EWAS instance for {} homologue", homologue);
 					infEWASInstances.add(infEWASInst);
 				} else {
-					logger.info("Gene ID corresponding to " + homologue + " not found in gene_protein_mapping file -- skipping EWAS inference");
+					logger.debug("Gene ID corresponding to {} not found in gene_protein_mapping file -- skipping EWAS inference", homologue);
 				}
 			}
 		} else {
-			logger.info("Could not infer EWAS, unable to find homologue for " + referenceEntityId);
+			logger.debug("Could not infer EWAS, unable to find homologue for {}", referenceEntityId);
         }
-		logger.info("Total orthologous EWAS' created: " + infEWASInstances.size());
+		logger.debug("Total orthologous EWAS' created: {}", infEWASInstances.size());
+		ewasEvent.commitFor(ewasInst, !infEWASInstances.isEmpty() && cachedEWASCount == infEWASInstances.size());
 		return infEWASInstances;
 	}
 
@@ -253,10 +263,10 @@ public class EWASInferrer {
 	{
 		List<GKInstance> referenceDNAInstances = new ArrayList<>();
 		List<String> ensgIds = ensgMappings.get(homologueId);
-		logger.info("Gene ID(s): " + ensgIds);
+		logger.debug("Gene ID(s): {}", ensgIds);
 		for (String ensgId : ensgIds)
 		{
-			logger.info("Creating ReferenceDNASequence for " + ensgId);
+			logger.debug("Creating ReferenceDNASequence for {}", ensgId);
 			SchemaClass referenceDNAClass = dba.getSchema().getClassByName(ReferenceDNASequence);
 			GKInstance referenceDNAInst = new GKInstance(referenceDNAClass);
 			referenceDNAInst.setDbAdaptor(dba);
@@ -269,7 +279,7 @@ public class EWASInferrer {
 			referenceDNAInstances.add(referenceDNAInst);
 			if (altRefDbExists)
 			{
-				logger.info("Creating ReferenceDNASequence for " + ensgId + " using alternate reference database");
+				logger.debug("Creating ReferenceDNASequence for {} using alternate reference database", ensgId);
 				GKInstance alternateRefDNAInst = new GKInstance(referenceDNAClass);
 				alternateRefDNAInst.setDbAdaptor(dba);
 				String altDbIdentifier = ensgId;
@@ -286,10 +296,20 @@ public class EWASInferrer {
 				referenceDNAInstances.add(alternateRefDNAInst);
 			}
 		}
-		logger.info("Total ReferenceDNASequence instance(s) created: " + referenceDNAInstances.size());
+		logger.debug("Total ReferenceDNASequence instance(s) created: {}", referenceDNAInstances.size());
 		return referenceDNAInstances;
 	}
 
+	// Identity caches that are saved to, and restored from, checkpoints
+	public static Map<String, Map<String, GKInstance>> getStringKeyedCaches()
+	{
+		Map<String, Map<String, GKInstance>> stringKeyedCaches = new LinkedHashMap<>();
+		stringKeyedCaches.put("referenceGeneProduct", referenceGeneProductIdenticals);
+		stringKeyedCaches.put("ewas", ewasIdenticals);
+		stringKeyedCaches.put("residue", residueIdenticals);
+		return stringKeyedCaches;
+	}
+
 	// These are setup functions called at the beginning of the 'inferEvent' script
 	public static void setAdaptor(MySQLAdaptor dbAdaptor)
 	{
@@ -307,9 +327,22 @@ public class EWASInferrer {
 	// Read the species-specific ENSG gene-protein mappings, and create a Hashmap with the contents
 	public static void readENSGMappingFile(String toSpecies, String pathToOrthopairs) throws IOException
 	{
+		ensgMappings = readENSGMappings(toSpecies, pathToOrthopairs);
+	}
+
+	// Sets the species-specific ENSG gene-protein mappings, keyed by protein identifier
+	public static void setENSGMappings(Map<String, List<String>> ensgMappingsCopy)
+	{
+		ensgMappings = ensgMappingsCopy;
+	}
+
+	// Returns the species-specific ENSG gene-protein mappings, keyed by protein identifier
+	public static Map<String, List<String>> readENSGMappings(String toSpecies, String pathToOrthopairs) throws IOException
+	{
+		Map<String, List<String>> ensgMappings = new HashMap<>();
 		String mappingFileName = toSpecies + "_gene_protein_mapping.tsv";
 		String mappingFilePath = Paths.get(pathToOrthopairs, mappingFileName).toString();
-		logger.info("Reading in " + mappingFilePath);
+		logger.info("Reading in {}", mappingFilePath);
 		FileReader fr = new FileReader(mappingFilePath);
 		BufferedReader br = new BufferedReader(fr);
 
@@ -335,6 +368,7 @@ public class EWASInferrer {
 		}
 		br.close();
 		fr.close();
+		return ensgMappings;
 	}
 
 	// Fetches Uniprot DB instance
@@ -357,7 +391,13 @@ public class EWASInferrer {
 		enspDbInst.addAttributeValue(url, toSpeciesReferenceDbUrl);
 		enspDbInst.addAttributeValue(accessUrl, toSpeciesEnspAccessUrl);
 		enspDbInst.setAttributeValue(_displayName, "Ensembl");
-		dba.storeInstance(enspDbInst);
+		// Sharded runs all create this instance, so an identical one stored by another shard is used if it exists
+		if (ShardCoordinator.isSharded())
+		{
+			enspDbInst = InstanceUtilities.checkForIdenticalInstances(enspDbInst, null);
+		} else {
+			dba.storeInstance(enspDbInst);
+		}
 	}
 
 	// Creates instance pertaining to the species Ensembl Gene DB
@@ -372,7 +412,12 @@ public class EWASInferrer {
 		ensgDbInst.addAttributeValue(url, toSpeciesReferenceDbUrl);
 		ensgDbInst.addAttributeValue(accessUrl, toSpeciesEnsgAccessUrl);
 		ensgDbInst.setAttributeValue(_displayName, "ENSEMBL");
-		dba.storeInstance(ensgDbInst);
+		if (ShardCoordinator.isSharded())
+		{
+			ensgDbInst = InstanceUtilities.checkForIdenticalInstances(ensgDbInst, null);
+		} else {
+			dba.storeInstance(ensgDbInst);
+		}
 	}
 
 	// Create instance pertaining to any alternative reference DB for the species
@@ -404,6 +449,12 @@ public class EWASInferrer {
 		speciesInst = speciesInstCopy;
 	}
 
+	// Entries held by the orthopairs, gene ID and gene name maps
+	public static long getOrthopairsEntryCount()
+	{
+		return (long) homologueMappings.size() + ensgMappings.size() + wormbaseMappings.size() + geneNameMappings.size();
+	}
+
 	// Set the Wormbase gene names mapping file.
 	public static void setWormbaseMappings(Map<String, List<String>> wormbaseMappingsCopy) {
 		wormbaseMappings = wormbaseMappingsCopy;
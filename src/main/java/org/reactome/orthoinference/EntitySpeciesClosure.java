@@ -0,0 +1,119 @@
+package org.reactome.orthoinference;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.gk.model.GKInstance;
+import static org.gk.model.ReactomeJavaConstants.*;
+
+/**
+ * Memoized species information for the constituent closure of each PhysicalEntity, computed bottom-up once per DB ID.
+ * Complexes, sets and polymers are shared by many RlEs, so their closures are built from their constituents' stored closures
+ * rather than by walking down to every leaf each time. Closures only depend on source species data, so they can be shared by
+ * the threads of the skip pre-pass and the pipeline's filter stage.
+ *
+ * Each closure answers two questions:
+ *  - the DB IDs of all species found on the entity and its hasMember/hasComponent/repeatedUnit constituents (see SkipInstanceChecker)
+ *  - whether any non-OtherEntity leaf under its hasMember/hasCandidate/hasComponent/repeatedUnit constituents has a species (see SpeciesCheckUtility)
+ */
+public class EntitySpeciesClosure {
+
+	private static final long[] NO_SPECIES = new long[0];
+	private static Map<Long, SpeciesClosure> speciesClosures = new ConcurrentHashMap<>();
+	// Most closures have the same single species, so those arrays are shared
+	private static Map<Long, long[]> singleSpeciesDbIds = new ConcurrentHashMap<>();
+
+	// Sorted DB IDs of the species of the entity and its constituents
+	public static long[] getSpeciesDbIds(GKInstance entityInst) throws Exception
+	{
+		return getSpeciesClosure(entityInst).speciesDbIds;
+	}
+
+	// Checks if there is a species attribute in any constituent instances of entityInst. Sets, Complexes and Polymers
+	// are checked through their constituents, while OtherEntities never have a species.
+	public static boolean hasSpeciesAttribute(GKInstance entityInst) throws Exception
+	{
+		return getSpeciesClosure(entityInst).leafHasSpecies;
+	}
+
+	// Concurrent threads may both compute a missing closure, but will store the same result
+	@SuppressWarnings("unchecked")
+	private static SpeciesClosure getSpeciesClosure(GKInstance entityInst) throws Exception
+	{
+		SpeciesClosure speciesClosure = speciesClosures.get(entityInst.getDBID());
+		if (speciesClosure != null)
+		{
+			return speciesClosure;
+		}
+		TreeSet<Long> speciesDbIds = new TreeSet<>();
+		if (entityInst.getSchemClass().isValidAttribute(species))
+		{
+			for (GKInstance speciesInst : (Collection<GKInstance>) entityInst.getAttributeValuesList(species))
+			{
+				speciesDbIds.add(speciesInst.getDBID());
+			}
+		}
+		boolean isContainer = entityInst.getSchemClass().isa(EntitySet) || entityInst.getSchemClass().isa(Complex) || entityInst.getSchemClass().isa(Polymer);
+		boolean leafHasSpecies = !isContainer && !entityInst.getSchemClass().isa(OtherEntity) && !speciesDbIds.isEmpty();
+		for (String constituentAttribute : Arrays.asList(hasMember, hasComponent, repeatedUnit))
+		{
+			if (entityInst.getSchemClass().isValidAttribute(constituentAttribute))
+			{
+				for (GKInstance constituentInst : (Collection<GKInstance>) entityInst.getAttributeValuesList(constituentAttribute))
+				{
+					SpeciesClosure constituentClosure = getSpeciesClosure(constituentInst);
+					for (long speciesDbId : constituentClosure.speciesDbIds)
+					{
+						speciesDbIds.add(speciesDbId);
+					}
+					leafHasSpecies |= constituentClosure.leafHasSpecies;
+				}
+			}
+		}
+		// Candidates only count towards whether a species exists, not towards the multiple species check
+		if (entityInst.getSchemClass().isa(CandidateSet))
+		{
+			for (GKInstance candidateInst : (Collection<GKInstance>) entityInst.getAttributeValuesList(hasCandidate))
+			{
+				leafHasSpecies |= getSpeciesClosure(candidateInst).leafHasSpecies;
+			}
+		}
+		speciesClosure = new SpeciesClosure(toSpeciesDbIdArray(speciesDbIds), leafHasSpecies);
+		speciesClosures.put(entityInst.getDBID(), speciesClosure);
+		return speciesClosure;
+	}
+
+	// Forgets all memoized closures, so that they are computed again (eg: between benchmark invocations)
+	public static void clear()
+	{
+		speciesClosures.clear();
+	}
+
+	private static long[] toSpeciesDbIdArray(TreeSet<Long> speciesDbIds)
+	{
+		if (speciesDbIds.isEmpty())
+		{
+			return NO_SPECIES;
+		}
+		if (speciesDbIds.size() == 1)
+		{
+			return singleSpeciesDbIds.computeIfAbsent(speciesDbIds.first(), speciesDbId -> new long[] {speciesDbId});
+		}
+		return speciesDbIds.stream().mapToLong(Long::longValue).toArray();
+	}
+
+	private static class SpeciesClosure
+	{
+		private final long[] speciesDbIds;
+		private final boolean leafHasSpecies;
+
+		private SpeciesClosure(long[] speciesDbIds, boolean leafHasSpecies)
+		{
+			this.speciesDbIds = speciesDbIds;
+			this.leafHasSpecies = leafHasSpecies;
+		}
+	}
+}
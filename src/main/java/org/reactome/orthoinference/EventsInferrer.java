@@ -7,6 +7,7 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.URL;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -52,12 +53,15 @@ public class EventsInferrer
 	private static List<GKInstance> manualHumanEvents = new ArrayList<>();
 	private static StableIdentifierGenerator stableIdentifierGenerator;
 	private static OrthologousPathwayDiagramGenerator orthologousPathwayDiagramGenerator;
-	private static final String INFERRED_EVIDENCE_TYPE_DISPLAY_NAME = "inferred by electronic annotation";
+	public static final String INFERRED_EVIDENCE_TYPE_DISPLAY_NAME = "inferred by electronic annotation";
+	private static boolean resume = false;
+	private static boolean finalizeShards = false;
 
 	@SuppressWarnings("unchecked")
 	public static void inferEvents(Properties props, String species) throws Exception
 	{
 		logger.info("Preparing DB Adaptor and setting project variables");
+		SpeciesReport.setStartTime(System.currentTimeMillis());
 		// Set up DB adaptor using config.properties file
 		String username = props.getProperty("release.database.user");
 		String password = props.getProperty("release.database.password");
@@ -66,13 +70,28 @@ public class EventsInferrer
 		String host = props.getProperty("release.database.host");
 		int port = Integer.valueOf(props.getProperty("release.database.port"));
 
-		dbAdaptor = new MySQLAdaptor(host, database, username, password, port);
-		dbAdaptorPrev = new MySQLAdaptor(host, prevDatabase, username, password, port);
+		// DB calls made through the adaptors are counted by schema class (see InferenceStatistics), and their SQL can be profiled (see SqlProfiler)
+		SqlProfiler.setEnabled(Boolean.valueOf(props.getProperty("sqlProfiling", "false")));
+		SqlProfiler.setTopCount(Integer.valueOf(props.getProperty("sqlProfileTopCount", "25")));
+		ReactionInferrer.setSlowReactionThreshold(Long.valueOf(props.getProperty("slowReactionThreshold", "60000")));
+		dbAdaptor = new CountingMySQLAdaptor(host, database, username, password, port);
+		dbAdaptorPrev = new CountingMySQLAdaptor(host, prevDatabase, username, password, port);
 		if (dbAdaptor == null || dbAdaptorPrev == null) {
 			logger.fatal("Null MySQLAdaptor, terminating orthoinference");
 			System.exit(1);
 		}
 		setDbAdaptors(dbAdaptor);
+		ShardCoordinator.setAdaptor(dbAdaptor, species);
+		ShardCoordinator.setLockTimeout(Integer.valueOf(props.getProperty("shardLockTimeout", "600")));
+		// Inference caches hold DB IDs only, and can spill all but 'cacheMaxHotEntries' entries each to disk to bound heap use
+		InferredInstanceCache.setMaxHotEntries(Integer.valueOf(props.getProperty("cacheMaxHotEntries", "0")));
+		if (props.getProperty("cacheSpillDirectory") != null)
+		{
+			InferredInstanceCache.setSpillDirectory(Paths.get(props.getProperty("cacheSpillDirectory")));
+		}
+		// The adaptor's own instance cache is evicted every 'cacheEvictionInterval' RlEs, or once the heap is 'cacheEvictionHeapFraction' full
+		AdaptorCacheManager.setEvictionInterval(Integer.valueOf(props.getProperty("cacheEvictionInterval", "0")));
+		AdaptorCacheManager.setEvictionHeapFraction(Double.valueOf(props.getProperty("cacheEvictionHeapFraction", "0")));
 
 		releaseVersion = props.getProperty("releaseNumber");
 		String pathToOrthopairs = props.getProperty("pathToOrthopairs", "orthopairs");
@@ -99,13 +118,56 @@ public class EventsInferrer
 		String refDbProteinUrl = (String) refDb.get("access");
 		String refDbGeneUrl = (String) refDb.get("ensg_access");
 
-		// Creates two files that a) list reactions that are eligible for inference and b) those that are successfully inferred
-		String eligibleFilename = "eligible_" + species	+ "_75.txt";
-		String inferredFilename = "inferred_" + species + "_75.txt";
-		createNewFile(eligibleFilename);
-		createNewFile(inferredFilename);
+		// Progress is checkpointed every 'checkpointInterval' RlEs, so that a failed run can be continued with the --resume flag
+		String checkpointFilename = "checkpoint_" + species + ShardCoordinator.getShardSuffix() + ".json";
+		boolean resumeFromCheckpoint = resume && Files.exists(Paths.get(checkpointFilename));
+		InferenceCheckpoint.setSpecies(species);
+		InferenceCheckpoint.setCheckpointFilename(checkpointFilename);
+		InferenceCheckpoint.setCheckpointInterval(Integer.valueOf(props.getProperty("checkpointInterval", "500")));
+		// Phase timings are exported next to the report every 'metricsExportInterval' seconds, and at the end of the run
+		InferenceMetrics.setSpecies(species);
+		InferenceMetrics.setFilenamePrefix("metrics_ortho_inference_" + releaseVersion + "_" + species + ShardCoordinator.getShardSuffix());
+		InferenceMetrics.setExportInterval(Integer.valueOf(props.getProperty("metricsExportInterval", "300")));
+		// Progress through each stage is reported every 'progressReportInterval' seconds, with its throughput over the last 'progressWindow' seconds
+		ProgressReporter.setSpecies(species);
+		ProgressReporter.setFilename("progress_ortho_inference_" + releaseVersion + "_" + species + ShardCoordinator.getShardSuffix() + ".json");
+		ProgressReporter.setReportInterval(Integer.valueOf(props.getProperty("progressReportInterval", "60")));
+		ProgressReporter.setWindow(Integer.valueOf(props.getProperty("progressWindow", "300")));
+		ProgressReporter.start();
+		// Heap use, allocation and GC are sampled at the start and end of each stage, and every 'heapSampleInterval' RlEs
+		HeapSampler.setSampleInterval(Integer.valueOf(props.getProperty("heapSampleInterval", "1000")));
+		HeapSampler.start();
+		// A JSON record of each RlE's outcome and cost is written to a compressed trace file
+		if (Boolean.valueOf(props.getProperty("reactionTrace", "true")) && !finalizeShards)
+		{
+			ReactionTrace.start("reaction_trace_" + releaseVersion + "_" + species + ShardCoordinator.getShardSuffix(),
+					Integer.valueOf(props.getProperty("pipelineQueueSize", "64")), resumeFromCheckpoint);
+		}
+		// Live metrics can be scraped from localhost while the run is going, on port 'metricsServerPort'
+		int metricsServerPort = Integer.valueOf(props.getProperty("metricsServerPort", "0"));
+		if (metricsServerPort > 0)
+		{
+			MetricsServer.setSpecies(species);
+			MetricsServer.start(metricsServerPort);
+		}
+
+		// Creates two files that a) list reactions that are eligible for inference and b) those that are successfully inferred.
+		// Each shard writes its own files, which are merged by the --finalize run.
+		String eligibleFilename = "eligible_" + species	+ "_75" + ShardCoordinator.getShardSuffix() + ".txt";
+		String inferredFilename = "inferred_" + species + "_75" + ShardCoordinator.getShardSuffix() + ".txt";
+		if (finalizeShards)
+		{
+			ReactionInferrer.setEligibleCount(mergeShardFiles("eligible_" + species + "_75"));
+			ReactionInferrer.setInferredCount(mergeShardFiles("inferred_" + species + "_75"));
+		} else if (!resumeFromCheckpoint)
+		{
+			createNewFile(eligibleFilename);
+			createNewFile(inferredFilename);
+		}
 		ReactionInferrer.setEligibleFilename(eligibleFilename);
 		ReactionInferrer.setInferredFilename(inferredFilename);
+		InferenceCheckpoint.addOutputFilename(eligibleFilename);
+		InferenceCheckpoint.addOutputFilename(inferredFilename);
 
 		stableIdentifierGenerator = new StableIdentifierGenerator(dbAdaptor, (String) speciesObject.get("abbreviation"));
 		// Set static variables (DB/Species Instances, mapping files) that will be repeatedly used
@@ -119,7 +181,19 @@ public class EventsInferrer
 			System.exit(1);
 		}
 		EWASInferrer.readENSGMappingFile(species, pathToOrthopairs);
+		if (Boolean.valueOf(props.getProperty("incrementalInference", "false")))
+		{
+			String pathToPreviousOrthopairs = props.getProperty("pathToPreviousOrthopairs");
+			enableIncrementalInference(species, speciesName, pathToOrthopairs, pathToPreviousOrthopairs);
+			String pathToPreviousReactionTraces = props.getProperty("pathToPreviousReactionTraces");
+			if (pathToPreviousReactionTraces != null)
+			{
+				IncrementalInferrer.readPreviousReactionTraces(pathToPreviousReactionTraces, species);
+			}
+		}
 		EWASInferrer.fetchAndSetUniprotDbInstance();
+		// Shards all create the same species-level instances, so only one shard at a time is allowed to check for and store them
+		ShardCoordinator.acquireLock();
 		EWASInferrer.createEnsemblProteinDbInstance(speciesName, refDbUrl, refDbProteinUrl);
 		EWASInferrer.createEnsemblGeneDBInstance(speciesName, refDbUrl, refDbGeneUrl);
 
@@ -135,6 +209,12 @@ public class EventsInferrer
 		setSummationInstance();
 		setEvidenceTypeInstance();
 		OrthologousEntityGenerator.setComplexSummationInstance();
+		ShardCoordinator.releaseLock();
+		// Identity cache entries from earlier runs against this DB are reused, so that their identity checks don't need to be queried again
+		if (Boolean.valueOf(props.getProperty("persistentIdentityCache", "false")) && !finalizeShards)
+		{
+			PersistentIdentityCache.enable("identity_cache_" + database + "_" + species + ShardCoordinator.getShardSuffix() + ".jsonl", species, releaseVersion);
+		}
 
 /**
  *  Start of ReactionlikeEvent inference. Retrieves all human ReactionlikeEvents, and attempts to infer each for the species.
@@ -148,22 +228,62 @@ public class EventsInferrer
 		}
 		long humanInstanceDbId = sourceSpeciesInst.iterator().next().getDBID();
 		orthologousPathwayDiagramGenerator = new OrthologousPathwayDiagramGenerator(dbAdaptor, dbAdaptorPrev, speciesInst, personId, humanInstanceDbId);
-		// Gets Reaction instances of source species (human)
-		Collection<GKInstance> reactionInstances = (Collection<GKInstance>) dbAdaptor.fetchInstanceByAttribute("ReactionlikeEvent", "species", "=", humanInstanceDbId);
-
-		List<Long> dbids = new ArrayList<>();
-		Map<Long, GKInstance> reactionMap = new HashMap<>();
-		for (GKInstance reactionInst : reactionInstances) {
-			dbids.add(reactionInst.getDBID());
-			reactionMap.put(reactionInst.getDBID(), reactionInst);
-		}
-		Collections.sort(dbids);
+		// Reaction instances of source species (human) are read a page at a time, in DB ID order
+		ReactionPageSource reactionPageSource = new ReactionPageSource(dbAdaptor, humanInstanceDbId, Integer.valueOf(props.getProperty("reactionPageSize", "500")));
+		List<Long> dbids = reactionPageSource.fetchDbIds();
 
 		logger.info(sourceSpeciesInst.iterator().next().getDisplayName() + " ReactionlikeEvent instances: " + dbids.size());
+		// Skip decisions for all RlEs are evaluated in parallel once per DB, and reused by every species run against it
+		int skipPrepassThreads = Integer.valueOf(props.getProperty("skipPrepassThreads", "0"));
+		if (skipPrepassThreads > 0 && !finalizeShards)
+		{
+			SkipInstanceChecker.setSkipDecisions(SkipDecisions.loadOrCompute(dbids, database, "skip_decisions_" + database + ".tsv", skipPrepassThreads,
+					() -> new MySQLAdaptor(host, database, username, password, port)));
+		}
+		Long lastCheckpointedReactionDbId = resumeFromCheckpoint ? InferenceCheckpoint.restore() : null;
+		// RlEs up to and including the last checkpointed one have already been completed, and RlEs outside this shard are inferred by another shard
+		List<Long> pendingDbids = new ArrayList<>();
 		for (Long dbid : dbids)
 		{
-			GKInstance reactionInst = reactionMap.get(dbid);
-			logger.info("Attempting RlE inference: " + reactionInst);
+			if ((lastCheckpointedReactionDbId == null || dbid > lastCheckpointedReactionDbId) && ShardCoordinator.isInShard(dbid))
+			{
+				pendingDbids.add(dbid);
+			}
+		}
+		reactionPageSource.setPendingDbIds(pendingDbids);
+		// The inferred RlEs of all shards, in source RlE DB ID order, for numbering the shards' paralog stable identifiers
+		List<GKInstance> finalizedReactions = new ArrayList<>();
+		// Skip checks and protein counts are made ahead of the inference by the pipeline's filter stage, and the eligible/inferred
+		// files are written by its reporting stage. Filter threads use their own DB adaptors, as MySQLAdaptor isn't thread-safe.
+		int filterThreads = finalizeShards ? 0 : Integer.valueOf(props.getProperty("pipelineFilterThreads", "0"));
+		int pipelineQueueSize = Integer.valueOf(props.getProperty("pipelineQueueSize", "64"));
+		ReactionPipeline reactionPipeline = new ReactionPipeline(pendingDbids, filterThreads, pipelineQueueSize,
+				() -> new CountingMySQLAdaptor(host, database, username, password, port, false));
+		reactionPipeline.start();
+		if (filterThreads > 0)
+		{
+			ReactionReporter.start(pipelineQueueSize);
+		}
+		// The instances read by the next 'prefetchWindow' RlEs are found ahead of time on a separate connection, and bulk loaded when each RlE is reached
+		int prefetchWindow = finalizeShards ? 0 : Integer.valueOf(props.getProperty("prefetchWindow", "0"));
+		ReactionPrefetcher reactionPrefetcher = new ReactionPrefetcher(pendingDbids, prefetchWindow,
+				() -> new CountingMySQLAdaptor(host, database, username, password, port, false));
+		reactionPrefetcher.start();
+		pinInstancesForEviction(reactionPageSource.getCurrentPage());
+		HeapSampler.sample("reactions_start");
+		ProgressReporter.startStage(ProgressReporter.REACTIONS, pendingDbids.size());
+		for (Long dbid : pendingDbids)
+		{
+			AdaptorCacheManager.beforeReaction();
+			HeapSampler.beforeReaction();
+			InferenceMetrics.exportIfDue();
+			InferenceStatistics.recordReaction();
+			SqlProfiler.setCurrentReaction(dbid);
+			ReactionTrace.startReaction(dbid);
+			GKInstance reactionInst = reactionPageSource.getReaction(dbid);
+			MetricsServer.setCurrentReaction(reactionInst);
+			reactionPrefetcher.loadPrefetched(dbid, dbAdaptor);
+			logger.debug("Attempting RlE inference: {}", reactionInst);
 			// Check if the current Reaction already exists for this species, that it is a valid instance (passes some filters), and that it doesn't have a Disease attribute.
 			// Adds to manualHumanEvents array if it passes conditions. This code block allows you to re-run the code without re-inferring instances.
 			List<GKInstance> previouslyInferredInstances = new ArrayList<GKInstance>();
@@ -176,31 +296,110 @@ public class EventsInferrer
 				{
 					GKInstance evidenceTypeInst = (GKInstance) prevInfInst.getAttributeValue(evidenceType);
 					if (evidenceTypeInst != null && evidenceTypeInst.getDisplayName().contains(INFERRED_EVIDENCE_TYPE_DISPLAY_NAME)) {
-						ReactionInferrer.addAlreadyInferredEvents(reactionInst, prevInfInst);
+						// When resuming, RlEs inferred after the last checkpoint are counted as if they had been inferred now
+						if (resumeFromCheckpoint && InferenceCheckpoint.isCreatedByThisRun(prevInfInst)) {
+							ReactionInferrer.addResumedInference(reactionInst, prevInfInst);
+						} else {
+							ReactionInferrer.addAlreadyInferredEvents(reactionInst, prevInfInst);
+						}
+						if (finalizeShards) {
+							finalizedReactions.add(prevInfInst);
+						}
+						ReactionTrace.setOutcome(ReactionTrace.PREVIOUSLY_INFERRED, "inferredDbId", prevInfInst.getDBID());
 					} else {
-						logger.info("Inferred RlE already exists, skipping inference");
+						logger.info("Inferred RlE already exists, skipping inference of {}", reactionInst);
 						manualEventToNonHumanSource.put(reactionInst, prevInfInst);
 						manualHumanEvents.add(reactionInst);
+						ReactionTrace.setOutcome(ReactionTrace.PREVIOUSLY_INFERRED, "manualDbId", prevInfInst.getDBID());
+						SpeciesReport.recordSkip("manuallyInferred");
 					}
 				} else {
-					logger.info("Disease reaction, skipping inference");
+					logger.info("Disease reaction, skipping inference of {}", reactionInst);
+					ReactionTrace.setOutcome(ReactionTrace.SKIPPED, "skipReasons", "previously inferred disease RlE");
+					SpeciesReport.recordSkip("disease");
 				}
+				reactionPipeline.skip(reactionInst);
+				ReactionTrace.finishReaction();
+				InferenceCheckpoint.recordCompletedReaction(reactionInst);
+				ProgressReporter.advance(ProgressReporter.REACTIONS);
+				continue;
+			}
+			// When finalizing, all RlE inferences have already been completed by the shards
+			if (finalizeShards)
+			{
+				ProgressReporter.advance(ProgressReporter.REACTIONS);
 				continue;
 			}
+			// Skip checks and protein counts are only needed once the RlE is known not to have been inferred already
+			ReactionFilterResult filterResult = null;
+			try {
+				filterResult = reactionPipeline.next(reactionInst);
+			} catch (Exception e) {
+				e.printStackTrace();
+				exitWithCheckpoint(reactionInst);
+			}
 
 			// An inferred ReactionlikeEvent doesn't already exist for this species, and an orthologous inference will be attempted.
 			try {
-				ReactionInferrer.inferReaction(reactionInst);
-				logger.info("Successfully inferred " + reactionInst);
+				ReactionInferrer.inferReaction(reactionInst, filterResult);
 			} catch (Exception e) {
 				e.printStackTrace();
-				System.exit(1);
+				exitWithCheckpoint(reactionInst);
 			}
+			ReactionTrace.finishReaction();
+			InferenceCheckpoint.recordCompletedReaction(reactionInst);
+			ProgressReporter.advance(ProgressReporter.REACTIONS);
+		}
+		ProgressReporter.finishStage(ProgressReporter.REACTIONS);
+		HeapSampler.sample("reactions_end");
+		SqlProfiler.setCurrentReaction(null);
+		MetricsServer.setCurrentReaction(null);
+		reactionPipeline.close();
+		reactionPrefetcher.close();
+		ReactionTrace.close();
+		logger.info("Read " + dbids.size() + " RlE(s) in " + reactionPageSource.getPagesLoaded() + " page(s)");
+		ReactionReporter.shutdown();
+		PersistentIdentityCache.close();
+		InferenceCheckpoint.write();
+		InferenceStatistics.logStatistics();
+		AdaptorCacheManager.logStatistics();
+		if (IncrementalInferrer.isEnabled())
+		{
+			logger.info(IncrementalInferrer.getUnchangedCount() + " RlEs were unchanged since the previous release");
+		}
+		// Pathways, diagrams and the report are generated once from all shards' results, by the --finalize run
+		if (ShardCoordinator.isSharded())
+		{
+			InferenceMetrics.export();
+			InferenceStatistics.write(species, "statistics_ortho_inference_" + releaseVersion + "_" + species + ShardCoordinator.getShardSuffix() + ".json");
+			SqlProfiler.write("sql_profile_" + releaseVersion + "_" + species + ShardCoordinator.getShardSuffix() + ".txt");
+			InferenceCheckpoint.delete();
+			MetricsServer.stop();
+			ProgressReporter.stop();
+			logger.info("Finished RlE inference for " + speciesName + " shard -- run with --finalize once all shards have finished");
+			return;
+		}
+		if (finalizeShards)
+		{
+			stableIdentifierGenerator.assignProvisionalIdentifiers(finalizedReactions);
 		}
 		PathwaysInferrer.setInferredEvent(ReactionInferrer.getInferredEvent());
+		long startTime = InferenceMetrics.start(InferenceMetrics.PATHWAY_INFERENCE);
 		PathwaysInferrer.inferPathways(ReactionInferrer.getInferrableHumanEvents());
+		InferenceMetrics.record(InferenceMetrics.PATHWAY_INFERENCE, startTime);
+		HeapSampler.sample("pathways_end");
+		startTime = InferenceMetrics.start(InferenceMetrics.DIAGRAM_GENERATION);
 		orthologousPathwayDiagramGenerator.generateOrthologousPathwayDiagrams();
+		InferenceMetrics.record(InferenceMetrics.DIAGRAM_GENERATION, startTime);
+		HeapSampler.sample("diagrams_end");
 		outputReport(species);
+		InferenceMetrics.export();
+		InferenceStatistics.logStatistics();
+		InferenceStatistics.write(species, "statistics_ortho_inference_" + releaseVersion + "_" + species + ".json");
+		SqlProfiler.write("sql_profile_" + releaseVersion + "_" + species + ".txt");
+		InferenceCheckpoint.delete();
+		MetricsServer.stop();
+		ProgressReporter.stop();
 		logger.info("Finished orthoinference of " + speciesName);
 	}
 
@@ -238,6 +437,53 @@ public class EventsInferrer
 		return geneNameMappings;
 	}
 
+	// The failed RlE has been rolled back, so the progress made up to the previous RlE can be checkpointed before exiting
+	private static void exitWithCheckpoint(GKInstance reactionInst) {
+		ReactionTrace.failReaction(reactionInst);
+		try {
+			InferenceCheckpoint.write();
+			logger.fatal("RlE inference failed for " + reactionInst + " -- run again with --resume to continue from the checkpoint");
+		} catch (Exception checkpointException) {
+			logger.fatal("Unable to write checkpoint", checkpointException);
+		}
+		System.exit(1);
+	}
+
+	// Collections whose instances are still needed after an adaptor cache eviction (see AdaptorCacheManager)
+	private static void pinInstancesForEviction(Map<Long, GKInstance> currentReactionPage) {
+		AdaptorCacheManager.pin(currentReactionPage);
+		AdaptorCacheManager.pin(manualEventToNonHumanSource);
+		AdaptorCacheManager.pin(manualHumanEvents);
+		AdaptorCacheManager.pin(ReactionInferrer.getInferrableHumanEvents());
+		for (Map<String, GKInstance> stringKeyedCache : InferenceCheckpoint.getStringKeyedCaches().values())
+		{
+			AdaptorCacheManager.pin(stringKeyedCache);
+		}
+	}
+
+	// Concatenates the files written by each shard (eg: eligible_mmus_75_shard0of4.txt) into the species file, returning its line count
+	private static int mergeShardFiles(String filenamePrefix) throws IOException {
+		List<Path> shardFilePaths = new ArrayList<>();
+		try (DirectoryStream<Path> shardFiles = Files.newDirectoryStream(Paths.get("."), filenamePrefix + "_shard*.txt")) {
+			shardFiles.forEach(shardFilePaths::add);
+		}
+		Collections.sort(shardFilePaths);
+		if (shardFilePaths.isEmpty()) {
+			logger.fatal("No shard files found for " + filenamePrefix);
+			System.exit(1);
+		}
+		String mergedFilename = filenamePrefix + ".txt";
+		createNewFile(mergedFilename);
+		int lineCount = 0;
+		for (Path shardFilePath : shardFilePaths) {
+			List<String> shardLines = Files.readAllLines(shardFilePath);
+			lineCount += shardLines.size();
+			Files.write(Paths.get(mergedFilename), shardLines, StandardOpenOption.APPEND);
+		}
+		logger.info("Merged " + shardFilePaths.size() + " shard files into " + mergedFilename);
+		return lineCount;
+	}
+
 	private static void createNewFile(String filename) throws IOException {
 		File file = new File(filename);
 		if (file.exists()) {
@@ -246,10 +492,24 @@ public class EventsInferrer
 		file.createNewFile();
 	}
 
+	// When set, the species run continues from its last checkpoint instead of starting from the first RlE
+	public static void setResume(boolean resumeCopy) {
+		resume = resumeCopy;
+	}
+
+	// When set, the Pathways, diagrams and report are generated from the RlEs inferred by a sharded run
+	public static void setFinalizeShards(boolean finalizeShardsCopy) {
+		finalizeShards = finalizeShardsCopy;
+	}
+
 	public static StableIdentifierGenerator getStableIdentifierGenerator() {
 		return stableIdentifierGenerator;
 	}
 
+	public static void setStableIdentifierGenerator(StableIdentifierGenerator stableIdentifierGeneratorCopy) {
+		stableIdentifierGenerator = stableIdentifierGeneratorCopy;
+	}
+
 	private static void setReleaseDates(String dateOfRelease)
 	{
 		ReactionInferrer.setReleaseDate(dateOfRelease);
@@ -271,6 +531,24 @@ public class EventsInferrer
 		return previouslyInferredInstances;
 	}
 
+	// Checks if an inference of the RlE already exists for the species. Safe to call from the ReactionPipeline's filter threads.
+	@SuppressWarnings("unchecked")
+	public static boolean isPreviouslyInferred(GKInstance reactionInst) throws Exception
+	{
+		for (String attribute : new String[]{orthologousEvent, inferredFrom})
+		{
+			for (GKInstance attributeInst : (Collection<GKInstance>) reactionInst.getAttributeValuesList(attribute))
+			{
+				GKInstance reactionSpeciesInst = (GKInstance) attributeInst.getAttributeValue(species);
+				if (speciesInst.getDBID().equals(reactionSpeciesInst.getDBID()) && attributeInst.getAttributeValue(isChimeric) == null)
+				{
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
 	private static void outputReport(String species) throws IOException
 	{
 		int eligibleCount = ReactionInferrer.getEligibleCount();
@@ -284,6 +562,8 @@ public class EventsInferrer
 		}
 		String results = "hsap to " + species + ":\t" + inferredCount + " out of " + eligibleCount + " eligible reactions (" + String.format("%.2f", percentInferred) + "%)\n";
 		Files.write(Paths.get(reportFilename), results.getBytes(), StandardOpenOption.APPEND);
+		// The structured report, from which ReportAggregator builds the sorted report
+		SpeciesReport.write(species, releaseVersion, "report_ortho_inference_" + releaseVersion + "_" + species + ".json");
 	}
 
 	// Statically store the adaptor variable in each class
@@ -295,7 +575,33 @@ public class EventsInferrer
 		OrthologousEntityGenerator.setAdaptor(dbAdaptor);
 		EWASInferrer.setAdaptor(dbAdaptor);
 		PathwaysInferrer.setAdaptor(dbAdaptor);
+		ReactionWriteBuffer.setAdaptor(dbAdaptor);
+		InferenceCheckpoint.setAdaptor(dbAdaptor);
+		InferredEventCopier.setAdaptor(dbAdaptor);
+		PersistentIdentityCache.setAdaptor(dbAdaptor);
+		InferredInstanceCache.setAdaptor(dbAdaptor);
+		AdaptorCacheManager.setAdaptor(dbAdaptor);
+
+	}
 
+	// Incremental mode reuses the previous release's inferences for RlEs that are unchanged. Since an RlE's inference also depends on
+	// the homologue data, the previous release's orthopairs files are needed to check that its homologues are unchanged too.
+	private static void enableIncrementalInference(String species, String speciesName, String pathToOrthopairs, String pathToPreviousOrthopairs) throws Exception
+	{
+		if (pathToPreviousOrthopairs == null)
+		{
+			logger.fatal("Incremental inference requires the 'pathToPreviousOrthopairs' property");
+			System.exit(1);
+		}
+		ReactionFingerprinter currentFingerprinter = new ReactionFingerprinter(
+				readHomologueMappingFile(species, "hsap", pathToOrthopairs),
+				EWASInferrer.readENSGMappings(species, pathToOrthopairs),
+				readGeneNameMappingFile(species, pathToOrthopairs));
+		ReactionFingerprinter previousFingerprinter = new ReactionFingerprinter(
+				readHomologueMappingFile(species, "hsap", pathToPreviousOrthopairs),
+				EWASInferrer.readENSGMappings(species, pathToPreviousOrthopairs),
+				readGeneNameMappingFile(species, pathToPreviousOrthopairs));
+		IncrementalInferrer.enable(dbAdaptorPrev, speciesName, currentFingerprinter, previousFingerprinter);
 	}
 
 	private static void readAndSetHomologueMappingFile(String species, String fromSpecies, String pathToOrthopairs) throws IOException {
@@ -378,6 +684,8 @@ public class EventsInferrer
 		OrthologousEntityGenerator.setInstanceEdit(instanceEditInst);
 		EWASInferrer.setInstanceEdit(instanceEditInst);
 		PathwaysInferrer.setInstanceEdit(instanceEditInst);
+		InferredEventCopier.setInstanceEdit(instanceEditInst);
+		InferenceCheckpoint.setInstanceEdit(instanceEditInst);
 	}
 
 	/**
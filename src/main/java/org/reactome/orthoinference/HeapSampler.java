@@ -0,0 +1,177 @@
+package org.reactome.orthoinference;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+/**
+ * Samples the heap at the boundaries of the run's stages and every 'heapSampleInterval' RlEs. Each sample has the heap in use after
+ * the last garbage collection, the bytes allocated by all threads and by the main thread since the previous sample (and the rates of
+ * each), and the count and time of the collections since then. Alongside, it records the entries held by the structures that grow
+ * during a run: the inference identity caches, the orthopairs maps, and the number of adaptor instance cache evictions so far (see
+ * AdaptorCacheManager). Comparing how the post-GC heap grows against each of these shows which one a larger heap is needed for.
+ *
+ * Samples are logged, and added to the species report (see SpeciesReport).
+ */
+public class HeapSampler {
+
+	private static final Logger logger = LogManager.getLogger();
+	private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+	private static JSONArray samples = new JSONArray();
+	private static int sampleInterval = 0;
+	private static int reactionCount = 0;
+	private static long mainThreadId = Thread.currentThread().getId();
+	private static long lastSampleTime = System.nanoTime();
+	private static long lastAllocatedBytes = 0;
+	private static long lastMainThreadAllocatedBytes = 0;
+	private static long lastGcCount = 0;
+	private static long lastGcMillis = 0;
+
+	// Called by the main thread before the run starts, so that its allocations can be told apart from the background threads'
+	public static void start()
+	{
+		mainThreadId = Thread.currentThread().getId();
+		lastSampleTime = System.nanoTime();
+		lastAllocatedBytes = getAllocatedBytes();
+		lastMainThreadAllocatedBytes = getThreadAllocatedBytes(mainThreadId);
+		lastGcCount = getGcCount();
+		lastGcMillis = getGcMillis();
+	}
+
+	// Called before each RlE is inferred, and samples every 'heapSampleInterval' RlEs
+	public static void beforeReaction()
+	{
+		if (sampleInterval > 0 && reactionCount > 0 && reactionCount % sampleInterval == 0)
+		{
+			sample("after " + reactionCount + " RlEs");
+		}
+		reactionCount++;
+	}
+
+	@SuppressWarnings("unchecked")
+	public static synchronized void sample(String label)
+	{
+		long now = System.nanoTime();
+		double seconds = Math.max(now - lastSampleTime, 1) / 1e9;
+		long allocatedBytes = getAllocatedBytes();
+		long mainThreadAllocatedBytes = getThreadAllocatedBytes(mainThreadId);
+		long gcCount = getGcCount();
+		long gcMillis = getGcMillis();
+		long heapAfterGc = getHeapAfterGc();
+		// Threads that have ended since the last sample no longer count towards the total, so it can fall
+		long allocatedDelta = Math.max(allocatedBytes - lastAllocatedBytes, 0);
+		long allocatedBytesPerSecond = Math.round(allocatedDelta / seconds);
+		long mainThreadAllocatedBytesPerSecond = Math.round((mainThreadAllocatedBytes - lastMainThreadAllocatedBytes) / seconds);
+		Map<String, Integer> cacheSizes = InferenceStatistics.getCacheSizes();
+		JSONObject sampleJSON = new JSONObject();
+		sampleJSON.put("label", label);
+		sampleJSON.put("reactions", reactionCount);
+		sampleJSON.put("heapAfterGcBytes", heapAfterGc);
+		sampleJSON.put("heapUsedBytes", Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory());
+		sampleJSON.put("allocatedBytes", allocatedDelta);
+		sampleJSON.put("allocatedBytesPerSecond", allocatedBytesPerSecond);
+		sampleJSON.put("mainThreadAllocatedBytes", mainThreadAllocatedBytes - lastMainThreadAllocatedBytes);
+		sampleJSON.put("mainThreadAllocatedBytesPerSecond", mainThreadAllocatedBytesPerSecond);
+		sampleJSON.put("gcCount", gcCount - lastGcCount);
+		sampleJSON.put("gcMillis", gcMillis - lastGcMillis);
+		JSONObject cacheSizesJSON = new JSONObject();
+		cacheSizesJSON.putAll(cacheSizes);
+		sampleJSON.put("identityCacheEntries", cacheSizesJSON);
+		sampleJSON.put("orthopairsEntries", EWASInferrer.getOrthopairsEntryCount());
+		sampleJSON.put("adaptorCacheEvictions", AdaptorCacheManager.getEvictionCount());
+		samples.add(sampleJSON);
+		logger.info("Heap sample ({}): {} MB after GC, {} MB/s allocated ({} MB/s by the main thread), {} GC(s) taking {} ms since the last sample, {} identity cache entries",
+				label, toMegabytes(heapAfterGc), toMegabytes(allocatedBytesPerSecond), toMegabytes(mainThreadAllocatedBytesPerSecond),
+				gcCount - lastGcCount, gcMillis - lastGcMillis, cacheSizes.values().stream().mapToLong(Integer::longValue).sum());
+		lastSampleTime = now;
+		lastAllocatedBytes = allocatedBytes;
+		lastMainThreadAllocatedBytes = mainThreadAllocatedBytes;
+		lastGcCount = gcCount;
+		lastGcMillis = gcMillis;
+	}
+
+	public static synchronized JSONArray getSamples()
+	{
+		return samples;
+	}
+
+	public static void setSampleInterval(int sampleIntervalCopy)
+	{
+		sampleInterval = sampleIntervalCopy;
+	}
+
+	// Heap use as of the last garbage collection of each pool, or the current use if no pool reports it
+	private static long getHeapAfterGc()
+	{
+		long used = 0;
+		boolean collected = false;
+		for (MemoryPoolMXBean memoryPool : ManagementFactory.getMemoryPoolMXBeans())
+		{
+			MemoryUsage collectionUsage = memoryPool.getCollectionUsage();
+			if (memoryPool.getType() == MemoryType.HEAP && collectionUsage != null)
+			{
+				used += collectionUsage.getUsed();
+				collected = true;
+			}
+		}
+		return collected ? used : Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+	}
+
+	// Bytes allocated by all live threads, if the JVM can measure it (HotSpot can), or 0
+	private static long getAllocatedBytes()
+	{
+		if (!(threadBean instanceof com.sun.management.ThreadMXBean))
+		{
+			return 0;
+		}
+		long allocatedBytes = 0;
+		for (long threadAllocatedBytes : ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(threadBean.getAllThreadIds()))
+		{
+			allocatedBytes += Math.max(threadAllocatedBytes, 0);
+		}
+		return allocatedBytes;
+	}
+
+	private static long getThreadAllocatedBytes(long threadId)
+	{
+		if (!(threadBean instanceof com.sun.management.ThreadMXBean))
+		{
+			return 0;
+		}
+		return Math.max(((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(threadId), 0);
+	}
+
+	private static long getGcCount()
+	{
+		long gcCount = 0;
+		for (GarbageCollectorMXBean garbageCollector : ManagementFactory.getGarbageCollectorMXBeans())
+		{
+			gcCount += Math.max(garbageCollector.getCollectionCount(), 0);
+		}
+		return gcCount;
+	}
+
+	private static long getGcMillis()
+	{
+		long gcMillis = 0;
+		for (GarbageCollectorMXBean garbageCollector : ManagementFactory.getGarbageCollectorMXBeans())
+		{
+			gcMillis += Math.max(garbageCollector.getCollectionTime(), 0);
+		}
+		return gcMillis;
+	}
+
+	private static long toMegabytes(long bytes)
+	{
+		return bytes / (1024 * 1024);
+	}
+}
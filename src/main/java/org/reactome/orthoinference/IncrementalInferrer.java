@@ -0,0 +1,158 @@
+package org.reactome.orthoinference;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.gk.model.GKInstance;
+import static org.gk.model.ReactomeJavaConstants.*;
+
+import org.gk.persistence.MySQLAdaptor;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+/**
+ * Incremental mode compares each human ReactionlikeEvent with its version in the previous release. RlEs with the same participant
+ * fingerprint (see ReactionFingerprinter), computed with each release's homologue data, would be inferred in exactly the same way,
+ * so their previous inference outcome is reused: RlEs that were inferred have their inferred participants copied forward by the
+ * InferredEventCopier, and RlEs whose inference was attempted and failed at one of the inference stages are not attempted again.
+ * Failures are read from the previous release's RlE traces (see ReactionTrace), so without them every RlE that has no previous
+ * inference is inferred in full, as are RlEs that were skipped, failed with an exception or were never attempted.
+ */
+public class IncrementalInferrer {
+
+	private static final Logger logger = LogManager.getLogger();
+	private static boolean enabled = false;
+	private static MySQLAdaptor dbaPrev;
+	private static GKInstance previousSpeciesInst;
+	private static ReactionFingerprinter currentFingerprinter;
+	private static ReactionFingerprinter previousFingerprinter;
+	private static int unchangedCount = 0;
+	// The stage at which each RlE's inference failed in the previous release
+	private static Map<Long, String> previousFailedStages = new HashMap<>();
+	// Stages whose failures only depend on the fingerprinted inputs (unlike eg: 'exception')
+	private static final List<String> REPEATABLE_FAILED_STAGES = Arrays.asList("protein_count", "input", "output", "catalyst", "regulation");
+
+	// Turns on incremental mode. The fingerprinters hold the homologue data of the current and previous releases.
+	@SuppressWarnings("unchecked")
+	public static void enable(MySQLAdaptor dbAdaptorPrev, String speciesName, ReactionFingerprinter currentFingerprinterCopy, ReactionFingerprinter previousFingerprinterCopy) throws Exception
+	{
+		Collection<GKInstance> previousSpeciesInstances = (Collection<GKInstance>) dbAdaptorPrev.fetchInstanceByAttribute(Species, name, "=", speciesName);
+		if (previousSpeciesInstances.isEmpty())
+		{
+			logger.warn(speciesName + " does not exist in the previous release -- incremental inference is not possible");
+			return;
+		}
+		dbaPrev = dbAdaptorPrev;
+		previousSpeciesInst = previousSpeciesInstances.iterator().next();
+		currentFingerprinter = currentFingerprinterCopy;
+		previousFingerprinter = previousFingerprinterCopy;
+		enabled = true;
+		logger.info("Incremental inference enabled -- RlEs unchanged since the previous release will reuse its inferences");
+	}
+
+	public static boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	// Checks that the RlE exists in the previous release, and that its participant subgraph and their homologues are unchanged
+	public static boolean isUnchangedSincePreviousRelease(GKInstance reactionInst) throws Exception
+	{
+		GKInstance previousReactionInst = dbaPrev.fetchInstance(reactionInst.getDBID());
+		if (previousReactionInst == null || !previousReactionInst.getSchemClass().getName().equals(reactionInst.getSchemClass().getName()))
+		{
+			logger.info("RlE does not exist in previous release");
+			return false;
+		}
+		if (!currentFingerprinter.fingerprint(reactionInst).equals(previousFingerprinter.fingerprint(previousReactionInst)))
+		{
+			logger.info("RlE has changed since previous release");
+			return false;
+		}
+		unchangedCount++;
+		return true;
+	}
+
+	// Returns the RlE that was electronically inferred from this RlE in the previous release, or null if it wasn't inferred
+	@SuppressWarnings("unchecked")
+	public static GKInstance getPreviousInferredReaction(GKInstance reactionInst) throws Exception
+	{
+		GKInstance previousReactionInst = dbaPrev.fetchInstance(reactionInst.getDBID());
+		for (GKInstance previousInfReactionInst : (Collection<GKInstance>) previousReactionInst.getAttributeValuesList(orthologousEvent))
+		{
+			GKInstance previousInfSpeciesInst = (GKInstance) previousInfReactionInst.getAttributeValue(species);
+			GKInstance previousEvidenceTypeInst = (GKInstance) previousInfReactionInst.getAttributeValue(evidenceType);
+			if (previousInfSpeciesInst != null && previousInfSpeciesInst.getDBID().equals(previousSpeciesInst.getDBID())
+					&& previousInfReactionInst.getAttributeValue(isChimeric) == null
+					&& previousEvidenceTypeInst != null && previousEvidenceTypeInst.getDisplayName().contains(EventsInferrer.INFERRED_EVIDENCE_TYPE_DISPLAY_NAME))
+			{
+				return previousInfReactionInst;
+			}
+		}
+		return null;
+	}
+
+	// Returns the stage at which the RlE's inference failed in the previous release, or null if it wasn't attempted or didn't fail there
+	public static String getPreviousFailedStage(GKInstance reactionInst)
+	{
+		return previousFailedStages.get(reactionInst.getDBID());
+	}
+
+	// Reads the failed RlEs from the species' RlE traces in the previous release's directory. Files are read in name order, so
+	// the records of a resumed run segment replace those of the segments before it.
+	public static void readPreviousReactionTraces(String pathToPreviousReactionTraces, String species) throws IOException
+	{
+		List<Path> tracePaths = new ArrayList<>();
+		try (DirectoryStream<Path> traceFiles = Files.newDirectoryStream(Paths.get(pathToPreviousReactionTraces), "reaction_trace_*_" + species + "*.jsonl.gz"))
+		{
+			traceFiles.forEach(tracePaths::add);
+		}
+		Collections.sort(tracePaths);
+		JSONParser parser = new JSONParser();
+		for (Path tracePath : tracePaths)
+		{
+			try (BufferedReader traceReader = new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(tracePath)), StandardCharsets.UTF_8)))
+			{
+				String traceLine;
+				while ((traceLine = traceReader.readLine()) != null)
+				{
+					JSONObject traceRecord = (JSONObject) parser.parse(traceLine);
+					Long reactionDbId = (Long) traceRecord.get("dbId");
+					String failedStage = (String) traceRecord.get("failedStage");
+					if (ReactionTrace.FAILED.equals(traceRecord.get("outcome")) && REPEATABLE_FAILED_STAGES.contains(failedStage))
+					{
+						previousFailedStages.put(reactionDbId, failedStage);
+					} else {
+						previousFailedStages.remove(reactionDbId);
+					}
+				}
+			} catch (IOException | ParseException e) {
+				// The trace of a killed run ends part way through a record
+				logger.warn("Unable to read all of " + tracePath + " -- its remaining records are ignored", e);
+			}
+		}
+		logger.info("Read " + previousFailedStages.size() + " failed RlE(s) from " + tracePaths.size() + " previous release RlE trace(s)");
+	}
+
+	public static int getUnchangedCount()
+	{
+		return unchangedCount;
+	}
+}
@@ -0,0 +1,334 @@
+package org.reactome.orthoinference;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.gk.model.GKInstance;
+import static org.gk.model.ReactomeJavaConstants.*;
+import org.gk.persistence.MySQLAdaptor;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+
+/**
+ * Periodically saves the progress of a species run to a local JSON file, so that a run that fails part way through can be
+ * resumed (using the --resume flag) without re-inferring or re-scanning the ReactionlikeEvents that were already completed.
+ *
+ * A checkpoint holds the DB ID of the last completed RlE, the eligible/inferred counts, the species report's skip and stored
+ * instance counts, the sizes of the eligible/inferred files and the identity caches, with every cached instance stored by its DB ID.
+ * Since the ReactionWriteBuffer only commits complete RlE inferences, the caches never point at instances that don't exist in the DB
+ * when a checkpoint is written.
+ * RlEs are only counted, and written to the eligible/inferred files, once they are completed. RlEs that were committed after the
+ * last checkpoint are picked up on resume by the 'previously inferred' check in EventsInferrer, and are counted again if they were
+ * created by one of the run's InstanceEdits, which are saved in the checkpoint.
+ */
+public class InferenceCheckpoint {
+
+	private static final Logger logger = LogManager.getLogger();
+	private static MySQLAdaptor dba;
+	private static String species;
+	private static String checkpointFilename;
+	private static List<String> outputFilenames = new ArrayList<>();
+	private static int checkpointInterval = 500;
+	private static int reactionsSinceCheckpoint = 0;
+	private static Long lastReactionDbId;
+	private static List<Long> instanceEditDbIds = new ArrayList<>();
+
+	// Records that the RlE has been fully processed, writing a checkpoint every 'checkpointInterval' RlEs
+	public static void recordCompletedReaction(GKInstance reactionInst) throws Exception
+	{
+		ReactionInferrer.recordCompletedReaction(reactionInst);
+		lastReactionDbId = reactionInst.getDBID();
+		reactionsSinceCheckpoint++;
+		if (checkpointInterval > 0 && reactionsSinceCheckpoint >= checkpointInterval)
+		{
+			write();
+		}
+	}
+
+	// Writes the checkpoint to a temporary file before moving it into place, so that a failure while writing never corrupts the previous checkpoint
+	@SuppressWarnings("unchecked")
+	public static void write() throws Exception
+	{
+		if (checkpointFilename == null || lastReactionDbId == null)
+		{
+			return;
+		}
+		JSONObject checkpointJSON = new JSONObject();
+		checkpointJSON.put("species", species);
+		checkpointJSON.put("lastReactionDbId", lastReactionDbId);
+		checkpointJSON.put("eligibleCount", ReactionInferrer.getEligibleCount());
+		checkpointJSON.put("inferredCount", ReactionInferrer.getInferredCount());
+		JSONArray instanceEditDbIdsJSON = new JSONArray();
+		instanceEditDbIdsJSON.addAll(instanceEditDbIds);
+		checkpointJSON.put("instanceEditDbIds", instanceEditDbIdsJSON);
+		JSONObject skipCountsJSON = new JSONObject();
+		skipCountsJSON.putAll(SpeciesReport.getSkipCounts());
+		checkpointJSON.put("skipCounts", skipCountsJSON);
+		JSONObject storedInstanceCountsJSON = new JSONObject();
+		storedInstanceCountsJSON.putAll(SpeciesReport.getStoredInstanceCounts());
+		checkpointJSON.put("storedInstanceCounts", storedInstanceCountsJSON);
+
+		JSONArray inferrableHumanEventsJSON = new JSONArray();
+		for (GKInstance inferrableHumanEventInst : ReactionInferrer.getInferrableHumanEvents())
+		{
+			inferrableHumanEventsJSON.add(inferrableHumanEventInst.getDBID());
+		}
+		checkpointJSON.put("inferrableHumanEvents", inferrableHumanEventsJSON);
+
+		// Lines still queued by the reporting stage must be on disk before the file sizes are recorded
+		ReactionReporter.flush();
+		JSONObject outputFileSizesJSON = new JSONObject();
+		for (String outputFilename : outputFilenames)
+		{
+			outputFileSizesJSON.put(outputFilename, Files.size(Paths.get(outputFilename)));
+		}
+		checkpointJSON.put("outputFileSizes", outputFileSizesJSON);
+
+		JSONObject instanceCachesJSON = new JSONObject();
+		for (Map.Entry<String, Map<GKInstance, GKInstance>> instanceCache : getInstanceKeyedCaches().entrySet())
+		{
+			JSONObject cacheJSON = new JSONObject();
+			// DB ID caches are written without fetching their instances
+			if (instanceCache.getValue() instanceof InferredInstanceCache)
+			{
+				((InferredInstanceCache) instanceCache.getValue()).forEachDbId((keyDbId, valueDbId) -> cacheJSON.put(String.valueOf(keyDbId), valueDbId));
+				instanceCachesJSON.put(instanceCache.getKey(), cacheJSON);
+				continue;
+			}
+			for (Map.Entry<GKInstance, GKInstance> cacheEntry : instanceCache.getValue().entrySet())
+			{
+				if (cacheEntry.getValue() != null)
+				{
+					cacheJSON.put(cacheEntry.getKey().getDBID().toString(), cacheEntry.getValue().getDBID());
+				}
+			}
+			instanceCachesJSON.put(instanceCache.getKey(), cacheJSON);
+		}
+		checkpointJSON.put("instanceCaches", instanceCachesJSON);
+
+		JSONObject keyedCachesJSON = new JSONObject();
+		for (Map.Entry<String, Map<String, GKInstance>> keyedCache : getStringKeyedCaches().entrySet())
+		{
+			JSONObject cacheJSON = new JSONObject();
+			for (Map.Entry<String, GKInstance> cacheEntry : keyedCache.getValue().entrySet())
+			{
+				if (cacheEntry.getValue() != null)
+				{
+					cacheJSON.put(cacheEntry.getKey(), cacheEntry.getValue().getDBID());
+				}
+			}
+			keyedCachesJSON.put(keyedCache.getKey(), cacheJSON);
+		}
+		checkpointJSON.put("keyedCaches", keyedCachesJSON);
+
+		JSONObject seenOrthoIdsJSON = new JSONObject();
+		seenOrthoIdsJSON.putAll(StableIdentifierGenerator.getSeenOrthoIds());
+		checkpointJSON.put("seenOrthoIds", seenOrthoIdsJSON);
+
+		Path checkpointPath = Paths.get(checkpointFilename);
+		Path tempCheckpointPath = Paths.get(checkpointFilename + ".tmp");
+		Files.write(tempCheckpointPath, checkpointJSON.toJSONString().getBytes());
+		Files.move(tempCheckpointPath, checkpointPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		reactionsSinceCheckpoint = 0;
+		logger.info("Checkpoint written to " + checkpointFilename + " (last RlE: " + lastReactionDbId + ")");
+	}
+
+	// Restores the counters, caches and output files from the checkpoint, returning the DB ID of the last completed RlE.
+	// Returns null if there is no checkpoint to resume from.
+	@SuppressWarnings("unchecked")
+	public static Long restore() throws Exception
+	{
+		Path checkpointPath = Paths.get(checkpointFilename);
+		if (!Files.exists(checkpointPath))
+		{
+			logger.warn("No checkpoint found at " + checkpointFilename + " -- starting from the first RlE");
+			return null;
+		}
+		JSONObject checkpointJSON = (JSONObject) new JSONParser().parse(new FileReader(checkpointFilename));
+		if (!species.equals(checkpointJSON.get("species")))
+		{
+			logger.fatal("Checkpoint " + checkpointFilename + " was written for " + checkpointJSON.get("species") + ", not " + species);
+			System.exit(1);
+		}
+		Map<Long, GKInstance> fetchedInstances = new HashMap<>();
+
+		ReactionInferrer.setEligibleCount(((Long) checkpointJSON.get("eligibleCount")).intValue());
+		ReactionInferrer.setInferredCount(((Long) checkpointJSON.get("inferredCount")).intValue());
+		JSONObject skipCountsJSON = (JSONObject) checkpointJSON.getOrDefault("skipCounts", new JSONObject());
+		for (Object skipReasonName : skipCountsJSON.keySet())
+		{
+			SpeciesReport.getSkipCounts().put((String) skipReasonName, ((Long) skipCountsJSON.get(skipReasonName)).intValue());
+		}
+		JSONObject storedInstanceCountsJSON = (JSONObject) checkpointJSON.getOrDefault("storedInstanceCounts", new JSONObject());
+		for (Object schemaClassName : storedInstanceCountsJSON.keySet())
+		{
+			SpeciesReport.getStoredInstanceCounts().put((String) schemaClassName, (Long) storedInstanceCountsJSON.get(schemaClassName));
+		}
+		// The InstanceEdits of the interrupted runs, so that the RlEs they inferred after the checkpoint can be recognised
+		JSONArray instanceEditDbIdsJSON = (JSONArray) checkpointJSON.getOrDefault("instanceEditDbIds", new JSONArray());
+		for (Object instanceEditDbId : instanceEditDbIdsJSON)
+		{
+			if (!instanceEditDbIds.contains(instanceEditDbId))
+			{
+				instanceEditDbIds.add((Long) instanceEditDbId);
+			}
+		}
+		for (Object inferrableHumanEventDbId : (JSONArray) checkpointJSON.get("inferrableHumanEvents"))
+		{
+			GKInstance inferrableHumanEventInst = fetchInstance((Long) inferrableHumanEventDbId, fetchedInstances);
+			if (inferrableHumanEventInst != null)
+			{
+				ReactionInferrer.getInferrableHumanEvents().add(inferrableHumanEventInst);
+			}
+		}
+
+		// The eligible/inferred files are cut back to their checkpointed size, since anything written after it will be written again
+		JSONObject outputFileSizesJSON = (JSONObject) checkpointJSON.get("outputFileSizes");
+		for (Object outputFilename : outputFileSizesJSON.keySet())
+		{
+			try (RandomAccessFile outputFile = new RandomAccessFile((String) outputFilename, "rw"))
+			{
+				outputFile.setLength((Long) outputFileSizesJSON.get(outputFilename));
+			}
+		}
+
+		JSONObject instanceCachesJSON = (JSONObject) checkpointJSON.get("instanceCaches");
+		for (Map.Entry<String, Map<GKInstance, GKInstance>> instanceCache : getInstanceKeyedCaches().entrySet())
+		{
+			JSONObject cacheJSON = (JSONObject) instanceCachesJSON.get(instanceCache.getKey());
+			if (cacheJSON == null)
+			{
+				continue;
+			}
+			for (Object cacheKey : cacheJSON.keySet())
+			{
+				GKInstance keyInst = fetchInstance(Long.valueOf((String) cacheKey), fetchedInstances);
+				GKInstance valueInst = fetchInstance((Long) cacheJSON.get(cacheKey), fetchedInstances);
+				if (keyInst != null && valueInst != null)
+				{
+					instanceCache.getValue().put(keyInst, valueInst);
+				}
+			}
+		}
+
+		JSONObject keyedCachesJSON = (JSONObject) checkpointJSON.get("keyedCaches");
+		for (Map.Entry<String, Map<String, GKInstance>> keyedCache : getStringKeyedCaches().entrySet())
+		{
+			JSONObject cacheJSON = (JSONObject) keyedCachesJSON.get(keyedCache.getKey());
+			if (cacheJSON == null)
+			{
+				continue;
+			}
+			for (Object cacheKey : cacheJSON.keySet())
+			{
+				GKInstance valueInst = fetchInstance((Long) cacheJSON.get(cacheKey), fetchedInstances);
+				if (valueInst != null)
+				{
+					keyedCache.getValue().put((String) cacheKey, valueInst);
+				}
+			}
+		}
+
+		JSONObject seenOrthoIdsJSON = (JSONObject) checkpointJSON.get("seenOrthoIds");
+		for (Object targetIdentifier : seenOrthoIdsJSON.keySet())
+		{
+			StableIdentifierGenerator.getSeenOrthoIds().put((String) targetIdentifier, ((Long) seenOrthoIdsJSON.get(targetIdentifier)).intValue());
+		}
+
+		lastReactionDbId = (Long) checkpointJSON.get("lastReactionDbId");
+		logger.info("Resuming from checkpoint " + checkpointFilename + " -- " + fetchedInstances.size() + " cached instances restored, last RlE: " + lastReactionDbId);
+		return lastReactionDbId;
+	}
+
+	// Whether the instance was created by this run, or by a run it was resumed from
+	public static boolean isCreatedByThisRun(GKInstance inst) throws Exception
+	{
+		GKInstance createdInst = (GKInstance) inst.getAttributeValue(created);
+		return createdInst != null && instanceEditDbIds.contains(createdInst.getDBID());
+	}
+
+	// Removes the checkpoint once the species run has completed
+	public static void delete() throws IOException
+	{
+		if (checkpointFilename != null)
+		{
+			Files.deleteIfExists(Paths.get(checkpointFilename));
+		}
+	}
+
+	private static GKInstance fetchInstance(Long dbId, Map<Long, GKInstance> fetchedInstances) throws Exception
+	{
+		if (!fetchedInstances.containsKey(dbId))
+		{
+			GKInstance fetchedInst = dba.fetchInstance(dbId);
+			if (fetchedInst == null)
+			{
+				logger.warn("Checkpointed instance " + dbId + " no longer exists in the DB -- it will not be restored");
+			}
+			fetchedInstances.put(dbId, fetchedInst);
+		}
+		return fetchedInstances.get(dbId);
+	}
+
+	private static Map<String, Map<GKInstance, GKInstance>> getInstanceKeyedCaches()
+	{
+		Map<String, Map<GKInstance, GKInstance>> instanceKeyedCaches = new LinkedHashMap<>();
+		instanceKeyedCaches.putAll(ReactionInferrer.getInstanceKeyedCaches());
+		instanceKeyedCaches.putAll(OrthologousEntityGenerator.getInstanceKeyedCaches());
+		return instanceKeyedCaches;
+	}
+
+	// Also used by the PersistentIdentityCache
+	static Map<String, Map<String, GKInstance>> getStringKeyedCaches()
+	{
+		Map<String, Map<String, GKInstance>> stringKeyedCaches = new LinkedHashMap<>();
+		stringKeyedCaches.putAll(OrthologousEntityGenerator.getStringKeyedCaches());
+		stringKeyedCaches.putAll(EWASInferrer.getStringKeyedCaches());
+		stringKeyedCaches.putAll(InstanceUtilities.getStringKeyedCaches());
+		return stringKeyedCaches;
+	}
+
+	public static void setSpecies(String speciesCode)
+	{
+		species = speciesCode;
+	}
+
+	public static void setCheckpointFilename(String checkpointFilenameCopy)
+	{
+		checkpointFilename = checkpointFilenameCopy;
+	}
+
+	public static void setCheckpointInterval(int checkpointIntervalCopy)
+	{
+		checkpointInterval = checkpointIntervalCopy;
+	}
+
+	// Output files that are appended to during the RlE inference, and need to be cut back to their checkpointed size on resume
+	public static void addOutputFilename(String outputFilename)
+	{
+		outputFilenames.add(outputFilename);
+	}
+
+	public static void setInstanceEdit(GKInstance instanceEditInst)
+	{
+		instanceEditDbIds.add(instanceEditInst.getDBID());
+	}
+
+	public static void setAdaptor(MySQLAdaptor dbAdaptor)
+	{
+		dba = dbAdaptor;
+	}
+}
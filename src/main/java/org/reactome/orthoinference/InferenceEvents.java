@@ -0,0 +1,89 @@
+package org.reactome.orthoinference;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+import org.gk.model.GKInstance;
+
+/**
+ * JDK Flight Recorder events for the inference of RlEs and their participants. Events cost next to nothing unless a recording is running
+ * (eg: with -XX:StartFlightRecording), and can be viewed in JDK Mission Control under Reactome/Orthoinference. Each event carries the
+ * source instance's DB ID and schema class, whether its result came from a cache, and its duration.
+ */
+public class InferenceEvents {
+
+	@Category({"Reactome", "Orthoinference"})
+	public abstract static class InferenceEvent extends Event {
+
+		@Label("Source DB ID")
+		long sourceDbId;
+
+		@Label("Schema Class")
+		String schemaClass;
+
+		@Label("Cache Hit")
+		boolean cacheHit;
+
+		// Ends the event, and commits it for the source instance if it is enabled in the recording
+		public void commitFor(GKInstance sourceInst, boolean cacheHitCopy)
+		{
+			end();
+			if (shouldCommit())
+			{
+				sourceDbId = sourceInst.getDBID() != null ? sourceInst.getDBID() : 0;
+				schemaClass = sourceInst.getSchemClass().getName();
+				cacheHit = cacheHitCopy;
+				commit();
+			}
+		}
+	}
+
+	@Name("org.reactome.orthoinference.ReactionInference")
+	@Label("RlE Inference")
+	@Description("Inference of a human RlE. Cache Hit is set when the RlE had already been inferred.")
+	public static class ReactionInferenceEvent extends InferenceEvent {
+	}
+
+	@Name("org.reactome.orthoinference.EntityInference")
+	@Label("PhysicalEntity Inference")
+	@Description("Inference of a PhysicalEntity, including its components. Cache Hit is set when the inferred entity was cached.")
+	public static class EntityInferenceEvent extends InferenceEvent {
+	}
+
+	@Name("org.reactome.orthoinference.EWASInference")
+	@Label("EWAS Inference")
+	@Description("Inference of an EWAS from its homologues. Cache Hit is set when every inferred EWAS was found in the identity cache.")
+	public static class EWASInferenceEvent extends InferenceEvent {
+	}
+
+	@Name("org.reactome.orthoinference.ProteinCount")
+	@Label("Protein Count")
+	@Description("Count of the distinct proteins of an instance and their homologues. Counts are not cached.")
+	public static class ProteinCountEvent extends InferenceEvent {
+	}
+
+	@Name("org.reactome.orthoinference.IdentityCheck")
+	@Label("Identity Check")
+	@Description("Check for an instance identical to an inferred one in the DB. Cache Hit is set when an identical instance already existed.")
+	public static class IdentityCheckEvent extends InferenceEvent {
+	}
+
+	@Name("org.reactome.orthoinference.SlowReaction")
+	@Label("Slow RlE")
+	@Description("An RlE that took longer than 'slowReactionThreshold' milliseconds to process.")
+	public static class SlowReactionEvent extends InferenceEvent {
+
+		@Label("Threshold")
+		@Timespan(Timespan.MILLISECONDS)
+		long threshold;
+
+		public void setThreshold(long thresholdCopy)
+		{
+			threshold = thresholdCopy;
+		}
+	}
+}
@@ -0,0 +1,247 @@
+package org.reactome.orthoinference;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.json.simple.JSONObject;
+
+/**
+ * Records how long each phase of the inference takes, as latency histograms with fixed buckets, and exports them as JSON and in
+ * the Prometheus text format (to metrics_ortho_inference_(release)_(species).json and .prom). They are exported every 'metricsExportInterval' seconds during
+ * the RlE loop, and at the end of the run.
+ *
+ * Phases are timed where they are called, and nested phases are included in their callers' times (eg: a Complex's inference includes
+ * the inference of its components, and an identity check includes the store of an instance that had no identical instance).
+ * Skip checks and protein counts can be recorded from the pipeline's filter threads, so histograms are thread-safe.
+ */
+public class InferenceMetrics {
+
+	private static final Logger logger = LogManager.getLogger();
+	public static final String SKIP_CHECK = "skip_check";
+	public static final String PROTEIN_COUNT = "protein_count";
+	public static final String EWAS_INFERENCE = "ewas_inference";
+	public static final String COMPLEX_SET_INFERENCE = "complex_set_inference";
+	public static final String STABLE_ID_GENERATION = "stable_id_generation";
+	public static final String IDENTITY_CHECK = "identity_check";
+	public static final String DB_WRITE = "db_write";
+	public static final String PATHWAY_INFERENCE = "pathway_inference";
+	public static final String DIAGRAM_GENERATION = "diagram_generation";
+	// Upper bounds of the histogram buckets, in seconds. Times above the last bound are only counted in the +Inf bucket.
+	static final double[] BUCKET_BOUNDS = {0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 300, 900, 3600};
+	private static final Map<String, PhaseHistogram> phaseHistograms = new LinkedHashMap<>();
+	private static String species;
+	private static String filenamePrefix;
+	private static int exportInterval = 0;
+	private static long lastExportTime = System.currentTimeMillis();
+
+	static
+	{
+		for (String phase : new String[] {SKIP_CHECK, PROTEIN_COUNT, EWAS_INFERENCE, COMPLEX_SET_INFERENCE, STABLE_ID_GENERATION, IDENTITY_CHECK, DB_WRITE, PATHWAY_INFERENCE, DIAGRAM_GENERATION})
+		{
+			phaseHistograms.put(phase, new PhaseHistogram());
+		}
+	}
+
+	// Statements run until the phase is recorded are attributed to it by the SqlProfiler
+	public static long start(String phase)
+	{
+		if (SqlProfiler.isEnabled())
+		{
+			SqlProfiler.enterPhase(phase);
+		}
+		return System.nanoTime();
+	}
+
+	// Records the time since 'startTime' (from start()) against the phase
+	public static void record(String phase, long startTime)
+	{
+		phaseHistograms.get(phase).record(System.nanoTime() - startTime);
+		if (SqlProfiler.isEnabled())
+		{
+			SqlProfiler.exitPhase(phase);
+		}
+	}
+
+	public static Map<String, PhaseHistogram> getPhaseHistograms()
+	{
+		return Collections.unmodifiableMap(phaseHistograms);
+	}
+
+	// Called between RlEs, and exports the metrics if 'metricsExportInterval' seconds have passed since they were last exported
+	public static void exportIfDue() throws IOException
+	{
+		if (exportInterval > 0 && System.currentTimeMillis() - lastExportTime >= TimeUnit.SECONDS.toMillis(exportInterval))
+		{
+			export();
+		}
+	}
+
+	public static void export() throws IOException
+	{
+		lastExportTime = System.currentTimeMillis();
+		if (filenamePrefix == null)
+		{
+			return;
+		}
+		writeAtomically(Paths.get(filenamePrefix + ".json"), toJSON().toJSONString());
+		writeAtomically(Paths.get(filenamePrefix + ".prom"), toPrometheusText());
+		logger.info("Phase metrics written to " + filenamePrefix + ".json and " + filenamePrefix + ".prom");
+	}
+
+	@SuppressWarnings("unchecked")
+	static JSONObject toJSON()
+	{
+		JSONObject metricsJSON = new JSONObject();
+		metricsJSON.put("species", species);
+		metricsJSON.put("exportedAt", lastExportTime);
+		JSONObject phasesJSON = new JSONObject();
+		for (Map.Entry<String, PhaseHistogram> phaseHistogram : phaseHistograms.entrySet())
+		{
+			PhaseHistogram histogram = phaseHistogram.getValue();
+			JSONObject phaseJSON = new JSONObject();
+			phaseJSON.put("count", histogram.getCount());
+			phaseJSON.put("totalSeconds", histogram.getTotalSeconds());
+			phaseJSON.put("maxSeconds", histogram.getMaxSeconds());
+			phaseJSON.put("p50Seconds", histogram.getPercentileBound(0.5));
+			phaseJSON.put("p90Seconds", histogram.getPercentileBound(0.9));
+			phaseJSON.put("p99Seconds", histogram.getPercentileBound(0.99));
+			JSONObject bucketsJSON = new JSONObject();
+			for (int i = 0; i < BUCKET_BOUNDS.length; i++)
+			{
+				bucketsJSON.put(formatBound(BUCKET_BOUNDS[i]), histogram.getCumulativeCount(i));
+			}
+			phaseJSON.put("buckets", bucketsJSON);
+			phasesJSON.put(phaseHistogram.getKey(), phaseJSON);
+		}
+		metricsJSON.put("phases", phasesJSON);
+		return metricsJSON;
+	}
+
+	static String toPrometheusText()
+	{
+		String metric = "orthoinference_phase_duration_seconds";
+		StringBuilder prometheusText = new StringBuilder();
+		prometheusText.append("# HELP " + metric + " Time spent in each orthoinference phase.\n");
+		prometheusText.append("# TYPE " + metric + " histogram\n");
+		for (Map.Entry<String, PhaseHistogram> phaseHistogram : phaseHistograms.entrySet())
+		{
+			PhaseHistogram histogram = phaseHistogram.getValue();
+			String labels = "species=\"" + species + "\",phase=\"" + phaseHistogram.getKey() + "\"";
+			for (int i = 0; i < BUCKET_BOUNDS.length; i++)
+			{
+				prometheusText.append(metric + "_bucket{" + labels + ",le=\"" + formatBound(BUCKET_BOUNDS[i]) + "\"} " + histogram.getCumulativeCount(i) + "\n");
+			}
+			prometheusText.append(metric + "_bucket{" + labels + ",le=\"+Inf\"} " + histogram.getCount() + "\n");
+			prometheusText.append(metric + "_sum{" + labels + "} " + histogram.getTotalSeconds() + "\n");
+			prometheusText.append(metric + "_count{" + labels + "} " + histogram.getCount() + "\n");
+		}
+		return prometheusText.toString();
+	}
+
+	// Bounds are written without exponents (eg: 0.0001 rather than 1.0E-4)
+	private static String formatBound(double bound)
+	{
+		return BigDecimal.valueOf(bound).stripTrailingZeros().toPlainString();
+	}
+
+	private static void writeAtomically(Path path, String contents) throws IOException
+	{
+		Path tempPath = Paths.get(path + ".tmp");
+		Files.write(tempPath, contents.getBytes());
+		Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	public static void setSpecies(String speciesCopy)
+	{
+		species = speciesCopy;
+	}
+
+	public static void setFilenamePrefix(String filenamePrefixCopy)
+	{
+		filenamePrefix = filenamePrefixCopy;
+	}
+
+	public static void setExportInterval(int exportIntervalCopy)
+	{
+		exportInterval = exportIntervalCopy;
+	}
+
+	public static class PhaseHistogram {
+
+		private final AtomicLongArray bucketCounts = new AtomicLongArray(BUCKET_BOUNDS.length + 1);
+		private final LongAdder count = new LongAdder();
+		private final LongAdder totalNanos = new LongAdder();
+		private final AtomicLong maxNanos = new AtomicLong();
+
+		public void record(long nanos)
+		{
+			double seconds = nanos / 1e9;
+			int bucket = 0;
+			while (bucket < BUCKET_BOUNDS.length && seconds > BUCKET_BOUNDS[bucket])
+			{
+				bucket++;
+			}
+			bucketCounts.incrementAndGet(bucket);
+			count.increment();
+			totalNanos.add(nanos);
+			maxNanos.accumulateAndGet(nanos, Math::max);
+		}
+
+		public long getCount()
+		{
+			return count.sum();
+		}
+
+		public double getTotalSeconds()
+		{
+			return totalNanos.sum() / 1e9;
+		}
+
+		public double getMaxSeconds()
+		{
+			return maxNanos.get() / 1e9;
+		}
+
+		// Number of times recorded at or below the bucket's upper bound
+		public long getCumulativeCount(int bucket)
+		{
+			long cumulativeCount = 0;
+			for (int i = 0; i <= bucket; i++)
+			{
+				cumulativeCount += bucketCounts.get(i);
+			}
+			return cumulativeCount;
+		}
+
+		// Upper bound of the bucket holding the percentile, or the maximum time if it is above the last bucket
+		public double getPercentileBound(double percentile)
+		{
+			long total = getCount();
+			if (total == 0)
+			{
+				return 0;
+			}
+			for (int i = 0; i < BUCKET_BOUNDS.length; i++)
+			{
+				if (getCumulativeCount(i) >= Math.ceil(percentile * total))
+				{
+					return BUCKET_BOUNDS[i];
+				}
+			}
+			return getMaxSeconds();
+		}
+	}
+}
@@ -0,0 +1,185 @@
+package org.reactome.orthoinference;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.json.simple.JSONObject;
+
+/**
+ * Counts the lookups of every inference cache and the DB calls made by the inference's adaptors (see CountingMySQLAdaptor), by schema class.
+ * At the end of a species run they are logged and written to 'statistics_ortho_inference_(release)_(species).json', as totals and per
+ * 1,000 RlEs, so caches that don't pay off and the sources of DB round trips can be found. getReferers calls go through GKInstance
+ * rather than the adaptor, so they are recorded where they are made.
+ */
+public class InferenceStatistics {
+
+	private static final Logger logger = LogManager.getLogger();
+	public static final String FETCH_IDENTICAL_INSTANCES = "fetchIdenticalInstances";
+	public static final String STORE_INSTANCE = "storeInstance";
+	public static final String UPDATE_INSTANCE_ATTRIBUTE = "updateInstanceAttribute";
+	public static final String FETCH_INSTANCE_BY_ATTRIBUTE = "fetchInstanceByAttribute";
+	public static final String GET_REFERERS = "getReferers";
+	// Caches register as their classes are loaded, which can be while the MetricsServer is reading them
+	private static List<CountedCache> caches = new CopyOnWriteArrayList<>();
+	private static Map<String, Map<String, Long>> dbCallCounts = new TreeMap<>();
+	private static int reactionCount = 0;
+	// DB calls made by each thread, so the RlE loop can tell how many calls each RlE made (see ReactionTrace)
+	private static ThreadLocal<long[]> threadDbCallCount = ThreadLocal.withInitial(() -> new long[1]);
+
+	public static void registerCache(CountedCache cache)
+	{
+		caches.add(cache);
+	}
+
+	// Background threads (eg: the RlE pipeline's filter stage) use their own counting adaptors, so calls can be recorded concurrently
+	public static synchronized void recordDbCall(String call, String schemaClassName)
+	{
+		dbCallCounts.computeIfAbsent(call, k -> new TreeMap<>()).merge(schemaClassName, 1L, Long::sum);
+		threadDbCallCount.get()[0]++;
+	}
+
+	// Copy of the DB call counts by call and schema class
+	public static synchronized Map<String, Map<String, Long>> getDbCallCounts()
+	{
+		Map<String, Map<String, Long>> dbCallCountsCopy = new TreeMap<>();
+		for (Map.Entry<String, Map<String, Long>> callCounts : dbCallCounts.entrySet())
+		{
+			dbCallCountsCopy.put(callCounts.getKey(), new TreeMap<>(callCounts.getValue()));
+		}
+		return dbCallCountsCopy;
+	}
+
+	public static long getThreadDbCallCount()
+	{
+		return threadDbCallCount.get()[0];
+	}
+
+	// Hits and misses across all the inference caches
+	public static long getCacheHits()
+	{
+		return caches.stream().mapToLong(CountedCache::getHits).sum();
+	}
+
+	public static long getCacheMisses()
+	{
+		return caches.stream().mapToLong(CountedCache::getMisses).sum();
+	}
+
+	// Entries held by each inference cache, by cache name
+	public static Map<String, Integer> getCacheSizes()
+	{
+		Map<String, Integer> cacheSizes = new TreeMap<>();
+		for (CountedCache cache : caches)
+		{
+			cacheSizes.put(cache.getName(), cache.size());
+		}
+		return cacheSizes;
+	}
+
+	// Called for each RlE the loop processes
+	public static void recordReaction()
+	{
+		reactionCount++;
+	}
+
+	public static synchronized void logStatistics()
+	{
+		logger.info("Statistics after " + reactionCount + " RlE(s):");
+		for (CountedCache cache : caches)
+		{
+			logger.info("Cache " + cache.getStatistics());
+		}
+		for (Map.Entry<String, Map<String, Long>> callCounts : dbCallCounts.entrySet())
+		{
+			long total = callCounts.getValue().values().stream().mapToLong(Long::longValue).sum();
+			logger.info("DB calls " + callCounts.getKey() + ": " + total + " (" + String.format("%.1f", perThousandReactions(total)) + " per 1,000 RlEs) " + callCounts.getValue());
+		}
+	}
+
+	public static synchronized void write(String species, String filename) throws IOException
+	{
+		Files.write(Paths.get(filename), toJSON(species).toJSONString().getBytes());
+		logger.info("Cache and DB call statistics written to " + filename);
+	}
+
+	@SuppressWarnings("unchecked")
+	public static synchronized JSONObject toJSON(String species)
+	{
+		JSONObject statisticsJSON = new JSONObject();
+		statisticsJSON.put("species", species);
+		statisticsJSON.put("reactions", reactionCount);
+		JSONObject cachesJSON = new JSONObject();
+		for (CountedCache cache : caches)
+		{
+			JSONObject cacheJSON = new JSONObject();
+			cacheJSON.put("size", cache.size());
+			cacheJSON.put("hits", cache.getHits());
+			cacheJSON.put("misses", cache.getMisses());
+			cacheJSON.put("hitsPerThousandReactions", perThousandReactions(cache.getHits()));
+			cacheJSON.put("missesPerThousandReactions", perThousandReactions(cache.getMisses()));
+			cachesJSON.put(cache.getName(), cacheJSON);
+		}
+		statisticsJSON.put("caches", cachesJSON);
+		JSONObject dbCallsJSON = new JSONObject();
+		for (Map.Entry<String, Map<String, Long>> callCounts : dbCallCounts.entrySet())
+		{
+			JSONObject callJSON = new JSONObject();
+			for (Map.Entry<String, Long> classCount : callCounts.getValue().entrySet())
+			{
+				JSONObject classJSON = new JSONObject();
+				classJSON.put("count", classCount.getValue());
+				classJSON.put("perThousandReactions", perThousandReactions(classCount.getValue()));
+				callJSON.put(classCount.getKey(), classJSON);
+			}
+			dbCallsJSON.put(callCounts.getKey(), callJSON);
+		}
+		statisticsJSON.put("dbCalls", dbCallsJSON);
+		return statisticsJSON;
+	}
+
+	// Cache lookups and DB calls so far, as Prometheus counters (and cache sizes as a gauge)
+	public static synchronized String toPrometheusText(String species)
+	{
+		StringBuilder prometheusText = new StringBuilder();
+		prometheusText.append("# HELP orthoinference_reactions_total RlEs processed by the RlE loop.\n");
+		prometheusText.append("# TYPE orthoinference_reactions_total counter\n");
+		prometheusText.append("orthoinference_reactions_total{species=\"" + species + "\"} " + reactionCount + "\n");
+		prometheusText.append("# HELP orthoinference_cache_lookups_total Lookups of each inference cache, by result.\n");
+		prometheusText.append("# TYPE orthoinference_cache_lookups_total counter\n");
+		for (CountedCache cache : caches)
+		{
+			String labels = "species=\"" + species + "\",cache=\"" + cache.getName() + "\"";
+			prometheusText.append("orthoinference_cache_lookups_total{" + labels + ",result=\"hit\"} " + cache.getHits() + "\n");
+			prometheusText.append("orthoinference_cache_lookups_total{" + labels + ",result=\"miss\"} " + cache.getMisses() + "\n");
+		}
+		prometheusText.append("# HELP orthoinference_cache_entries Entries held by each inference cache.\n");
+		prometheusText.append("# TYPE orthoinference_cache_entries gauge\n");
+		for (CountedCache cache : caches)
+		{
+			prometheusText.append("orthoinference_cache_entries{species=\"" + species + "\",cache=\"" + cache.getName() + "\"} " + cache.size() + "\n");
+		}
+		prometheusText.append("# HELP orthoinference_db_calls_total DB calls made by the adaptors, by schema class.\n");
+		prometheusText.append("# TYPE orthoinference_db_calls_total counter\n");
+		for (Map.Entry<String, Map<String, Long>> callCounts : dbCallCounts.entrySet())
+		{
+			for (Map.Entry<String, Long> classCount : callCounts.getValue().entrySet())
+			{
+				prometheusText.append("orthoinference_db_calls_total{species=\"" + species + "\",call=\"" + callCounts.getKey() + "\",schema_class=\""
+						+ classCount.getKey() + "\"} " + classCount.getValue() + "\n");
+			}
+		}
+		return prometheusText.toString();
+	}
+
+	private static double perThousandReactions(long count)
+	{
+		return reactionCount > 0 ? 1000.0 * count / reactionCount : 0;
+	}
+}
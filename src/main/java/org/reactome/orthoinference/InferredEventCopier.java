@@ -0,0 +1,199 @@
+package org.reactome.orthoinference;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.gk.model.GKInstance;
+import static org.gk.model.ReactomeJavaConstants.*;
+
+import org.gk.persistence.MySQLAdaptor;
+import org.gk.schema.GKSchemaAttribute;
+import org.gk.schema.SchemaClass;
+
+/**
+ * Copies the inferred participants of an RlE from the previous release into the current DB, for RlEs that haven't changed.
+ *
+ * Instances in the previous release's inferred subgraph are either shared, meaning they were curated and exist in the current
+ * DB with the same DB ID (eg: human PhysicalEntities, Compartments, ReferenceDatabases), or were created by orthoinference and need to be copied.
+ * Copies go through the same identity check and stable identifier generation as newly inferred instances, and get the same
+ * inferredFrom/inferredTo back-links. Everything is resolved before anything is written, so that if a shared instance can't be
+ * found in the current DB, nothing is copied and the RlE is inferred as usual.
+ */
+public class InferredEventCopier {
+
+	private static final Logger logger = LogManager.getLogger();
+	private static MySQLAdaptor dba;
+	private static GKInstance instanceEditInst;
+	// RlE attributes holding the participants that are copied forward
+	private static final List<String> PARTICIPANT_ATTRIBUTES = Arrays.asList(input, output, catalystActivity, "regulatedBy");
+	// Attributes that are set by the inference process itself, rather than copied from the previous release
+	private static final Set<String> UNCOPIED_ATTRIBUTES = new HashSet<>(Arrays.asList(DB_ID, created, modified, stableIdentifier, inferredTo, orthologousEvent));
+	private static Map<Long, Boolean> orthoinferenceInstanceEdits = new HashMap<>();
+
+	// Adds copies of the previous inferred RlE's participants to the new inferred RlE. Returns the copied Regulations, which
+	// can only be stored once the inferred RlE is in the DB, or null if the participants could not be copied.
+	@SuppressWarnings("unchecked")
+	public static List<GKInstance> copyInferredParticipants(GKInstance previousInfReactionInst, GKInstance infReactionInst) throws Exception
+	{
+		Map<Long, GKInstance> sharedInstances = new HashMap<>();
+		List<GKInstance> copyOrder = new ArrayList<>();
+		Set<Long> plannedDbIds = new HashSet<>();
+		for (String attribute : PARTICIPANT_ATTRIBUTES)
+		{
+			for (GKInstance previousParticipantInst : (Collection<GKInstance>) previousInfReactionInst.getAttributeValuesList(attribute))
+			{
+				if (!planCopy(previousParticipantInst, sharedInstances, copyOrder, plannedDbIds))
+				{
+					return null;
+				}
+			}
+		}
+
+		// Instances are copied children first, so that the instances they refer to already have DB IDs for the identity check
+		Map<Long, GKInstance> copiedInstances = new HashMap<>(sharedInstances);
+		for (GKInstance previousInst : copyOrder)
+		{
+			copiedInstances.put(previousInst.getDBID(), copyInstance(previousInst, copiedInstances));
+		}
+		List<GKInstance> copiedRegulations = new ArrayList<>();
+		for (String attribute : PARTICIPANT_ATTRIBUTES)
+		{
+			for (GKInstance previousParticipantInst : (Collection<GKInstance>) previousInfReactionInst.getAttributeValuesList(attribute))
+			{
+				GKInstance copiedParticipantInst = copiedInstances.get(previousParticipantInst.getDBID());
+				if (attribute.equals("regulatedBy"))
+				{
+					copiedRegulations.add(copiedParticipantInst);
+				} else {
+					infReactionInst.addAttributeValue(attribute, copiedParticipantInst);
+				}
+			}
+		}
+		logger.info("Copied " + copyOrder.size() + " inferred instance(s) from previous release's " + previousInfReactionInst);
+		return copiedRegulations;
+	}
+
+	// Classifies the instance and everything it refers to as shared or to-be-copied, returning false if a shared instance is missing from the current DB
+	@SuppressWarnings("unchecked")
+	private static boolean planCopy(GKInstance previousInst, Map<Long, GKInstance> sharedInstances, List<GKInstance> copyOrder, Set<Long> plannedDbIds) throws Exception
+	{
+		if (sharedInstances.containsKey(previousInst.getDBID()) || plannedDbIds.contains(previousInst.getDBID()))
+		{
+			return true;
+		}
+		if (!isCreatedByOrthoinference(previousInst))
+		{
+			GKInstance currentInst = dba.fetchInstance(previousInst.getDBID());
+			if (currentInst == null || !currentInst.getSchemClass().getName().equals(previousInst.getSchemClass().getName()))
+			{
+				logger.info(previousInst + " from previous release does not exist in current DB");
+				return false;
+			}
+			sharedInstances.put(previousInst.getDBID(), currentInst);
+			return true;
+		}
+		plannedDbIds.add(previousInst.getDBID());
+		SchemaClass currentClass = dba.getSchema().getClassByName(previousInst.getSchemClass().getName());
+		if (currentClass == null)
+		{
+			logger.info(previousInst.getSchemClass().getName() + " class from previous release does not exist in current DB");
+			return false;
+		}
+		// Stable identifiers of inferred PhysicalEntities are generated from the instance they were inferred from
+		if (previousInst.getSchemClass().isa(PhysicalEntity) && previousInst.getAttributeValue(inferredFrom) == null)
+		{
+			logger.info(previousInst + " from previous release has no inferredFrom value");
+			return false;
+		}
+		for (GKSchemaAttribute attribute : (Collection<GKSchemaAttribute>) previousInst.getSchemClass().getAttributes())
+		{
+			if (UNCOPIED_ATTRIBUTES.contains(attribute.getName()) || !attribute.isInstanceTypeAttribute() || !currentClass.isValidAttribute(attribute.getName()))
+			{
+				continue;
+			}
+			for (GKInstance referredInst : (Collection<GKInstance>) previousInst.getAttributeValuesList(attribute.getName()))
+			{
+				if (!planCopy(referredInst, sharedInstances, copyOrder, plannedDbIds))
+				{
+					return false;
+				}
+			}
+		}
+		copyOrder.add(previousInst);
+		return true;
+	}
+
+	// Creates the copy in the current DB, substituting an identical instance if one exists. Regulations are returned unstored.
+	@SuppressWarnings("unchecked")
+	private static GKInstance copyInstance(GKInstance previousInst, Map<Long, GKInstance> copiedInstances) throws Exception
+	{
+		SchemaClass currentClass = dba.getSchema().getClassByName(previousInst.getSchemClass().getName());
+		GKInstance copiedInst = new GKInstance(currentClass);
+		copiedInst.setDbAdaptor(dba);
+		copiedInst.addAttributeValue(created, instanceEditInst);
+		for (GKSchemaAttribute attribute : (Collection<GKSchemaAttribute>) previousInst.getSchemClass().getAttributes())
+		{
+			if (UNCOPIED_ATTRIBUTES.contains(attribute.getName()) || !currentClass.isValidAttribute(attribute.getName()))
+			{
+				continue;
+			}
+			for (Object value : (Collection<Object>) previousInst.getAttributeValuesList(attribute.getName()))
+			{
+				if (value instanceof GKInstance)
+				{
+					value = copiedInstances.get(((GKInstance) value).getDBID());
+				}
+				copiedInst.addAttributeValue(attribute.getName(), value);
+			}
+		}
+		if (copiedInst.getSchemClass().isa(Regulation))
+		{
+			return copiedInst;
+		}
+		if (!copiedInst.getSchemClass().isa(PhysicalEntity))
+		{
+			return InstanceUtilities.checkForIdenticalInstances(copiedInst, null);
+		}
+		GKInstance originalInst = copiedInstances.get(((GKInstance) previousInst.getAttributeValue(inferredFrom)).getDBID());
+		copiedInst = InstanceUtilities.checkForIdenticalInstances(copiedInst, originalInst);
+		copiedInst = InstanceUtilities.addAttributeValueIfNecessary(copiedInst, originalInst, inferredFrom);
+		ReactionWriteBuffer.updateInstanceAttribute(copiedInst, inferredFrom);
+		originalInst = InstanceUtilities.addAttributeValueIfNecessary(originalInst, copiedInst, inferredTo);
+		ReactionWriteBuffer.updateInstanceAttribute(originalInst, inferredTo);
+		return copiedInst;
+	}
+
+	// Instances created by orthoinference have a 'created' InstanceEdit noting that they were inserted by org.reactome.orthoinference
+	private static boolean isCreatedByOrthoinference(GKInstance previousInst) throws Exception
+	{
+		if (!previousInst.getSchemClass().isValidAttribute(created) || previousInst.getAttributeValue(created) == null)
+		{
+			return false;
+		}
+		GKInstance createdInst = (GKInstance) previousInst.getAttributeValue(created);
+		if (!orthoinferenceInstanceEdits.containsKey(createdInst.getDBID()))
+		{
+			Object instanceEditNote = createdInst.getSchemClass().isValidAttribute(note) ? createdInst.getAttributeValue(note) : null;
+			orthoinferenceInstanceEdits.put(createdInst.getDBID(), instanceEditNote != null && instanceEditNote.toString().contains("orthoinference"));
+		}
+		return orthoinferenceInstanceEdits.get(createdInst.getDBID());
+	}
+
+	public static void setAdaptor(MySQLAdaptor dbAdaptor)
+	{
+		dba = dbAdaptor;
+	}
+
+	public static void setInstanceEdit(GKInstance instanceEditCopy)
+	{
+		instanceEditInst = instanceEditCopy;
+	}
+}
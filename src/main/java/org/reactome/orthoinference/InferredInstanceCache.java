@@ -0,0 +1,251 @@
+package org.reactome.orthoinference;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.gk.model.GKInstance;
+import org.gk.persistence.MySQLAdaptor;
+
+/**
+ * A cache of source instances to their inferred instances that only holds their DB IDs, in a primitive LongLongMap. Instances are
+ * fetched through the adaptor when they are looked up, so the cache itself doesn't keep any instance (or its loaded attributes) reachable.
+ * Both instances must have been stored before they are cached. Lookups are counted, so the size and hit rate of each cache can be logged.
+ *
+ * When 'maxHotEntries' is set, each cache keeps at most that many entries on the heap and spills the rest to a memory-mapped file
+ * (see SpillingLongLongMap), which is removed when the JVM exits. The backing map is only created on first use, so that caches declared
+ * as static fields pick up the setting.
+ */
+public class InferredInstanceCache extends AbstractMap<GKInstance, GKInstance> implements CountedCache {
+
+	private static MySQLAdaptor dba;
+	private static int maxHotEntries = 0;
+	private static Path spillDirectory = Paths.get(System.getProperty("java.io.tmpdir"));
+	private final String name;
+	private LongLongMap dbIds;
+	private long hits = 0;
+	private long misses = 0;
+
+	public InferredInstanceCache(String name)
+	{
+		this.name = name;
+		InferenceStatistics.registerCache(this);
+	}
+
+	@Override
+	public GKInstance get(Object key)
+	{
+		Long keyDbId = getDBID(key);
+		if (keyDbId == null)
+		{
+			return null;
+		}
+		long valueDbId = lookup(keyDbId);
+		return valueDbId != LongLongMap.NO_VALUE ? fetchInstance(valueDbId) : null;
+	}
+
+	@Override
+	public boolean containsKey(Object key)
+	{
+		Long keyDbId = getDBID(key);
+		return keyDbId != null && lookup(keyDbId) != LongLongMap.NO_VALUE;
+	}
+
+	// Caching a null value (ie: a failed inference) leaves the key uncached, as looking it up would return null either way
+	@Override
+	public GKInstance put(GKInstance key, GKInstance value)
+	{
+		if (value == null)
+		{
+			return remove(key);
+		}
+		if (key.getDBID() == null || value.getDBID() == null)
+		{
+			throw new IllegalArgumentException(name + " cache entries must be stored before being cached: " + key + " -> " + value);
+		}
+		long previousValueDbId = getDbIds().get(key.getDBID());
+		getDbIds().put(key.getDBID(), value.getDBID());
+		return previousValueDbId != LongLongMap.NO_VALUE ? fetchInstance(previousValueDbId) : null;
+	}
+
+	@Override
+	public GKInstance remove(Object key)
+	{
+		Long keyDbId = getDBID(key);
+		if (keyDbId == null || dbIds == null)
+		{
+			return null;
+		}
+		long valueDbId = dbIds.remove(keyDbId);
+		return valueDbId != LongLongMap.NO_VALUE ? fetchInstance(valueDbId) : null;
+	}
+
+	// Drops the entry without fetching its value, eg: when the value was rolled back and no longer exists in the DB
+	public void removeDbId(long keyDbId)
+	{
+		if (dbIds != null)
+		{
+			dbIds.remove(keyDbId);
+		}
+	}
+
+	@Override
+	public int size()
+	{
+		return dbIds != null ? dbIds.size() : 0;
+	}
+
+	@Override
+	public void clear()
+	{
+		if (dbIds != null)
+		{
+			dbIds.clear();
+		}
+	}
+
+	// Visits the cached DB IDs, without fetching their instances
+	public void forEachDbId(LongLongMap.EntryConsumer consumer)
+	{
+		if (dbIds != null)
+		{
+			dbIds.forEach(consumer);
+		}
+	}
+
+	// Entries are fetched as they are iterated
+	@Override
+	public Set<Map.Entry<GKInstance, GKInstance>> entrySet()
+	{
+		List<long[]> entryDbIds = new ArrayList<>();
+		forEachDbId((keyDbId, valueDbId) -> entryDbIds.add(new long[] {keyDbId, valueDbId}));
+		return new AbstractSet<Map.Entry<GKInstance, GKInstance>>()
+		{
+			@Override
+			public Iterator<Map.Entry<GKInstance, GKInstance>> iterator()
+			{
+				Iterator<long[]> entryDbIdIterator = entryDbIds.iterator();
+				return new Iterator<Map.Entry<GKInstance, GKInstance>>()
+				{
+					private long[] currentEntry;
+
+					@Override
+					public boolean hasNext()
+					{
+						return entryDbIdIterator.hasNext();
+					}
+
+					@Override
+					public Map.Entry<GKInstance, GKInstance> next()
+					{
+						if (!hasNext())
+						{
+							throw new NoSuchElementException();
+						}
+						currentEntry = entryDbIdIterator.next();
+						return new AbstractMap.SimpleImmutableEntry<>(fetchInstance(currentEntry[0]), fetchInstance(currentEntry[1]));
+					}
+
+					@Override
+					public void remove()
+					{
+						dbIds.remove(currentEntry[0]);
+					}
+				};
+			}
+
+			@Override
+			public int size()
+			{
+				return entryDbIds.size();
+			}
+		};
+	}
+
+	@Override
+	public String getName()
+	{
+		return name;
+	}
+
+	@Override
+	public long getHits()
+	{
+		return hits;
+	}
+
+	@Override
+	public long getMisses()
+	{
+		return misses;
+	}
+
+	@Override
+	public String getStatistics()
+	{
+		String statistics = CountedCache.super.getStatistics();
+		if (dbIds instanceof SpillingLongLongMap)
+		{
+			statistics += ", " + ((SpillingLongLongMap) dbIds).getColdSize() + " entries spilled to disk";
+		}
+		return statistics;
+	}
+
+	private long lookup(long keyDbId)
+	{
+		long valueDbId = dbIds != null ? dbIds.get(keyDbId) : LongLongMap.NO_VALUE;
+		if (valueDbId != LongLongMap.NO_VALUE)
+		{
+			hits++;
+		} else {
+			misses++;
+		}
+		return valueDbId;
+	}
+
+	private LongLongMap getDbIds()
+	{
+		if (dbIds == null)
+		{
+			dbIds = maxHotEntries > 0 ? new SpillingLongLongMap(name, maxHotEntries, spillDirectory) : new LongLongHashMap();
+		}
+		return dbIds;
+	}
+
+	private static Long getDBID(Object key)
+	{
+		return key instanceof GKInstance ? ((GKInstance) key).getDBID() : null;
+	}
+
+	// Returns the adaptor's cached instance if it has one, or loads it from the DB
+	private GKInstance fetchInstance(long dbId)
+	{
+		try {
+			return dba.fetchInstance(dbId);
+		} catch (Exception e) {
+			throw new IllegalStateException("Unable to fetch instance " + dbId + " from " + name + " cache", e);
+		}
+	}
+
+	public static void setMaxHotEntries(int maxHotEntriesCopy)
+	{
+		maxHotEntries = maxHotEntriesCopy;
+	}
+
+	public static void setSpillDirectory(Path spillDirectoryCopy)
+	{
+		spillDirectory = spillDirectoryCopy;
+	}
+
+	public static void setAdaptor(MySQLAdaptor dbAdaptor)
+	{
+		dba = dbAdaptor;
+	}
+}
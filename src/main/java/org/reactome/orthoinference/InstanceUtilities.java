@@ -20,7 +20,7 @@ public class InstanceUtilities {
 	private static MySQLAdaptor dba; 
 	private static GKInstance speciesInst;
 	private static GKInstance instanceEditInst;
-	private static Map<String,GKInstance> mockedIdenticals = new HashMap<>();
+	private static Map<String,GKInstance> mockedIdenticals = new KeyedIdentityCache("mocked");
 	private static final long DISEASE_PATHWAY_DB_ID = 1643685L;
 	
 	// Creates new instance that will be inferred based on the incoming instances class		
@@ -99,15 +99,17 @@ public class InstanceUtilities {
 		
 		// Caching based on an instance's defining attributes. This reduces the number of 'checkForIdenticalInstance' calls, which is slow.
 		String cacheKey = getCacheKey((GKSchemaClass) mockedInst.getSchemClass(), mockedInst);
-		if (mockedIdenticals.get(cacheKey) != null)
+		GKInstance cachedMockedInst = mockedIdenticals.get(cacheKey);
+		if (cachedMockedInst != null)
 		{
-			mockedInst = mockedIdenticals.get(cacheKey);
+			mockedInst = cachedMockedInst;
 		} else {
 			mockedInst = checkForIdenticalInstances(mockedInst, instanceToBeMocked);
 			mockedIdenticals.put(cacheKey, mockedInst);
+			ReactionWriteBuffer.registerCacheEntry(mockedIdenticals, cacheKey);
 		}
 		instanceToBeMocked = addAttributeValueIfNecessary(instanceToBeMocked, mockedInst, inferredTo);
-		dba.updateInstanceAttribute(instanceToBeMocked, inferredTo);
+		ReactionWriteBuffer.updateInstanceAttribute(instanceToBeMocked, inferredTo);
 		
 		return mockedInst;
 	}
@@ -115,24 +117,42 @@ public class InstanceUtilities {
 	// Checks that equivalent instances don't already exist in the DB, substituting if they do
 	public static GKInstance checkForIdenticalInstances(GKInstance inferredInst, GKInstance originalInst) throws Exception
 	{
-		@SuppressWarnings("unchecked")
-		Collection<GKInstance> identicalInstances = dba.fetchIdenticalInstances(inferredInst);
-		if (identicalInstances != null) 
-		{
-			if (identicalInstances.size() == 1) 
+		InferenceEvents.IdentityCheckEvent identityCheckEvent = new InferenceEvents.IdentityCheckEvent();
+		identityCheckEvent.begin();
+		// When sharded, no other shard may store an identical instance between the check and the store
+		ShardCoordinator.acquireLock();
+		try {
+			long startTime = InferenceMetrics.start(InferenceMetrics.IDENTITY_CHECK);
+			@SuppressWarnings("unchecked")
+			Collection<GKInstance> identicalInstances = dba.fetchIdenticalInstances(inferredInst);
+			InferenceMetrics.record(InferenceMetrics.IDENTITY_CHECK, startTime);
+			identityCheckEvent.commitFor(originalInst != null ? originalInst : inferredInst, identicalInstances != null);
+			if (identicalInstances != null) 
 			{
-				return identicalInstances.iterator().next();
+				if (identicalInstances.size() == 1) 
+				{
+					return identicalInstances.iterator().next();
+				} else {
+					// TODO: In future, could iterate through array of returned values and pull the 'most identical'. For now, this mimics Perl.
+					return identicalInstances.iterator().next();
+				}
 			} else {
-				// TODO: In future, could iterate through array of returned values and pull the 'most identical'. For now, this mimics Perl.
-				return identicalInstances.iterator().next();
-			}
-		} else {
-			if (inferredInst.getSchemClass().isa(PhysicalEntity)) {
-				GKInstance orthoStableIdentifierInst = EventsInferrer.getStableIdentifierGenerator().generateOrthologousStableId(inferredInst, originalInst);
-				inferredInst.addAttributeValue(stableIdentifier, orthoStableIdentifierInst);
+				GKInstance orthoStableIdentifierInst = null;
+				if (inferredInst.getSchemClass().isa(PhysicalEntity)) {
+					orthoStableIdentifierInst = EventsInferrer.getStableIdentifierGenerator().generateOrthologousStableId(inferredInst, originalInst);
+					inferredInst.addAttributeValue(stableIdentifier, orthoStableIdentifierInst);
+				}
+				startTime = InferenceMetrics.start(InferenceMetrics.DB_WRITE);
+				dba.storeInstance(inferredInst);
+				InferenceMetrics.record(InferenceMetrics.DB_WRITE, startTime);
+				ReactionWriteBuffer.recordStoredInstance(inferredInst);
+				// Other shards can find the instance from now on, so it must outlive a rollback of this RlE
+				ReactionWriteBuffer.recordSharedInstance(inferredInst);
+				ReactionWriteBuffer.recordSharedInstance(orthoStableIdentifierInst);
+				return inferredInst;
 			}
-			dba.storeInstance(inferredInst);
-			return inferredInst;
+		} finally {
+			ShardCoordinator.releaseLock();
 		}
 	}
 	// Checks if the instanceToCheck already contains the instanceToUse in the multi-value attribute
@@ -157,6 +177,7 @@ public class InstanceUtilities {
 		}
 		if (!attributeExists) 
 		{
+			ReactionWriteBuffer.snapshotAttribute(instanceToBeCheckedForExistingAttribute, attribute);
 			instanceToBeCheckedForExistingAttribute.addAttributeValue(attribute, instanceContainingAttributeToBeChecked);
 		}
 		return instanceToBeCheckedForExistingAttribute;
@@ -225,6 +246,7 @@ public class InstanceUtilities {
 	 * @throws Exception -- Thrown by MySQLAdaptor.
 	 */
 	private static Set<Long> getTopLevelPathwayDbIds(GKInstance pathway) throws Exception {
+		InferenceStatistics.recordDbCall(InferenceStatistics.GET_REFERERS, pathway.getSchemClass().getName());
 		List<GKInstance> parentPathways = safeList(pathway.getReferers(hasEvent));
 		if (parentPathways.isEmpty()) {
 			return new HashSet<>(Arrays.asList(pathway.getDBID()));
@@ -238,6 +260,14 @@ public class InstanceUtilities {
 		return topLevelPathwayDbIds;
 	}
 	
+	// Identity caches that are saved to, and restored from, checkpoints
+	public static Map<String, Map<String, GKInstance>> getStringKeyedCaches()
+	{
+		Map<String, Map<String, GKInstance>> stringKeyedCaches = new LinkedHashMap<>();
+		stringKeyedCaches.put("mocked", mockedIdenticals);
+		return stringKeyedCaches;
+	}
+
 	public static void setAdaptor(MySQLAdaptor dbAdaptor)
 	{
 		dba = dbAdaptor;
@@ -0,0 +1,67 @@
+package org.reactome.orthoinference;
+
+import java.util.HashMap;
+
+import org.gk.model.GKInstance;
+
+/**
+ * An identity cache of inferred instances, keyed by their defining attributes (see InstanceUtilities.getCacheKey), that counts its lookups.
+ * Each get or containsKey call is one lookup, so callers look a key up once and keep the result.
+ */
+public class KeyedIdentityCache extends HashMap<String, GKInstance> implements CountedCache {
+
+	private static final long serialVersionUID = 1L;
+	private final String name;
+	private long hits = 0;
+	private long misses = 0;
+
+	public KeyedIdentityCache(String name)
+	{
+		this.name = name;
+		InferenceStatistics.registerCache(this);
+	}
+
+	@Override
+	public GKInstance get(Object key)
+	{
+		GKInstance value = super.get(key);
+		count(value != null);
+		return value;
+	}
+
+	@Override
+	public boolean containsKey(Object key)
+	{
+		boolean contained = super.containsKey(key);
+		count(contained);
+		return contained;
+	}
+
+	@Override
+	public String getName()
+	{
+		return name;
+	}
+
+	@Override
+	public long getHits()
+	{
+		return hits;
+	}
+
+	@Override
+	public long getMisses()
+	{
+		return misses;
+	}
+
+	private void count(boolean hit)
+	{
+		if (hit)
+		{
+			hits++;
+		} else {
+			misses++;
+		}
+	}
+}
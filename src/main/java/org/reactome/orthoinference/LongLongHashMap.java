@@ -0,0 +1,153 @@
+package org.reactome.orthoinference;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing (linear probing) LongLongMap backed by two primitive arrays. Each entry takes 16 bytes plus free slots for the load
+ * factor, rather than a HashMap node and two boxed Longs. Removals shift later entries of the probe sequence back, so no tombstones are needed.
+ */
+public class LongLongHashMap implements LongLongMap {
+
+	private static final int DEFAULT_CAPACITY = 1024;
+	private static final double MAX_LOAD_FACTOR = 0.6;
+	private long[] keys;
+	private long[] values;
+	private int mask;
+	private int size = 0;
+
+	public LongLongHashMap()
+	{
+		this(DEFAULT_CAPACITY);
+	}
+
+	public LongLongHashMap(int expectedSize)
+	{
+		int capacity = Integer.highestOneBit(Math.max((int) (expectedSize / MAX_LOAD_FACTOR), 16) - 1) << 1;
+		allocate(capacity);
+	}
+
+	@Override
+	public long get(long key)
+	{
+		int slot = findSlot(key);
+		return keys[slot] == key ? values[slot] : NO_VALUE;
+	}
+
+	@Override
+	public void put(long key, long value)
+	{
+		if (key <= 0 || value <= 0)
+		{
+			throw new IllegalArgumentException("Keys and values must be positive: " + key + " -> " + value);
+		}
+		int slot = findSlot(key);
+		if (keys[slot] == key)
+		{
+			values[slot] = value;
+			return;
+		}
+		keys[slot] = key;
+		values[slot] = value;
+		size++;
+		if (size > keys.length * MAX_LOAD_FACTOR)
+		{
+			resize(keys.length << 1);
+		}
+	}
+
+	@Override
+	public long remove(long key)
+	{
+		int slot = findSlot(key);
+		if (keys[slot] != key)
+		{
+			return NO_VALUE;
+		}
+		long removedValue = values[slot];
+		// Moves back any later entries in the probe sequence that would no longer be reachable with this slot emptied
+		int emptySlot = slot;
+		int nextSlot = (emptySlot + 1) & mask;
+		while (keys[nextSlot] != 0)
+		{
+			int homeSlot = hash(keys[nextSlot]);
+			if (((nextSlot - homeSlot) & mask) >= ((nextSlot - emptySlot) & mask))
+			{
+				keys[emptySlot] = keys[nextSlot];
+				values[emptySlot] = values[nextSlot];
+				emptySlot = nextSlot;
+			}
+			nextSlot = (nextSlot + 1) & mask;
+		}
+		keys[emptySlot] = 0;
+		values[emptySlot] = 0;
+		size--;
+		return removedValue;
+	}
+
+	@Override
+	public int size()
+	{
+		return size;
+	}
+
+	@Override
+	public void clear()
+	{
+		Arrays.fill(keys, 0);
+		Arrays.fill(values, 0);
+		size = 0;
+	}
+
+	@Override
+	public void forEach(EntryConsumer consumer)
+	{
+		for (int slot = 0; slot < keys.length; slot++)
+		{
+			if (keys[slot] != 0)
+			{
+				consumer.accept(keys[slot], values[slot]);
+			}
+		}
+	}
+
+	// Returns the slot holding the key, or the empty slot where it would be added
+	private int findSlot(long key)
+	{
+		int slot = hash(key);
+		while (keys[slot] != 0 && keys[slot] != key)
+		{
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	// DB IDs are mostly sequential, so they are mixed before being reduced to a slot
+	private int hash(long key)
+	{
+		long mixed = key * 0x9E3779B97F4A7C15L;
+		return (int) (mixed ^ (mixed >>> 32)) & mask;
+	}
+
+	private void resize(int capacity)
+	{
+		long[] oldKeys = keys;
+		long[] oldValues = values;
+		allocate(capacity);
+		for (int slot = 0; slot < oldKeys.length; slot++)
+		{
+			if (oldKeys[slot] != 0)
+			{
+				int newSlot = findSlot(oldKeys[slot]);
+				keys[newSlot] = oldKeys[slot];
+				values[newSlot] = oldValues[slot];
+			}
+		}
+	}
+
+	private void allocate(int capacity)
+	{
+		keys = new long[capacity];
+		values = new long[capacity];
+		mask = capacity - 1;
+	}
+}
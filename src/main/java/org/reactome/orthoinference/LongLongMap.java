@@ -0,0 +1,29 @@
+package org.reactome.orthoinference;
+
+/**
+ * A map of primitive long keys to long values, used to hold DB ID to DB ID mappings without boxing.
+ * Keys and values must be positive (as DB IDs are), since 0 is used to mark empty slots and missing values.
+ */
+public interface LongLongMap {
+
+	// Returned by get and remove when the key isn't in the map
+	long NO_VALUE = 0L;
+
+	long get(long key);
+
+	void put(long key, long value);
+
+	// Returns the value that was removed, or NO_VALUE
+	long remove(long key);
+
+	int size();
+
+	void clear();
+
+	void forEach(EntryConsumer consumer);
+
+	interface EntryConsumer
+	{
+		void accept(long key, long value);
+	}
+}
@@ -4,6 +4,8 @@ import java.io.FileInputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
 import org.apache.logging.log4j.LogManager;
@@ -17,6 +19,17 @@ public class Main {
 
 		String pathToConfig = Paths.get("src", "main", "resources", "config.properties").toString();
 		String speciesCode = "";
+		// Optional flags (eg: --resume) can be given in any position, and are separated out from the config/species arguments
+		List<String> flags = new ArrayList<>();
+		List<String> positionalArgs = new ArrayList<>();
+		for (String arg : args) {
+			if (arg.startsWith("--")) {
+				flags.add(arg);
+			} else {
+				positionalArgs.add(arg);
+			}
+		}
+		args = positionalArgs.toArray(new String[0]);
 		if (args.length == 2) {
 			pathToConfig = args[0];
 			speciesCode = args[1];
@@ -27,6 +40,19 @@ public class Main {
 			System.exit(0);
 		}
 
+		for (String flag : flags) {
+			if (flag.equals("--resume")) {
+				EventsInferrer.setResume(true);
+			} else if (flag.startsWith("--shard=")) {
+				ShardCoordinator.setShard(flag.substring("--shard=".length()));
+			} else if (flag.equals("--finalize")) {
+				EventsInferrer.setFinalizeShards(true);
+			} else {
+				logger.fatal("Unknown option: " + flag);
+				System.exit(0);
+			}
+		}
+
 		Properties props = new Properties();
 		props.load(new FileInputStream(pathToConfig));
 		EventsInferrer.inferEvents(props, speciesCode);
@@ -0,0 +1,192 @@
+package org.reactome.orthoinference;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A LongLongMap kept in a memory-mapped temporary file, used for the entries spilled out of the heap by SpillingLongLongMap.
+ * Slots are (key, value) pairs probed linearly. Removed entries are marked with a tombstone key, and the table is rebuilt into a
+ * new file twice the size once half its slots are in use. The OS pages the file in and out, so it doesn't count against the heap.
+ */
+public class MappedLongLongTable implements LongLongMap {
+
+	private static final long TOMBSTONE = -1L;
+	private static final int INITIAL_CAPACITY = 1 << 16;
+	// A single mapping is limited to 2GB, so tables stop at 2^26 slots of 16 bytes (1GB)
+	private static final int MAX_CAPACITY = 1 << 26;
+	private final Path spillDirectory;
+	private Path tablePath;
+	private LongBuffer slots;
+	private int capacity;
+	private int size = 0;
+	private int usedSlots = 0;
+
+	public MappedLongLongTable(Path spillDirectory) throws IOException
+	{
+		this.spillDirectory = spillDirectory;
+		allocate(INITIAL_CAPACITY);
+	}
+
+	@Override
+	public long get(long key)
+	{
+		int slot = findSlot(key);
+		return slots.get(slot * 2) == key ? slots.get(slot * 2 + 1) : NO_VALUE;
+	}
+
+	@Override
+	public void put(long key, long value)
+	{
+		if (key <= 0 || value <= 0)
+		{
+			throw new IllegalArgumentException("Keys and values must be positive: " + key + " -> " + value);
+		}
+		int slot = findSlot(key);
+		if (slots.get(slot * 2) != key)
+		{
+			// Slots after a tombstone may still hold the key, so a tombstone is only reused once the key is known to be absent
+			int insertSlot = findInsertSlot(key);
+			if (slots.get(insertSlot * 2) == 0)
+			{
+				usedSlots++;
+			}
+			slot = insertSlot;
+			slots.put(slot * 2, key);
+			size++;
+		}
+		slots.put(slot * 2 + 1, value);
+		if (usedSlots > capacity / 2)
+		{
+			rebuild(size * 4 > capacity ? capacity * 2 : capacity);
+		}
+	}
+
+	@Override
+	public long remove(long key)
+	{
+		int slot = findSlot(key);
+		if (slots.get(slot * 2) != key)
+		{
+			return NO_VALUE;
+		}
+		long removedValue = slots.get(slot * 2 + 1);
+		slots.put(slot * 2, TOMBSTONE);
+		slots.put(slot * 2 + 1, 0);
+		size--;
+		return removedValue;
+	}
+
+	@Override
+	public int size()
+	{
+		return size;
+	}
+
+	@Override
+	public void clear()
+	{
+		for (int i = 0; i < capacity * 2; i++)
+		{
+			slots.put(i, 0);
+		}
+		size = 0;
+		usedSlots = 0;
+	}
+
+	@Override
+	public void forEach(EntryConsumer consumer)
+	{
+		for (int slot = 0; slot < capacity; slot++)
+		{
+			long key = slots.get(slot * 2);
+			if (key > 0)
+			{
+				consumer.accept(key, slots.get(slot * 2 + 1));
+			}
+		}
+	}
+
+	// Removes the table's file. The mapping itself is released once it is garbage collected.
+	public void close() throws IOException
+	{
+		slots = null;
+		Files.deleteIfExists(tablePath);
+	}
+
+	// Returns the slot holding the key, or the first empty slot of its probe sequence
+	private int findSlot(long key)
+	{
+		int slot = hash(key);
+		long slotKey;
+		while ((slotKey = slots.get(slot * 2)) != 0 && slotKey != key)
+		{
+			slot = (slot + 1) & (capacity - 1);
+		}
+		return slot;
+	}
+
+	// Returns the first empty or tombstoned slot of the key's probe sequence
+	private int findInsertSlot(long key)
+	{
+		int slot = hash(key);
+		long slotKey;
+		while ((slotKey = slots.get(slot * 2)) != 0 && slotKey != TOMBSTONE)
+		{
+			slot = (slot + 1) & (capacity - 1);
+		}
+		return slot;
+	}
+
+	private int hash(long key)
+	{
+		long mixed = key * 0x9E3779B97F4A7C15L;
+		return (int) (mixed ^ (mixed >>> 32)) & (capacity - 1);
+	}
+
+	// Copies the live entries into a new file, dropping tombstones
+	private void rebuild(int newCapacity)
+	{
+		if (newCapacity > MAX_CAPACITY)
+		{
+			throw new IllegalStateException("Spilled cache is larger than " + MAX_CAPACITY + " slots");
+		}
+		LongBuffer oldSlots = slots;
+		int oldCapacity = capacity;
+		Path oldTablePath = tablePath;
+		try {
+			allocate(newCapacity);
+			for (int slot = 0; slot < oldCapacity; slot++)
+			{
+				long key = oldSlots.get(slot * 2);
+				if (key > 0)
+				{
+					int newSlot = findSlot(key);
+					slots.put(newSlot * 2, key);
+					slots.put(newSlot * 2 + 1, oldSlots.get(slot * 2 + 1));
+					usedSlots++;
+				}
+			}
+			Files.deleteIfExists(oldTablePath);
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to grow spilled cache file in " + spillDirectory, e);
+		}
+	}
+
+	private void allocate(int newCapacity) throws IOException
+	{
+		tablePath = Files.createTempFile(spillDirectory, "orthoinference-cache", ".bin");
+		tablePath.toFile().deleteOnExit();
+		try (RandomAccessFile tableFile = new RandomAccessFile(tablePath.toFile(), "rw"))
+		{
+			MappedByteBuffer mappedTable = tableFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, (long) newCapacity * 16);
+			slots = mappedTable.asLongBuffer();
+		}
+		capacity = newCapacity;
+		usedSlots = 0;
+	}
+}
@@ -0,0 +1,129 @@
+package org.reactome.orthoinference;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.gk.model.GKInstance;
+import org.json.simple.JSONObject;
+
+/**
+ * Optional HTTP server ('metricsServerPort', off when 0) that serves the live metrics of a running species job, so it can be scraped
+ * by node-level monitoring rather than read from the logs. It is bound to localhost only, and serves:
+ *
+ *   /metrics - phase histograms, cache lookups and sizes, DB call counts, heap use and the current RlE in the Prometheus text format
+ *   /status  - the same figures, and the progress of each stage (see ProgressReporter), as JSON
+ *
+ * Requests are handled on a single daemon thread. Figures are read while the inference is updating them, so a response can be a
+ * few counts behind, but never blocks the inference for longer than it takes to copy them.
+ */
+public class MetricsServer {
+
+	private static final Logger logger = LogManager.getLogger();
+	private static HttpServer server;
+	private static ExecutorService executor;
+	private static String species;
+	private static volatile Long currentReactionDbId;
+	private static volatile String currentReactionName;
+
+	public static void start(int port) throws IOException
+	{
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		server.createContext("/metrics", exchange -> respond(exchange, "text/plain; version=0.0.4", toPrometheusText()));
+		server.createContext("/status", exchange -> respond(exchange, "application/json", toJSON().toJSONString()));
+		executor = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "metrics-server");
+			thread.setDaemon(true);
+			return thread;
+		});
+		server.setExecutor(executor);
+		server.start();
+		logger.info("Serving metrics at http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/metrics and /status");
+	}
+
+	public static void stop()
+	{
+		if (server != null)
+		{
+			server.stop(0);
+			executor.shutdownNow();
+			server = null;
+		}
+	}
+
+	// The RlE the inference loop is working on, or null between RlEs
+	public static void setCurrentReaction(GKInstance reactionInst)
+	{
+		currentReactionDbId = reactionInst != null ? reactionInst.getDBID() : null;
+		currentReactionName = reactionInst != null ? reactionInst.getDisplayName() : null;
+	}
+
+	@SuppressWarnings("unchecked")
+	static JSONObject toJSON()
+	{
+		JSONObject statusJSON = new JSONObject();
+		statusJSON.put("species", species);
+		JSONObject currentReactionJSON = new JSONObject();
+		currentReactionJSON.put("dbId", currentReactionDbId);
+		currentReactionJSON.put("displayName", currentReactionName);
+		statusJSON.put("currentReaction", currentReactionJSON);
+		JSONObject heapJSON = new JSONObject();
+		heapJSON.put("usedBytes", getUsedHeap());
+		heapJSON.put("maxBytes", Runtime.getRuntime().maxMemory());
+		statusJSON.put("heap", heapJSON);
+		statusJSON.put("progress", ProgressReporter.toJSON());
+		statusJSON.put("metrics", InferenceMetrics.toJSON());
+		statusJSON.put("statistics", InferenceStatistics.toJSON(species));
+		return statusJSON;
+	}
+
+	static String toPrometheusText()
+	{
+		StringBuilder prometheusText = new StringBuilder();
+		prometheusText.append(InferenceMetrics.toPrometheusText());
+		prometheusText.append(InferenceStatistics.toPrometheusText(species));
+		String labels = "{species=\"" + species + "\"}";
+		prometheusText.append("# HELP orthoinference_heap_used_bytes Heap in use by the JVM.\n");
+		prometheusText.append("# TYPE orthoinference_heap_used_bytes gauge\n");
+		prometheusText.append("orthoinference_heap_used_bytes" + labels + " " + getUsedHeap() + "\n");
+		prometheusText.append("# HELP orthoinference_heap_max_bytes Maximum heap the JVM can use.\n");
+		prometheusText.append("# TYPE orthoinference_heap_max_bytes gauge\n");
+		prometheusText.append("orthoinference_heap_max_bytes" + labels + " " + Runtime.getRuntime().maxMemory() + "\n");
+		// Reported as 0 between RlEs
+		Long reactionDbId = currentReactionDbId;
+		prometheusText.append("# HELP orthoinference_current_reaction_db_id DB ID of the RlE being inferred.\n");
+		prometheusText.append("# TYPE orthoinference_current_reaction_db_id gauge\n");
+		prometheusText.append("orthoinference_current_reaction_db_id" + labels + " " + (reactionDbId != null ? reactionDbId : 0) + "\n");
+		return prometheusText.toString();
+	}
+
+	private static void respond(HttpExchange exchange, String contentType, String body) throws IOException
+	{
+		byte[] bodyBytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", contentType);
+		exchange.sendResponseHeaders(200, bodyBytes.length);
+		try (OutputStream responseBody = exchange.getResponseBody())
+		{
+			responseBody.write(bodyBytes);
+		}
+	}
+
+	private static long getUsedHeap()
+	{
+		return Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+	}
+
+	public static void setSpecies(String speciesCopy)
+	{
+		species = speciesCopy;
+	}
+}
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -26,13 +27,16 @@ public class OrthologousEntityGenerator {
 	private static GKInstance complexSummationInst;
 	private static GKInstance speciesInst;
 	private static GKInstance nullInst = null;
-	private static Map<GKInstance, GKInstance> orthologousEntityIdenticals = new HashMap<>();
-	private static Map<GKInstance, GKInstance> homolEWASIdenticals = new HashMap<>();
-	private static Map<GKInstance, GKInstance> complexPolymerIdenticals = new HashMap<>();
-	private static Map<GKInstance, GKInstance> inferredEntitySetIdenticals = new HashMap<>();
-	private static Map<String,GKInstance> definedSetIdenticals = new HashMap<>();
-	private static Map<String,GKInstance> complexIdenticals = new HashMap<>();
-	private static Map<String,GKInstance> entitySetIdenticals = new HashMap<>();
+	private static Map<GKInstance, GKInstance> orthologousEntityIdenticals = new InferredInstanceCache("orthologousEntity");
+	private static Map<GKInstance, GKInstance> homolEWASIdenticals = new InferredInstanceCache("homolEWAS");
+	private static Map<GKInstance, GKInstance> complexPolymerIdenticals = new InferredInstanceCache("complexPolymer");
+	private static Map<GKInstance, GKInstance> inferredEntitySetIdenticals = new InferredInstanceCache("inferredEntitySet");
+	private static Map<String,GKInstance> definedSetIdenticals = new KeyedIdentityCache("definedSet");
+	private static Map<String,GKInstance> complexIdenticals = new KeyedIdentityCache("complex");
+	private static Map<String,GKInstance> entitySetIdenticals = new KeyedIdentityCache("entitySet");
+	// Counts of createOrthoEntity calls and of those answered from the cache, for the per-RlE summary lines
+	private static long entityInferenceCount = 0;
+	private static long cachedEntityCount = 0;
 
 /** The heart of the OrthoInference process. This function takes PhysicalEntity (PE) instances and will infer those that are EWAS', Complexes/Polymers, or EntitySets.
 	 The function's arguments are an incoming PE instance and an override attribute. Instances that are comprised of PE's will often recursively call this createOrthoEntity function
@@ -41,25 +45,32 @@ public class OrthologousEntityGenerator {
 */
 	public static GKInstance createOrthoEntity(GKInstance entityInst, boolean override) throws Exception
 	{
-		logger.info("Attempting PE inference: " + entityInst);
+		logger.debug("Attempting PE inference: {}", entityInst);
+		entityInferenceCount++;
+		InferenceEvents.EntityInferenceEvent entityEvent = new InferenceEvents.EntityInferenceEvent();
+		entityEvent.begin();
 		GKInstance infEntityInst = null;
 		if (!entityInst.getSchemClass().isValidAttribute(species)) {
 			// This used to have a conditional statement based on the returned value of the 'check_intracellular' function.
 			// That function doesn't exist anymore (only seemed to apply to the 'mtub' species, which hasn't been inferred for a while).
 			// Since the instance is species-agnostic, just returns the original instance.
-			logger.info("Could not find valid species attribute, returning original instance: " + entityInst);
+			logger.debug("Could not find valid species attribute, returning original instance: {}", entityInst);
+			entityEvent.commitFor(entityInst, false);
 			return entityInst;
 		}
 
-		if (orthologousEntityIdenticals.get(entityInst) != null) {
-			logger.info("Inferred PE instance already exists");
-			return orthologousEntityIdenticals.get(entityInst);
+		GKInstance cachedInfEntityInst = orthologousEntityIdenticals.get(entityInst);
+		if (cachedInfEntityInst != null) {
+			logger.debug("Inferred PE instance already exists");
+			cachedEntityCount++;
+			entityEvent.commitFor(entityInst, true);
+			return cachedInfEntityInst;
 		}
 
 		// Checks that a species attribute exists in either the current instance or in constituent instances.
 		if (!SpeciesCheckUtility.checkForSpeciesAttribute(entityInst))
 		{
-			logger.info("No species attribute found in PE, using original instance");
+			logger.debug("No species attribute found in PE, using original instance");
 			infEntityInst = entityInst;
 		// Will either infer an EWAS or return a mock GEE instance if needed (i.e. if override is currently 'True')
 		} else if (entityInst.getSchemClass().isa(GenomeEncodedEntity))
@@ -71,41 +82,48 @@ public class OrthologousEntityGenerator {
 			} else {
 				if (override)
 				{
-					logger.info("Mock GEE instance needed");
+					logger.debug("Mock GEE instance needed");
 					GKInstance mockedInst = InstanceUtilities.createMockGKInstance(entityInst);
+					entityEvent.commitFor(entityInst, false);
 					return mockedInst;
 				}
 			}
 		// Infers Complex or Polymer instances -- Will recursively call createOrthoEntity with override on its constituent PEs
 		} else if (entityInst.getSchemClass().isa(Complex) || entityInst.getSchemClass().isa(Polymer))
 		{
+			long startTime = InferenceMetrics.start(InferenceMetrics.COMPLEX_SET_INFERENCE);
 			infEntityInst = createInfComplexPolymer(entityInst, override);
+			InferenceMetrics.record(InferenceMetrics.COMPLEX_SET_INFERENCE, startTime);
 		// Infers EntitySetInstances that themselves contain the species attribute (Not just constituent instances as when hasSpecies is called above),
 		// returning the current instance if it doesn't.
 		} else if (entityInst.getSchemClass().isa(EntitySet))
 		{
 			if (entityInst.getAttributeValue(species) != null)
 			{
+				long startTime = InferenceMetrics.start(InferenceMetrics.COMPLEX_SET_INFERENCE);
 				infEntityInst = createInfEntitySet(entityInst, override);
+				InferenceMetrics.record(InferenceMetrics.COMPLEX_SET_INFERENCE, startTime);
 			} else {
-				logger.info("EntitySet has no species attribute, using original instance: " + entityInst);
+				logger.debug("EntitySet has no species attribute, using original instance: {}", entityInst);
 				infEntityInst = entityInst;
 			}
 		// Handles SimpleEntities by returning the current instance. The idea behind this is that SimpleEntities wouldn't need
 		// to be inferred since they wouldn't change between species {Note from infer_events.pl -- David Croft}.
 		} else if (entityInst.getSchemClass().isa(SimpleEntity))
 		{
-			logger.info("PE is a SimplyEntity, using original instance");
+			logger.debug("PE is a SimplyEntity, using original instance");
 			infEntityInst = entityInst;
 		} else {
-			logger.warn("Unknown PhysicalEntity class: " + entityInst.getClass());
+			logger.warn("Unknown PhysicalEntity class: {}", entityInst.getClass());
 		}
+		entityEvent.commitFor(entityInst, false);
 		if (override)
 		{
 			return infEntityInst;
 		}
 		orthologousEntityIdenticals.put(entityInst, infEntityInst);
-			logger.info("PE inference completed: " + entityInst);
+		ReactionWriteBuffer.registerCacheEntry(orthologousEntityIdenticals, entityInst);
+			logger.debug("PE inference completed: {}", entityInst);
 			return infEntityInst;
 	}
 	
@@ -113,14 +131,17 @@ public class OrthologousEntityGenerator {
 	// it's re-structured to a DefinedSet instance. If there is no EWAS instances inferred, it will either return null or, if override is set, return a mock instance. 
 	private static GKInstance createInfEWAS(GKInstance ewasInst, boolean override) throws InvalidAttributeException, Exception
 	{
-		if (homolEWASIdenticals.get(ewasInst) == null)
+		GKInstance infHomolEWASInst = homolEWASIdenticals.get(ewasInst);
+		if (infHomolEWASInst == null)
 		{
 			// Attempt to infer the EWAS 
+			long startTime = InferenceMetrics.start(InferenceMetrics.EWAS_INFERENCE);
 			List<GKInstance> infEWASInstances = EWASInferrer.inferEWAS(ewasInst);
+			InferenceMetrics.record(InferenceMetrics.EWAS_INFERENCE, startTime);
 			// If number of EWAS instances is greater than 1, then it is considered a DefinedSet. A new inferred instance with definedSet class is created.
 			if (infEWASInstances.size() > 1)
 			{	
-				logger.info("Multiple EWAS homologues produced for single EWAS. Converting to DefinedSet");
+				logger.debug("Multiple EWAS homologues produced for single EWAS. Converting to DefinedSet");
 				SchemaClass definedSetClass = dba.getSchema().getClassByName(DefinedSet);
 				GKInstance infDefinedSetInst = new GKInstance(definedSetClass);
 				infDefinedSetInst.setDbAdaptor(dba);
@@ -142,41 +163,48 @@ public class OrthologousEntityGenerator {
 				infDefinedSetInst.setAttributeValue(_displayName, definedSetDisplayName);
 				// Caching based on an instance's defining attributes. This reduces the number of 'checkForIdenticalInstance' calls, which is slow.
 				String cacheKey = InstanceUtilities.getCacheKey((GKSchemaClass) infDefinedSetInst.getSchemClass(), infDefinedSetInst);
-				if (definedSetIdenticals.get(cacheKey) != null)
+				GKInstance cachedInfDefinedSetInst = definedSetIdenticals.get(cacheKey);
+				if (cachedInfDefinedSetInst != null)
 				{
-					infDefinedSetInst = definedSetIdenticals.get(cacheKey);
+					infDefinedSetInst = cachedInfDefinedSetInst;
 				} else {
 					infDefinedSetInst = InstanceUtilities.checkForIdenticalInstances(infDefinedSetInst, ewasInst);
 					definedSetIdenticals.put(cacheKey, infDefinedSetInst);
+					ReactionWriteBuffer.registerCacheEntry(definedSetIdenticals, cacheKey);
 				}
 				infDefinedSetInst = InstanceUtilities.addAttributeValueIfNecessary(infDefinedSetInst, ewasInst, inferredFrom);
-				dba.updateInstanceAttribute(infDefinedSetInst, inferredFrom);
+				ReactionWriteBuffer.updateInstanceAttribute(infDefinedSetInst, inferredFrom);
 				ewasInst = InstanceUtilities.addAttributeValueIfNecessary(ewasInst, infDefinedSetInst, inferredTo);
-				dba.updateInstanceAttribute(ewasInst, inferredTo);
+				ReactionWriteBuffer.updateInstanceAttribute(ewasInst, inferredTo);
 				homolEWASIdenticals.put(ewasInst, infDefinedSetInst);
-				logger.info("Successfully converted to DefinedSet");
+				ReactionWriteBuffer.registerCacheEntry(homolEWASIdenticals, ewasInst);
+				infHomolEWASInst = infDefinedSetInst;
+				logger.debug("Successfully converted to DefinedSet");
 			} else if (infEWASInstances.size() == 1)
 			{
 				homolEWASIdenticals.put(ewasInst, infEWASInstances.get(0));
+				ReactionWriteBuffer.registerCacheEntry(homolEWASIdenticals, ewasInst);
+				infHomolEWASInst = infEWASInstances.get(0);
 			} else {
 				if (override) 
 				{
-					logger.info("Mock EWAS instance needed");
+					logger.debug("Mock EWAS instance needed");
 					return InstanceUtilities.createMockGKInstance(ewasInst);
 				} else {
 					return nullInst;
 				}
 			}
 		} else {
-			logger.info("Inferred EWAS already exists");
+			logger.debug("Inferred EWAS already exists");
 		}
-		return homolEWASIdenticals.get(ewasInst);
+		return infHomolEWASInst;
 	}
 	// Infers Complex or Polymer instances. These instances are generally comprised of more than 1 PhysicalEntity, and calls 'createOrthoEntity' for each one. Complex/Polymer instances
 	// are also subject to the 'countDistinctProteins' function. The result from this needs to have at least 75% of total proteins to be inferrable for inference to continue. 
 	private static GKInstance createInfComplexPolymer(GKInstance complexInst, boolean override) throws InvalidAttributeException, InvalidAttributeValueException, Exception
 	{
-		if (complexPolymerIdenticals.get(complexInst) == null)
+		GKInstance infComplexPolymerInst = complexPolymerIdenticals.get(complexInst);
+		if (infComplexPolymerInst == null)
 		{
 			List<Integer> complexProteinCounts = ProteinCountUtility.getDistinctProteinCounts(complexInst);
 			int complexTotalProteinCounts = complexProteinCounts.get(0);
@@ -193,11 +221,11 @@ public class OrthologousEntityGenerator {
 			{
 				if ((complexTotalProteinCounts > 0 && complexInferrableProteinCounts == 0) || percent < 75)
 				{
-					logger.info("Complex/Polymer protein count is below 75% threshold (" + percent + "%) -- terminating inference");
+					logger.debug("Complex/Polymer protein count is below 75% threshold ({}%) -- terminating inference", percent);
 					return nullInst;
 				}
 			}
-			logger.info("Complex protein counts. Total: " + complexTotalProteinCounts + "  Inferrable: " + complexInferrableProteinCounts);
+			logger.debug("Complex protein counts. Total: {}  Inferrable: {}", complexTotalProteinCounts, complexInferrableProteinCounts);
 			GKInstance infComplexInst = InstanceUtilities.createNewInferredGKInstance(complexInst);
 			infComplexInst.addAttributeValue(summation, complexSummationInst);
 			infComplexInst.addAttributeValue(name, complexInst.getAttributeValue(name));
@@ -207,7 +235,7 @@ public class OrthologousEntityGenerator {
 			if (complexInst.getSchemClass().isa(Complex))
 			{
 				Collection<GKInstance> componentInstances = complexInst.getAttributeValuesList(hasComponent);
-				logger.info("Complex components: " + componentInstances);
+				logger.debug("Complex components: {}", componentInstances);
 				for (GKInstance componentInst : componentInstances)
 				{	
 					infComponentInstances.add(createOrthoEntity(componentInst, true));
@@ -216,42 +244,46 @@ public class OrthologousEntityGenerator {
 			} else  if (complexInst.getSchemClass().isa(Polymer))
 			{
 				Collection<GKInstance> repeatedUnitInstances = complexInst.getAttributeValuesList(repeatedUnit);
-				logger.info("Polymer repeated units: " + repeatedUnitInstances);
+				logger.debug("Polymer repeated units: {}", repeatedUnitInstances);
 				for (GKInstance repeatedUnitInst : repeatedUnitInstances)
 				{		
 					infComponentInstances.add(createOrthoEntity(repeatedUnitInst, true));
 				}
 				infComplexInst.addAttributeValue(repeatedUnit, infComponentInstances);
 			} else {
-				logger.warn(complexInst + " is not a Complex or a Polymer");
+				logger.warn("{} is not a Complex or a Polymer", complexInst);
 				return nullInst;
 			}
 			infComplexInst.setAttributeValue(_displayName, complexInst.getAttributeValue(_displayName));
 			
 			// Caching based on an instance's defining attributes. This reduces the number of 'checkForIdenticalInstance' calls, which is slow.
 			String cacheKey = InstanceUtilities.getCacheKey((GKSchemaClass) infComplexInst.getSchemClass(), infComplexInst);
-			if (complexIdenticals.get(cacheKey) != null)
+			GKInstance cachedInfComplexInst = complexIdenticals.get(cacheKey);
+			if (cachedInfComplexInst != null)
 			{
-				infComplexInst = complexIdenticals.get(cacheKey);
+				infComplexInst = cachedInfComplexInst;
 			} else {
 				infComplexInst = InstanceUtilities.checkForIdenticalInstances(infComplexInst, complexInst);
 				complexIdenticals.put(cacheKey, infComplexInst);
+				ReactionWriteBuffer.registerCacheEntry(complexIdenticals, cacheKey);
 			}
 
 			infComplexInst = InstanceUtilities.addAttributeValueIfNecessary(infComplexInst, complexInst, inferredFrom);
-			dba.updateInstanceAttribute(infComplexInst, inferredFrom);
+			ReactionWriteBuffer.updateInstanceAttribute(infComplexInst, inferredFrom);
 			complexInst = InstanceUtilities.addAttributeValueIfNecessary(complexInst, infComplexInst, inferredTo);
-			dba.updateInstanceAttribute(complexInst, inferredTo);
+			ReactionWriteBuffer.updateInstanceAttribute(complexInst, inferredTo);
 			
 			if (override)
 			{
 				return infComplexInst;
 			} 
 			complexPolymerIdenticals.put(complexInst, infComplexInst);
+			ReactionWriteBuffer.registerCacheEntry(complexPolymerIdenticals, complexInst);
+			infComplexPolymerInst = infComplexInst;
 		} else {
-			logger.info("Inferred Complex/Polymer already exists");
+			logger.debug("Inferred Complex/Polymer already exists");
 		}
-		return complexPolymerIdenticals.get(complexInst);
+		return infComplexPolymerInst;
 	}
 	
 	// EntitySet inference function. This function will initially call createOrthoEntity on all 'members' before filtering by the type of EntitySet (Open, Candidate, or Defined Sets) and completing a specific inference.
@@ -261,15 +293,16 @@ public class OrthologousEntityGenerator {
 	@SuppressWarnings("unchecked")
 	private static GKInstance createInfEntitySet(GKInstance entitySetInst, boolean override) throws InvalidAttributeException, Exception
 	{
-		if (inferredEntitySetIdenticals.get(entitySetInst) == null)
+		GKInstance cachedInfEntitySetInst = inferredEntitySetIdenticals.get(entitySetInst);
+		if (cachedInfEntitySetInst == null)
 		{
 			// Equivalent to infer_members function in infer_events.pl
 			Set<String> existingMemberInstances = new HashSet<>();
 			List<GKInstance> infMembersList = new ArrayList<>();
 			Collection<GKInstance> memberInstances = (Collection<GKInstance>) entitySetInst.getAttributeValuesList(hasMember);
 			if (!entitySetInst.getSchemClass().isa(CandidateSet)) {
-				logger.info("Total member instances: " + memberInstances.size());
-				logger.info("Member instances: " + memberInstances);
+				logger.debug("Total member instances: {}", memberInstances.size());
+				logger.debug("Member instances: {}", memberInstances);
 			}
 			for (GKInstance memberInst : memberInstances)
 			{
@@ -281,7 +314,7 @@ public class OrthologousEntityGenerator {
 				}
 			}
 			if (!entitySetInst.getSchemClass().isa(CandidateSet)) {
-				logger.info("Total number of inferred members: " + infMembersList.size() + "/" + memberInstances.size());
+				logger.debug("Total number of inferred members: {}/{}", infMembersList.size(), memberInstances.size());
 			}
 
 			// Begin inference of EntitySet
@@ -298,7 +331,7 @@ public class OrthologousEntityGenerator {
 			// Filtering based on ProteinCount results
 			if (!override && entitySetTotalCount > 0 && entitySetInferrableCount == 0)
 			{
-				logger.info("No distinct proteins found in EntitySet -- terminating inference");
+				logger.debug("No distinct proteins found in EntitySet -- terminating inference");
 				return nullInst;
 			}
 			
@@ -308,8 +341,8 @@ public class OrthologousEntityGenerator {
 				List<GKInstance> infCandidatesList = new ArrayList<>();
 				// Equivalent to infer_members function in infer_events.pl
 				Collection<GKInstance> candidateInstances = (Collection<GKInstance>) entitySetInst.getAttributeValuesList(hasCandidate);
-				logger.info("Total candidate instances: " + candidateInstances.size());
-				logger.info("Candidate instances: " + candidateInstances);
+				logger.debug("Total candidate instances: {}", candidateInstances.size());
+				logger.debug("Candidate instances: {}", candidateInstances);
 				for (GKInstance candidateInst : candidateInstances)
 				{
 					GKInstance infCandidateInst = createOrthoEntity(candidateInst, false);
@@ -319,7 +352,7 @@ public class OrthologousEntityGenerator {
 						infCandidatesList.add(infCandidateInst);
 					}
 				}
-				logger.info("Total number of inferred candidates: " + infCandidatesList.size() + "/" + candidateInstances.size());
+				logger.debug("Total number of inferred candidates: {}/{}", infCandidatesList.size(), candidateInstances.size());
 				// Handling of CandidateSets
 				if (infCandidatesList.size() > 0)
 				{
@@ -331,7 +364,7 @@ public class OrthologousEntityGenerator {
 						{
 							infEntitySetInst = infMembersList.get(0);
 						} else {
-							logger.info("No candidates inferred, but there are inferred members. Converting to DefinedSet");
+							logger.debug("No candidates inferred, but there are inferred members. Converting to DefinedSet");
 							SchemaClass definedSetClass = dba.getSchema().getClassByName(DefinedSet);
 							GKInstance infDefinedSetInst = new GKInstance(definedSetClass);
 							infDefinedSetInst.setDbAdaptor(dba);
@@ -353,12 +386,12 @@ public class OrthologousEntityGenerator {
 							}
 							infDefinedSetInst.addAttributeValue(species, speciesInst);
 							infEntitySetInst = infDefinedSetInst;
-							logger.info("Successfully converted to DefinedSet");
+							logger.debug("Successfully converted to DefinedSet");
 						}
 					} else {
 						if (override)
 						{
-							logger.info("Mock CandidateSet instance needed");
+							logger.debug("Mock CandidateSet instance needed");
 							infEntitySetInst = InstanceUtilities.createMockGKInstance(entitySetInst);
 						} else {
 							return nullInst;
@@ -371,15 +404,15 @@ public class OrthologousEntityGenerator {
 				{
 					if (override)
 					{
-						logger.info("Mock DefinedSet instance needed");
+						logger.debug("Mock DefinedSet instance needed");
 						return InstanceUtilities.createMockGKInstance(entitySetInst);
 					} else {
-						logger.info("No member instances found -- terminating inference");
+						logger.debug("No member instances found -- terminating inference");
 						return nullInst;
 					}
 				} else if (infMembersList.size() == 1)
 				{
-					logger.info("Only 1 member from EntitySet was inferred, converting to PE: " + infMembersList.get(0));
+					logger.debug("Only 1 member from EntitySet was inferred, converting to PE: {}", infMembersList.get(0));
 					infEntitySetInst = infMembersList.get(0);
 				}
 				// If it has more than 1 member (which is the logic that would theoretically go here), nothing happens; 
@@ -388,31 +421,65 @@ public class OrthologousEntityGenerator {
 			infEntitySetInst.setAttributeValue(_displayName, entitySetInst.getAttributeValue(_displayName));
 			// Caching based on an instance's defining attributes. This reduces the number of 'checkForIdenticalInstance' calls, which is slow.
 			String cacheKey = InstanceUtilities.getCacheKey((GKSchemaClass) infEntitySetInst.getSchemClass(), infEntitySetInst);
-			if (entitySetIdenticals.get(cacheKey) != null)
+			GKInstance identicalInfEntitySetInst = entitySetIdenticals.get(cacheKey);
+			if (identicalInfEntitySetInst != null)
 			{
-				infEntitySetInst = entitySetIdenticals.get(cacheKey);
+				infEntitySetInst = identicalInfEntitySetInst;
 			} else {
 				infEntitySetInst = InstanceUtilities.checkForIdenticalInstances(infEntitySetInst, entitySetInst);
 				entitySetIdenticals.put(cacheKey, infEntitySetInst);
+				ReactionWriteBuffer.registerCacheEntry(entitySetIdenticals, cacheKey);
 			}
 			if (infEntitySetInst.getSchemClass().isValidAttribute(species) && entitySetInst.getAttributeValue(species) != null)
 			{
 				infEntitySetInst = InstanceUtilities.addAttributeValueIfNecessary(infEntitySetInst, entitySetInst, inferredFrom);
-				dba.updateInstanceAttribute(infEntitySetInst, inferredFrom);
+				ReactionWriteBuffer.updateInstanceAttribute(infEntitySetInst, inferredFrom);
 				entitySetInst = InstanceUtilities.addAttributeValueIfNecessary(entitySetInst, infEntitySetInst, inferredTo);
-				dba.updateInstanceAttribute(entitySetInst, inferredTo);
+				ReactionWriteBuffer.updateInstanceAttribute(entitySetInst, inferredTo);
 			}
 			if (override)
 			{
 			return infEntitySetInst;
 			}
 			inferredEntitySetIdenticals.put(entitySetInst, infEntitySetInst);
+			ReactionWriteBuffer.registerCacheEntry(inferredEntitySetIdenticals, entitySetInst);
+			cachedInfEntitySetInst = infEntitySetInst;
 		} else {
-			logger.info("Inferred EntitySet already exists");
+			logger.debug("Inferred EntitySet already exists");
 		}
-		return inferredEntitySetIdenticals.get(entitySetInst);
+		return cachedInfEntitySetInst;
 	}
 	
+	// Identity caches that are saved to, and restored from, checkpoints
+	public static Map<String, Map<GKInstance, GKInstance>> getInstanceKeyedCaches()
+	{
+		Map<String, Map<GKInstance, GKInstance>> instanceKeyedCaches = new LinkedHashMap<>();
+		instanceKeyedCaches.put("orthologousEntity", orthologousEntityIdenticals);
+		instanceKeyedCaches.put("homolEWAS", homolEWASIdenticals);
+		instanceKeyedCaches.put("complexPolymer", complexPolymerIdenticals);
+		instanceKeyedCaches.put("inferredEntitySet", inferredEntitySetIdenticals);
+		return instanceKeyedCaches;
+	}
+
+	public static Map<String, Map<String, GKInstance>> getStringKeyedCaches()
+	{
+		Map<String, Map<String, GKInstance>> stringKeyedCaches = new LinkedHashMap<>();
+		stringKeyedCaches.put("definedSet", definedSetIdenticals);
+		stringKeyedCaches.put("complex", complexIdenticals);
+		stringKeyedCaches.put("entitySet", entitySetIdenticals);
+		return stringKeyedCaches;
+	}
+
+	public static long getEntityInferenceCount()
+	{
+		return entityInferenceCount;
+	}
+
+	public static long getCachedEntityCount()
+	{
+		return cachedEntityCount;
+	}
+
 	public static void setAdaptor(MySQLAdaptor dbAdaptor)
 	{
 		dba = dbAdaptor;
@@ -43,7 +43,9 @@ public class OrthologousPathwayDiagramGenerator {
         GKInstance referenceSpeciesInst = dba.fetchInstance(referenceSpeciesId);
 
         // Iterate through each PathwayDiagram instance looking for those associated with the reference species.
-        for (GKInstance diagramInst: (Collection<GKInstance>) dba.fetchInstancesByClass(ReactomeJavaConstants.PathwayDiagram)) {
+        Collection<GKInstance> diagramInstances = (Collection<GKInstance>) dba.fetchInstancesByClass(ReactomeJavaConstants.PathwayDiagram);
+        ProgressReporter.startStage(ProgressReporter.DIAGRAMS, diagramInstances.size());
+        for (GKInstance diagramInst: diagramInstances) {
             GKInstance pathwayInst = (GKInstance) diagramInst.getAttributeValue(ReactomeJavaConstants.representedPathway);
             if (isSameSpecies(pathwayInst, referenceSpeciesInst)) {
                 // When a PathwayDiagram instance associated with the reference species is found, iterate through all of it's OrthologousEvent instances.
@@ -52,9 +54,11 @@ public class OrthologousPathwayDiagramGenerator {
                     GKInstance orthoDiagram = generateOrthologousPathwayDiagram(orthoPathwayInst, pathwayInst, diagramInst, diagramGenerator);
                 }
             }
+            ProgressReporter.advance(ProgressReporter.DIAGRAMS);
         }
 
         comparePathwayDiagramCounts((Collection<GKInstance>) dba.fetchInstancesByClass(ReactomeJavaConstants.PathwayDiagram), (Collection<GKInstance>) dbaPrev.fetchInstancesByClass(ReactomeJavaConstants.PathwayDiagram));
+        ProgressReporter.finishStage(ProgressReporter.DIAGRAMS);
         logger.info("Finish pathway diagram generation for " + targetSpeciesInst.getDisplayName());
     }
 
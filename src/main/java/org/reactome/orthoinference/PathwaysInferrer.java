@@ -19,7 +19,7 @@ public class PathwaysInferrer {
 	private static GKInstance evidenceTypeInst;
 	private static GKInstance instanceEditInst;
 	private static List<GKInstance> updatedInferrableHumanEvents = new ArrayList<>();
-	private static Map<GKInstance, GKInstance> sourceInstanceToInferredInstance = new HashMap<>();
+	private static Map<GKInstance, GKInstance> sourceInstanceToInferredInstance = new InferredInstanceCache("sourceInstanceToInferredInstance");
 	private static GKInstance diseasePathwayInst;
 
 	// This class populates species pathways with the instances that have been inferred. This was copied heavily from the Perl, so my explanations are a little sparse here.
@@ -34,6 +34,7 @@ public class PathwaysInferrer {
 		// added to the Pathway at this point. This includes the immediate Pathway, but also all parent pathways up to its TopLevelPathway.
 		logger.info("Building inferred Pathway hierarchies");
 		Set<Long> seenPathwayHierarchy = new HashSet<>();
+		ProgressReporter.startStage(ProgressReporter.PATHWAYS, inferrableHumanEvents.size());
 		for (GKInstance inferrableInst : inferrableHumanEvents)
 		{
 			logger.info("Building inferred pathways for RlE: " + inferrableInst);
@@ -44,6 +45,7 @@ public class PathwaysInferrer {
 			} else {
 				logger.info("Inferred pathways already exist for RlE");
 			}
+			ProgressReporter.advance(ProgressReporter.PATHWAYS);
 		}
 		logger.info("Finished building inferred Pathway hierarchies");
 
@@ -61,6 +63,7 @@ public class PathwaysInferrer {
 
 		// Any source species Events (Pathway or RlEs) that were modified during Pathway inference are updated with a 'modified' instance edit.
 		updateModifiedAttributeIfNecessary();
+		ProgressReporter.finishStage(ProgressReporter.PATHWAYS);
 	}
 
 	@SuppressWarnings("unchecked")
@@ -68,6 +71,7 @@ public class PathwaysInferrer {
 	// Inferred Reactions are not added to the Pathway at this step.
 	private static void createInferredPathwayHierarchy(GKInstance sourceEventInst) throws Exception
 	{
+		InferenceStatistics.recordDbCall(InferenceStatistics.GET_REFERERS, sourceEventInst.getSchemClass().getName());
 		List<GKInstance> sourcePathwayReferralInstances = safeList(sourceEventInst.getReferers(hasEvent));
 
 		if (sourcePathwayReferralInstances.isEmpty())
@@ -89,7 +93,7 @@ public class PathwaysInferrer {
 	}
 
 	private static boolean hasNotBeenInferred(GKInstance sourcePathwayReferralInst) {
-		return sourceInstanceToInferredInstance.get(sourcePathwayReferralInst) == null;
+		return !sourceInstanceToInferredInstance.containsKey(sourcePathwayReferralInst);
 	}
 
 	private static void inferPathway(GKInstance sourcePathwayReferralInst) throws Exception {
@@ -113,10 +117,11 @@ public class PathwaysInferrer {
 			logger.warn(sourcePathwayReferralInst + " is a ReactionLikeEvent, which is unexpected -- refer to infer_events.pl");
 		}
 		infPathwayInst.setDisplayName(sourcePathwayReferralInst.getDisplayName());
-		sourceInstanceToInferredInstance.put(sourcePathwayReferralInst, infPathwayInst);
 		GKInstance orthoStableIdentifierInst = EventsInferrer.getStableIdentifierGenerator().generateOrthologousStableId(infPathwayInst, sourcePathwayReferralInst);
 		infPathwayInst.addAttributeValue(stableIdentifier, orthoStableIdentifierInst);
 		dba.storeInstance(infPathwayInst);
+		// Inferred Events are cached by DB ID, so the Pathway is cached once it has been stored
+		sourceInstanceToInferredInstance.put(sourcePathwayReferralInst, infPathwayInst);
 
 		// This was replaced with addAttributeValueIfNecessary due to a bug where a Pathway instance's 'OrthologousEvent' attribute was being replaced,
 		// instead of being added to the existing array when  the script was executed from a jar (rather than from Eclipse) (Justin Cook 2018)
@@ -160,8 +165,9 @@ public class PathwaysInferrer {
 	private static List<GKInstance> getInferredEventInstances(GKInstance humanPathwayInst) throws Exception {
 		List<GKInstance> inferredEventInstances = new ArrayList<>();
 		for (GKInstance eventInst : (Collection<GKInstance>) humanPathwayInst.getAttributeValuesList(hasEvent)) {
-			if (sourceInstanceToInferredInstance.get(eventInst) != null) {
-				inferredEventInstances.add(sourceInstanceToInferredInstance.get(eventInst));
+			GKInstance inferredEventInst = sourceInstanceToInferredInstance.get(eventInst);
+			if (inferredEventInst != null) {
+				inferredEventInstances.add(inferredEventInst);
 			}
 		}
 		return inferredEventInstances;
@@ -183,9 +189,10 @@ public class PathwaysInferrer {
 					// Find all preceding events for source instance that have an inferred counterpart
 					for (GKInstance precedingEventInst : (Collection<GKInstance>) inferrableEventInst.getAttributeValuesList(precedingEvent))
 					{
-						if (sourceInstanceToInferredInstance.get(precedingEventInst) != null)
+						GKInstance inferredPrecedingEventInst = sourceInstanceToInferredInstance.get(precedingEventInst);
+						if (inferredPrecedingEventInst != null)
 						{
-							precedingEventInstances.add(sourceInstanceToInferredInstance.get(precedingEventInst));
+							precedingEventInstances.add(inferredPrecedingEventInst);
 						}
 					}
 					Set<String> inferredPrecedingEvents = new HashSet<>();
@@ -0,0 +1,210 @@
+package org.reactome.orthoinference;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.gk.model.GKInstance;
+import org.gk.persistence.MySQLAdaptor;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+
+/**
+ * Keeps the defining-attribute identity caches (complexes, EWASs, residues, sets, mocked instances, ReferenceGeneProducts) on local
+ * disk across runs, so that a re-run after a partial failure, or a dry run against a restored dump, finds previously inferred instances
+ * without querying for identical instances again.
+ *
+ * The cache is an append-only file of JSON lines per database and species: a header with the database, species, release and the DB's
+ * max DB ID when the file was started, followed by one line per cache entry (cache, key, class, DB ID). Entries are only appended once
+ * the RlE inference that created them has been committed. At startup, the file is discarded if it was written for another release, or
+ * if the DB has been restored to a state older than the file. Remaining entries are checked against the DB's class of each DB ID in bulk
+ * before being used to warm the caches. Instances are warmed as unloaded shells, whose attributes are only loaded if they are used.
+ */
+public class PersistentIdentityCache {
+
+	private static final Logger logger = LogManager.getLogger();
+	private static final int VALIDATION_BATCH_SIZE = 1000;
+	private static MySQLAdaptor dba;
+	private static Path cachePath;
+	private static BufferedWriter cacheWriter;
+	private static Map<Map<String, GKInstance>, String> cacheNames = new IdentityHashMap<>();
+
+	// Warms the identity caches from the file, and starts appending new entries to it
+	@SuppressWarnings("unchecked")
+	public static void enable(String filename, String species, String releaseVersion) throws Exception
+	{
+		cachePath = Paths.get(filename);
+		Map<String, Map<String, GKInstance>> stringKeyedCaches = InferenceCheckpoint.getStringKeyedCaches();
+		for (Map.Entry<String, Map<String, GKInstance>> keyedCache : stringKeyedCaches.entrySet())
+		{
+			cacheNames.put(keyedCache.getValue(), keyedCache.getKey());
+		}
+		JSONObject header = new JSONObject();
+		header.put("database", dba.getDBName());
+		header.put("species", species);
+		header.put("release", releaseVersion);
+		long maxDbId = dba.fetchMaxDbId();
+
+		List<JSONArray> entries = Files.exists(cachePath) ? readEntries(header, maxDbId) : null;
+		if (entries == null)
+		{
+			header.put("maxDbId", maxDbId);
+			Files.write(cachePath, Collections.singletonList(header.toJSONString()));
+			entries = new ArrayList<>();
+		}
+		Map<Long, String> storedClasses = fetchStoredClasses(entries);
+		int warmedCount = 0;
+		for (JSONArray entry : entries)
+		{
+			Map<String, GKInstance> keyedCache = stringKeyedCaches.get((String) entry.get(0));
+			Long dbId = (Long) entry.get(3);
+			if (keyedCache != null && entry.get(2).equals(storedClasses.get(dbId)))
+			{
+				keyedCache.put((String) entry.get(1), dba.fetchInstance((String) entry.get(2), dbId));
+				warmedCount++;
+			}
+		}
+		cacheWriter = Files.newBufferedWriter(cachePath, StandardOpenOption.APPEND);
+		logger.info("Warmed identity caches with " + warmedCount + " of " + entries.size() + " entries from " + filename);
+	}
+
+	public static boolean isEnabled()
+	{
+		return cacheWriter != null;
+	}
+
+	// Appends the cache entry once the current RlE inference has been committed. Entries of caches that aren't persisted are ignored.
+	public static void recordCacheEntry(Map<?, ?> cache, Object key)
+	{
+		if (!isEnabled() || !cacheNames.containsKey(cache))
+		{
+			return;
+		}
+		String cacheName = cacheNames.get(cache);
+		ReactionWriteBuffer.registerCommitAction(() -> {
+			GKInstance cachedInst = (GKInstance) cache.get(key);
+			if (cachedInst != null && cachedInst.getDBID() != null)
+			{
+				appendEntry(cacheName, (String) key, cachedInst);
+			}
+		});
+	}
+
+	public static void close() throws IOException
+	{
+		if (cacheWriter != null)
+		{
+			cacheWriter.close();
+			cacheWriter = null;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void appendEntry(String cacheName, String key, GKInstance cachedInst)
+	{
+		JSONArray entry = new JSONArray();
+		entry.add(cacheName);
+		entry.add(key);
+		entry.add(cachedInst.getSchemClass().getName());
+		entry.add(cachedInst.getDBID());
+		try {
+			cacheWriter.write(entry.toJSONString());
+			cacheWriter.newLine();
+			cacheWriter.flush();
+		} catch (IOException e) {
+			// The cache is only an optimization, so the run carries on without it
+			logger.warn("Unable to append to identity cache " + cachePath + " -- no further entries will be saved", e);
+			cacheWriter = null;
+		}
+	}
+
+	// Returns the file's entries, or null if it was written for another DB, species or release, or the DB has been restored to an earlier state
+	private static List<JSONArray> readEntries(JSONObject header, long maxDbId) throws Exception
+	{
+		JSONParser parser = new JSONParser();
+		try (BufferedReader br = Files.newBufferedReader(cachePath))
+		{
+			JSONObject fileHeader = (JSONObject) parser.parse(br.readLine());
+			Long fileMaxDbId = (Long) fileHeader.get("maxDbId");
+			for (Object headerField : header.keySet())
+			{
+				if (!Objects.equals(header.get(headerField), fileHeader.get(headerField)))
+				{
+					logger.info("Identity cache " + cachePath + " is for a different " + headerField + " -- starting a new one");
+					return null;
+				}
+			}
+			if (fileMaxDbId == null || fileMaxDbId > maxDbId)
+			{
+				logger.info("DB is older than identity cache " + cachePath + " -- starting a new one");
+				return null;
+			}
+			List<JSONArray> entries = new ArrayList<>();
+			String line;
+			while ((line = br.readLine()) != null)
+			{
+				// A run that was killed part way through an append leaves an incomplete last line
+				try {
+					JSONArray entry = (JSONArray) parser.parse(line);
+					if ((Long) entry.get(3) > maxDbId)
+					{
+						logger.info("DB is older than identity cache " + cachePath + " -- starting a new one");
+						return null;
+					}
+					entries.add(entry);
+				} catch (Exception e) {
+					logger.warn("Skipping unreadable identity cache entry: " + line);
+				}
+			}
+			return entries;
+		}
+	}
+
+	// Fetches the class of each entry's DB ID from the DB, in batches
+	private static Map<Long, String> fetchStoredClasses(List<JSONArray> entries) throws Exception
+	{
+		Map<Long, String> storedClasses = new HashMap<>();
+		for (int i = 0; i < entries.size(); i += VALIDATION_BATCH_SIZE)
+		{
+			List<JSONArray> batch = entries.subList(i, Math.min(i + VALIDATION_BATCH_SIZE, entries.size()));
+			String placeholders = String.join(",", Collections.nCopies(batch.size(), "?"));
+			String classQuery = "SELECT DB_ID, _class FROM DatabaseObject WHERE DB_ID IN (" + placeholders + ")";
+			try (PreparedStatement classStatement = dba.getConnection().prepareStatement(classQuery))
+			{
+				for (int j = 0; j < batch.size(); j++)
+				{
+					classStatement.setLong(j + 1, (Long) batch.get(j).get(3));
+				}
+				try (ResultSet classResults = classStatement.executeQuery())
+				{
+					while (classResults.next())
+					{
+						storedClasses.put(classResults.getLong(1), classResults.getString(2));
+					}
+				}
+			}
+		}
+		return storedClasses;
+	}
+
+	public static void setAdaptor(MySQLAdaptor dbAdaptor)
+	{
+		dba = dbAdaptor;
+	}
+}
@@ -0,0 +1,267 @@
+package org.reactome.orthoinference;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.json.simple.JSONObject;
+
+/**
+ * Reports how far the run has got through each of its stages (RlE inference, pathway inference and diagram generation). Every
+ * 'progressReportInterval' seconds, the processed and total counts, the throughput over the last 'progressWindow' seconds and the
+ * ETA at that throughput are logged and written to progress_ortho_inference_(release)_(species).json, along with the eligible and
+ * inferred RlE counts so far. A stage whose throughput drops (eg: because the DB is degraded) shows it within one window.
+ * Reports are made by a background thread, so that a stage that has stalled completely is still reported.
+ *
+ * The pathway stage counts the RlEs whose inferred Pathway hierarchies have been built, and the diagram stage counts the
+ * PathwayDiagrams that have been checked for inference.
+ */
+public class ProgressReporter {
+
+	private static final Logger logger = LogManager.getLogger();
+	public static final String REACTIONS = "reactions";
+	public static final String PATHWAYS = "pathways";
+	public static final String DIAGRAMS = "diagrams";
+	private static final Map<String, StageProgress> stageProgresses = new LinkedHashMap<>();
+	private static String species;
+	private static String filename;
+	private static int reportInterval = 0;
+	private static long windowMillis = TimeUnit.SECONDS.toMillis(300);
+	private static ScheduledExecutorService reportingScheduler;
+
+	static
+	{
+		for (String stage : new String[] {REACTIONS, PATHWAYS, DIAGRAMS})
+		{
+			stageProgresses.put(stage, new StageProgress(stage));
+		}
+	}
+
+	public static synchronized void startStage(String stage, int total)
+	{
+		stageProgresses.get(stage).start(total, System.currentTimeMillis());
+	}
+
+	// Reports every 'progressReportInterval' seconds until stop() is called. Does nothing when the interval is 0.
+	public static synchronized void start()
+	{
+		stop();
+		if (reportInterval <= 0)
+		{
+			return;
+		}
+		reportingScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread reportingThread = new Thread(runnable, "progress-reporter");
+			reportingThread.setDaemon(true);
+			return reportingThread;
+		});
+		reportingScheduler.scheduleAtFixedRate(() -> {
+			try {
+				report();
+			} catch (IOException e) {
+				logger.warn("Unable to write progress report to " + filename, e);
+			}
+		}, reportInterval, reportInterval, TimeUnit.SECONDS);
+	}
+
+	public static synchronized void stop()
+	{
+		if (reportingScheduler != null)
+		{
+			reportingScheduler.shutdownNow();
+			reportingScheduler = null;
+		}
+	}
+
+	// Counts one more item of the stage as processed
+	public static synchronized void advance(String stage)
+	{
+		stageProgresses.get(stage).advance(System.currentTimeMillis());
+	}
+
+	public static synchronized void finishStage(String stage) throws IOException
+	{
+		stageProgresses.get(stage).finish(System.currentTimeMillis());
+		report();
+	}
+
+	public static synchronized void report() throws IOException
+	{
+		long now = System.currentTimeMillis();
+		for (StageProgress stageProgress : stageProgresses.values())
+		{
+			if (stageProgress.startTime > 0 && stageProgress.finishTime == 0)
+			{
+				logger.info(stageProgress.describe(now));
+			}
+		}
+		if (filename != null)
+		{
+			Path path = Paths.get(filename);
+			Path tempPath = Paths.get(filename + ".tmp");
+			Files.write(tempPath, toJSON().toJSONString().getBytes());
+			Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	public static synchronized JSONObject toJSON()
+	{
+		long now = System.currentTimeMillis();
+		JSONObject progressJSON = new JSONObject();
+		progressJSON.put("species", species);
+		progressJSON.put("reportedAt", now);
+		progressJSON.put("eligibleReactions", ReactionInferrer.getEligibleCount());
+		progressJSON.put("inferredReactions", ReactionInferrer.getInferredCount());
+		JSONObject stagesJSON = new JSONObject();
+		for (StageProgress stageProgress : stageProgresses.values())
+		{
+			stagesJSON.put(stageProgress.stage, stageProgress.toJSON(now));
+		}
+		progressJSON.put("stages", stagesJSON);
+		return progressJSON;
+	}
+
+	public static void setSpecies(String speciesCopy)
+	{
+		species = speciesCopy;
+	}
+
+	public static void setFilename(String filenameCopy)
+	{
+		filename = filenameCopy;
+	}
+
+	public static void setReportInterval(int reportIntervalCopy)
+	{
+		reportInterval = reportIntervalCopy;
+	}
+
+	public static void setWindow(int windowSeconds)
+	{
+		windowMillis = TimeUnit.SECONDS.toMillis(windowSeconds);
+	}
+
+	// Progress of one stage. Throughput is measured from the (time, processed count) samples taken within the window.
+	static class StageProgress {
+
+		private final String stage;
+		private final Deque<long[]> samples = new ArrayDeque<>();
+		private int total = 0;
+		private int processed = 0;
+		private long startTime = 0;
+		private long finishTime = 0;
+
+		StageProgress(String stage)
+		{
+			this.stage = stage;
+		}
+
+		void start(int totalCopy, long now)
+		{
+			total = totalCopy;
+			processed = 0;
+			startTime = now;
+			finishTime = 0;
+			samples.clear();
+			samples.add(new long[] {now, 0});
+		}
+
+		void advance(long now)
+		{
+			processed++;
+			samples.add(new long[] {now, processed});
+			// The latest sample is always kept, so a stage that has stalled for longer than the window shows a throughput of 0
+			while (samples.size() > 1 && now - samples.peekFirst()[0] > windowMillis)
+			{
+				samples.removeFirst();
+			}
+		}
+
+		void finish(long now)
+		{
+			finishTime = now;
+		}
+
+		int getProcessed()
+		{
+			return processed;
+		}
+
+		// Items processed per second over the window, or 0 before the first item has been processed
+		double getRatePerSecond(long now)
+		{
+			// Samples are only trimmed as items are processed, so samples that have since left the window are skipped here
+			long[] oldestSample = samples.peekLast();
+			for (long[] sample : samples)
+			{
+				if (now - sample[0] <= windowMillis)
+				{
+					oldestSample = sample;
+					break;
+				}
+			}
+			if (oldestSample == null || now <= oldestSample[0] || processed == 0)
+			{
+				return 0;
+			}
+			return (processed - oldestSample[1]) * 1000.0 / (now - oldestSample[0]);
+		}
+
+		// Seconds left at the current throughput, or -1 if it is not known yet
+		long getEtaSeconds(long now)
+		{
+			if (finishTime > 0)
+			{
+				return 0;
+			}
+			double ratePerSecond = getRatePerSecond(now);
+			return ratePerSecond > 0 ? Math.round(Math.max(total - processed, 0) / ratePerSecond) : -1;
+		}
+
+		String describe(long now)
+		{
+			String description = String.format("Progress of %s: %d/%d (%.1f%%), %.2f/s over the last %d s, ETA %s", stage, processed, total,
+					total > 0 ? 100.0 * processed / total : 0, getRatePerSecond(now), TimeUnit.MILLISECONDS.toSeconds(Math.min(windowMillis, now - startTime)),
+					formatEta(getEtaSeconds(now)));
+			if (stage.equals(REACTIONS))
+			{
+				description += ", " + ReactionInferrer.getEligibleCount() + " eligible, " + ReactionInferrer.getInferredCount() + " inferred";
+			}
+			return description;
+		}
+
+		@SuppressWarnings("unchecked")
+		JSONObject toJSON(long now)
+		{
+			JSONObject stageJSON = new JSONObject();
+			stageJSON.put("state", startTime == 0 ? "pending" : finishTime == 0 ? "running" : "finished");
+			stageJSON.put("processed", processed);
+			stageJSON.put("total", total);
+			stageJSON.put("elapsedSeconds", startTime == 0 ? 0 : TimeUnit.MILLISECONDS.toSeconds((finishTime > 0 ? finishTime : now) - startTime));
+			stageJSON.put("ratePerSecond", getRatePerSecond(finishTime > 0 ? finishTime : now));
+			stageJSON.put("etaSeconds", startTime == 0 ? -1 : getEtaSeconds(now));
+			return stageJSON;
+		}
+
+		private static String formatEta(long etaSeconds)
+		{
+			if (etaSeconds < 0)
+			{
+				return "unknown";
+			}
+			return String.format("%d:%02d:%02d", etaSeconds / 3600, (etaSeconds / 60) % 60, etaSeconds % 60);
+		}
+	}
+}
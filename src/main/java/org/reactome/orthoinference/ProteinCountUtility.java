@@ -26,6 +26,8 @@ public class ProteinCountUtility {
 	
 	public static List<Integer> getDistinctProteinCounts (GKInstance instanceToBeInferred) throws Exception
 	{
+		InferenceEvents.ProteinCountEvent proteinCountEvent = new InferenceEvents.ProteinCountEvent();
+		proteinCountEvent.begin();
 		// Perform an AttributeQueryRequest with specified input attributes (ReactionlikeEvent, CatalystActivity, Complex, Polymer, EWAS) and output attributes (ReferenceGeneProduct, EntitySet).
 		List<ClassAttributeFollowingInstruction> classesToFollow = new ArrayList<>();
 		classesToFollow.add(new ClassAttributeFollowingInstruction(ReactionlikeEvent, new String[]{input, output, catalystActivity}, new String[]{}));
@@ -202,6 +204,7 @@ public class ProteinCountUtility {
 		distinctProteinCounts.add(total);
 		distinctProteinCounts.add(inferrable);
 		distinctProteinCounts.add(max);
+		proteinCountEvent.commitFor(instanceToBeInferred, false);
 		return distinctProteinCounts;
 	}
 	// Function that determines protein counts of CandidateSets. Incoming arguments are the candidateSet of interest, as well as the output array from the very first AttributeQueryRequest (AQR).
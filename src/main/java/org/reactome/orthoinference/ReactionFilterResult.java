@@ -0,0 +1,75 @@
+package org.reactome.orthoinference;
+
+import java.util.List;
+
+import org.gk.model.GKInstance;
+
+/*
+ *  The outcome of the read-only checks made on a ReactionlikeEvent before its inference: whether it should be skipped (see SkipInstanceChecker),
+ *  and its distinct protein counts (see ProteinCountUtility). These only depend on the source species' data, so they can be computed ahead of the
+ *  inference by the ReactionPipeline's filter stage, using that stage's own DB adaptors.
+ */
+public class ReactionFilterResult {
+
+	private final Long reactionDbId;
+	private final int skipReasons;
+	private final List<Integer> proteinCounts;
+	private final boolean previouslyInferred;
+
+	private ReactionFilterResult(Long reactionDbId, int skipReasons, List<Integer> proteinCounts, boolean previouslyInferred)
+	{
+		this.reactionDbId = reactionDbId;
+		this.skipReasons = skipReasons;
+		this.proteinCounts = proteinCounts;
+		this.previouslyInferred = previouslyInferred;
+	}
+
+	// The result for an RlE that already has an inference for the species, whose checks were not run
+	public static ReactionFilterResult previouslyInferred(Long reactionDbId)
+	{
+		return new ReactionFilterResult(reactionDbId, 0, null, true);
+	}
+
+	// Runs the skip checks, and counts proteins for RlEs that aren't skipped
+	public static ReactionFilterResult compute(GKInstance reactionInst) throws Exception
+	{
+		long startTime = InferenceMetrics.start(InferenceMetrics.SKIP_CHECK);
+		int skipReasons = SkipInstanceChecker.checkSkipReasons(reactionInst);
+		InferenceMetrics.record(InferenceMetrics.SKIP_CHECK, startTime);
+		if (skipReasons != 0)
+		{
+			return new ReactionFilterResult(reactionInst.getDBID(), skipReasons, null, false);
+		}
+		startTime = InferenceMetrics.start(InferenceMetrics.PROTEIN_COUNT);
+		List<Integer> proteinCounts = ProteinCountUtility.getDistinctProteinCounts(reactionInst);
+		InferenceMetrics.record(InferenceMetrics.PROTEIN_COUNT, startTime);
+		return new ReactionFilterResult(reactionInst.getDBID(), 0, proteinCounts, false);
+	}
+
+	public Long getReactionDbId()
+	{
+		return reactionDbId;
+	}
+
+	public boolean isPreviouslyInferred()
+	{
+		return previouslyInferred;
+	}
+
+	public boolean isSkipped()
+	{
+		return skipReasons != 0;
+	}
+
+	// Bitmask of the reasons the RlE is skipped (see SkipInstanceChecker), or 0 if it isn't
+	public int getSkipReasons()
+	{
+		return skipReasons;
+	}
+
+	// Total proteins are stored in index 0, inferrable proteins in 1, and the maximum number of homologues for any entity in 2
+	public List<Integer> getProteinCounts()
+	{
+		return proteinCounts;
+	}
+}
@@ -0,0 +1,106 @@
+package org.reactome.orthoinference;
+
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.gk.model.GKInstance;
+import org.gk.schema.GKSchemaAttribute;
+import org.gk.schema.GKSchemaClass;
+
+import static org.gk.model.ReactomeJavaConstants.*;
+
+/*
+ *  Produces a fingerprint of everything in a ReactionlikeEvent's participant subgraph that the inference depends on: the class,
+ *  defining attributes and copied attributes of each instance, and the homologues (with their genes and gene names) of each
+ *  ReferenceGeneProduct. The inference only looks up the homologues of proteins in the subgraph, so reactions with the same
+ *  fingerprint in two releases would be inferred identically, even if other proteins' homologues have changed.
+ */
+public class ReactionFingerprinter {
+
+    // Attributes that are followed from the RlE through its participant subgraph
+    private static final List<String> FOLLOWED_ATTRIBUTES = Arrays.asList(input, output, catalystActivity, physicalEntity, activeUnit, "regulatedBy",
+            regulator, hasMember, hasCandidate, hasComponent, repeatedUnit, hasModifiedResidue, referenceEntity);
+    // Non-defining attributes whose values are copied into inferred instances
+    private static final List<String> COPIED_ATTRIBUTES = Arrays.asList(name, _displayName, goBiologicalProcess, compartment, species, activity,
+            startCoordinate, endCoordinate, identifier);
+
+    private Map<String, String[]> homologueMappings;
+    private Map<String, List<String>> ensgMappings;
+    private Map<String, String> geneNameMappings;
+
+    public ReactionFingerprinter(Map<String, String[]> homologueMappings, Map<String, List<String>> ensgMappings, Map<String, String> geneNameMappings) {
+        this.homologueMappings = homologueMappings;
+        this.ensgMappings = ensgMappings;
+        this.geneNameMappings = geneNameMappings;
+    }
+
+    // Returns the SHA-256 fingerprint of the RlE's participant subgraph, as a hex string
+    public String fingerprint(GKInstance reactionInst) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        addToFingerprint(reactionInst, digest, new HashSet<>());
+        StringBuilder fingerprint = new StringBuilder();
+        for (byte digestByte : digest.digest()) {
+            fingerprint.append(String.format("%02x", digestByte));
+        }
+        return fingerprint.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addToFingerprint(GKInstance inst, MessageDigest digest, Set<Long> seenDbIds) throws Exception {
+        // Instances that appear more than once in the subgraph are only described the first time
+        if (!seenDbIds.add(inst.getDBID())) {
+            digest.update(("^" + inst.getDBID() + "\n").getBytes());
+            return;
+        }
+        StringBuilder description = new StringBuilder(inst.getSchemClass().getName()).append(":").append(inst.getDBID());
+        Set<String> describedAttributes = new TreeSet<>();
+        for (GKSchemaAttribute definingAttr : (Collection<GKSchemaAttribute>) ((GKSchemaClass) inst.getSchemClass()).getDefiningAttributes()) {
+            describedAttributes.add(definingAttr.getName());
+        }
+        describedAttributes.addAll(COPIED_ATTRIBUTES);
+        for (String attribute : describedAttributes) {
+            if (!inst.getSchemClass().isValidAttribute(attribute)) {
+                continue;
+            }
+            description.append("|").append(attribute).append("=");
+            for (Object value : (Collection<Object>) inst.getAttributeValuesList(attribute)) {
+                description.append(value instanceof GKInstance ? "#" + ((GKInstance) value).getDBID() : value.toString()).append(",");
+            }
+        }
+        if (inst.getSchemClass().isa(ReferenceGeneProduct)) {
+            description.append(describeHomologues((String) inst.getAttributeValue(identifier)));
+        }
+        digest.update(description.append("\n").toString().getBytes());
+
+        for (String attribute : FOLLOWED_ATTRIBUTES) {
+            if (inst.getSchemClass().isValidAttribute(attribute)) {
+                for (GKInstance followedInst : (Collection<GKInstance>) inst.getAttributeValuesList(attribute)) {
+                    addToFingerprint(followedInst, digest, seenDbIds);
+                }
+            }
+        }
+    }
+
+    // Describes the homologues of the protein, along with the genes and gene names that are used when inferring their EWAS instances
+    private String describeHomologues(String proteinId) {
+        String[] homologues = homologueMappings.get(proteinId);
+        if (homologues == null) {
+            return "|homologues=none";
+        }
+        List<String> sortedHomologues = new ArrayList<>(Arrays.asList(homologues));
+        sortedHomologues.sort(null);
+        StringBuilder homologueDescription = new StringBuilder("|homologues=");
+        for (String homologue : sortedHomologues) {
+            String homologueId = homologue.contains(":") ? homologue.split(":")[1] : homologue;
+            homologueDescription.append(homologue).append(ensgMappings.get(homologueId)).append(geneNameMappings.get(homologueId)).append(",");
+        }
+        return homologueDescription.toString();
+    }
+}
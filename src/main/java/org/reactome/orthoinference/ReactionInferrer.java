@@ -1,11 +1,8 @@
 package org.reactome.orthoinference;
 
-import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -25,116 +22,258 @@ public class ReactionInferrer {
 	private static String inferredFilehandle;
 	private static GKInstance summationInst;
 	private static GKInstance evidenceTypeInst;
-	private static Map<GKInstance, GKInstance> inferredCatalyst = new HashMap<>();
-	private static Map<GKInstance, GKInstance> inferredEvent = new HashMap<>();
+	private static Map<GKInstance, GKInstance> inferredCatalyst = new InferredInstanceCache("inferredCatalyst");
+	private static Map<GKInstance, GKInstance> inferredEvent = new InferredInstanceCache("inferredEvent");
 	private static Integer eligibleCount = 0;
 	private static Integer inferredCount = 0;
 	private static List<GKInstance> inferrableHumanEvents = new ArrayList<>();
+	private static long slowReactionThreshold = 0;
+	// The stage at which the current RlE's inference was terminated, for the RlE trace
+	private static String failedStage;
+	// The current RlE's outcome, which is only counted and written to the eligible/inferred files once the RlE is completed
+	private static boolean pendingEligible = false;
+	private static GKInstance pendingInfReactionInst;
 	
 	// Infers PhysicalEntity instances of input, output, catalyst activity, and regulations that are associated with incoming reactionInst.
-	public static void inferReaction(GKInstance reactionInst) throws Exception
+	// The skip checks and protein counts have already been made by the ReactionPipeline's filter stage (see ReactionFilterResult).
+	public static void inferReaction(GKInstance reactionInst, ReactionFilterResult filterResult) throws Exception
 	{
+		InferenceEvents.ReactionInferenceEvent reactionEvent = new InferenceEvents.ReactionInferenceEvent();
+		InferenceEvents.SlowReactionEvent slowReactionEvent = new InferenceEvents.SlowReactionEvent();
+		reactionEvent.begin();
+		slowReactionEvent.begin();
+		long startTime = System.currentTimeMillis();
+		long entityInferenceCountBefore = OrthologousEntityGenerator.getEntityInferenceCount();
+		long cachedEntityCountBefore = OrthologousEntityGenerator.getCachedEntityCount();
+		clearPendingOutcome();
 		// Checks if an instance's inference should be skipped, based on a variety of factors such as a manual skip list, if it's chimeric, etc.
-		if (SkipInstanceChecker.checkIfInstanceShouldBeSkipped(reactionInst))
+		if (filterResult.isSkipped())
 		{
+			ReactionTrace.setOutcome(ReactionTrace.SKIPPED, "skipReasons", SkipInstanceChecker.describeSkipReasons(filterResult.getSkipReasons()));
+			SpeciesReport.recordSkip(filterResult.getSkipReasons());
+			reactionEvent.commitFor(reactionInst, false);
 			return;
 		}
-		logger.info("Passed skip tests, RlE eligible for inference");
-		// HashMaps are used to prevent redundant inferences.
-		if (inferredEvent.get(reactionInst) == null)
+		logger.debug("Passed skip tests, RlE eligible for inference");
+		// Caches are used to prevent redundant inferences.
+		boolean alreadyInferred = inferredEvent.containsKey(reactionInst);
+		String outcome = "already inferred";
+		ReactionTrace.setProteinCounts(filterResult.getProteinCounts());
+		ReactionTrace.setOutcome(ReactionTrace.ALREADY_INFERRED, null, null);
+		if (!alreadyInferred)
 		{
-			///// The beginning of an inference process:
-			// Creates inferred instance of reaction.
-			GKInstance infReactionInst = InstanceUtilities.createNewInferredGKInstance(reactionInst);
-			infReactionInst.addAttributeValue(name, reactionInst.getAttributeValuesList(name));
-			infReactionInst.addAttributeValue(goBiologicalProcess, reactionInst.getAttributeValue(goBiologicalProcess));
-			infReactionInst.addAttributeValue(summation, summationInst);
-			infReactionInst.addAttributeValue(evidenceType, evidenceTypeInst);
-			infReactionInst.addAttributeValue(_displayName, reactionInst.getAttributeValue(_displayName));
+			failedStage = null;
+			// Everything written during the inference is held in the ReactionWriteBuffer, and is only committed once the inferred RlE
+			// has been stored. Inferences that fail part way through leave no orphaned instances behind, in the DB or in the caches.
+			GKInstance infReactionInst = null;
+			ReactionWriteBuffer.begin();
+			try {
+				infReactionInst = createInferredReaction(reactionInst, filterResult.getProteinCounts());
+			} catch (Exception e) {
+				// A failed rollback is attached to the inference's exception, so that the inference's failure is the one reported
+				try {
+					ReactionWriteBuffer.rollback();
+				} catch (Exception rollbackException) {
+					e.addSuppressed(rollbackException);
+				}
+				throw e;
+			}
+			if (infReactionInst != null)
+			{
+				ReactionWriteBuffer.commit();
+			} else {
+				ReactionWriteBuffer.rollback();
+			}
+			if (infReactionInst != null)
+			{
+				inferredEvent.put(reactionInst, infReactionInst);
+				// After successfully adding a new inferred instance to the DB, it is recorded in the 'inferred reactions' file once the RlE is completed
+				pendingInfReactionInst = infReactionInst;
+			}
+			outcome = infReactionInst != null ? "inferred as " + infReactionInst.getDBID() : "not inferred";
+			if (infReactionInst != null)
+			{
+				ReactionTrace.setOutcome(ReactionTrace.INFERRED, "inferredDbId", infReactionInst.getDBID());
+			} else {
+				ReactionTrace.setOutcome(ReactionTrace.FAILED, "failedStage", failedStage);
+			}
+		}
+		// One summary line per RlE; the steps of its inference are logged at debug level
+		logger.info("RlE {} {} in {} ms ({} PE inference(s), {} cached)", reactionInst, outcome, System.currentTimeMillis() - startTime,
+				OrthologousEntityGenerator.getEntityInferenceCount() - entityInferenceCountBefore, OrthologousEntityGenerator.getCachedEntityCount() - cachedEntityCountBefore);
+		reactionEvent.commitFor(reactionInst, alreadyInferred);
+		if (slowReactionThreshold > 0 && System.currentTimeMillis() - startTime >= slowReactionThreshold)
+		{
+			slowReactionEvent.setThreshold(slowReactionThreshold);
+			slowReactionEvent.commitFor(reactionInst, alreadyInferred);
+		}
+	}
 
-			// This function finds the total number of distinct proteins associated with an instance, as well as the number that can be inferred.
-			// Total proteins are stored in reactionProteinCounts[0], inferrable proteins in [1], and the maximum number of homologues for any entity involved in index [2].
-			// Reactions with no proteins/EWAS (Total = 0) are not inferred.
-			List<Integer> reactionProteinCounts = ProteinCountUtility.getDistinctProteinCounts(reactionInst);
-			int reactionTotalProteinCounts = reactionProteinCounts.get(0);
-			if (reactionTotalProteinCounts > 0) 
+	// Counts the completed RlE as eligible and/or inferred, and writes it to the eligible/inferred files. Called when the
+	// checkpoint is advanced, so that an RlE whose inference failed with an exception is never counted before it is resumed.
+	public static void recordCompletedReaction(GKInstance reactionInst) throws Exception
+	{
+		if (pendingEligible)
+		{
+			eligibleCount++;
+			ReactionReporter.append(eligibleFilehandle, reactionInst.getAttributeValue(DB_ID).toString() + "\t" + reactionInst.getDisplayName() + "\n");
+		}
+		if (pendingInfReactionInst != null)
+		{
+			inferredCount++;
+			inferrableHumanEvents.add(reactionInst);
+			ReactionReporter.append(inferredFilehandle, pendingInfReactionInst.getAttributeValue(DB_ID).toString() + "\t" + pendingInfReactionInst.getDisplayName() + "\n");
+		}
+		clearPendingOutcome();
+	}
+
+	// An RlE that was inferred by this run after its last checkpoint, before it was interrupted, is counted again on resume
+	public static void addResumedInference(GKInstance reactionInst, GKInstance infReactionInst)
+	{
+		inferredEvent.put(reactionInst, infReactionInst);
+		pendingEligible = true;
+		pendingInfReactionInst = infReactionInst;
+	}
+
+	private static void clearPendingOutcome()
+	{
+		pendingEligible = false;
+		pendingInfReactionInst = null;
+	}
+
+	// Attempts the inference of the RlE's PhysicalEntities, returning the stored inferred RlE or null if any required attribute could not be inferred.
+	private static GKInstance createInferredReaction(GKInstance reactionInst, List<Integer> reactionProteinCounts) throws Exception
+	{
+		///// The beginning of an inference process:
+		// Creates inferred instance of reaction.
+		GKInstance infReactionInst = InstanceUtilities.createNewInferredGKInstance(reactionInst);
+		infReactionInst.addAttributeValue(name, reactionInst.getAttributeValuesList(name));
+		infReactionInst.addAttributeValue(goBiologicalProcess, reactionInst.getAttributeValue(goBiologicalProcess));
+		infReactionInst.addAttributeValue(summation, summationInst);
+		infReactionInst.addAttributeValue(evidenceType, evidenceTypeInst);
+		infReactionInst.addAttributeValue(_displayName, reactionInst.getAttributeValue(_displayName));
+
+		// This function finds the total number of distinct proteins associated with an instance, as well as the number that can be inferred.
+		// Total proteins are stored in reactionProteinCounts[0], inferrable proteins in [1], and the maximum number of homologues for any entity involved in index [2].
+		// Reactions with no proteins/EWAS (Total = 0) are not inferred.
+		int reactionTotalProteinCounts = reactionProteinCounts.get(0);
+		if (reactionTotalProteinCounts > 0) 
+		{
+			logger.debug("Total protein count for RlE: {}", reactionTotalProteinCounts);
+			// Having passed all tests/filters until now, the reaction is recorded in the 'eligible reactions' file once the RlE is completed, meaning inference is continued.
+			pendingEligible = true;
+			List<GKInstance> inferredRegulations = null;
+			// In incremental mode, RlEs that haven't changed since the previous release reuse that release's inference outcome.
+			// Anything other than an inference, or a failure that would happen again, is inferred in full.
+			if (IncrementalInferrer.isEnabled() && IncrementalInferrer.isUnchangedSincePreviousRelease(reactionInst))
 			{
-				logger.info("Total protein count for RlE: " + reactionTotalProteinCounts);
-				String eligibleEventName = reactionInst.getAttributeValue(DB_ID).toString() + "\t" + reactionInst.getDisplayName() + "\n";	
-				// Having passed all tests/filters until now, the reaction is recorded in the 'eligible reactions' file, meaning inference is continued.
-				eligibleCount++;
-				Files.write(Paths.get(eligibleFilehandle), eligibleEventName.getBytes(), StandardOpenOption.APPEND);
-				// Attempt to infer all PhysicalEntities associated with this reaction's Input, Output, CatalystActivity and RegulatedBy attributes.
-				// Failure to successfully infer any of these attributes will end inference for this reaction.
-				logger.info("Inferring inputs...");
-				if (inferReactionInputsOrOutputs(reactionInst, infReactionInst, input))
+				GKInstance previousInfReactionInst = IncrementalInferrer.getPreviousInferredReaction(reactionInst);
+				String previousFailedStage = IncrementalInferrer.getPreviousFailedStage(reactionInst);
+				if (previousInfReactionInst != null)
 				{
-					logger.info("Inferring outputs...");
-					if (inferReactionInputsOrOutputs(reactionInst, infReactionInst, output))
+					inferredRegulations = InferredEventCopier.copyInferredParticipants(previousInfReactionInst, infReactionInst);
+					if (inferredRegulations == null)
 					{
-						logger.info("Inferring catalysts...");
-						if (inferReactionCatalysts(reactionInst, infReactionInst))
-						{
-							// Many reactions are not regulated at all, meaning inference is attempted but will not end the process if there is nothing to infer. 
-							// The inference process will end though if inferRegulations returns an invalid value.
-							logger.info("Inferring regulations...");
-							List<GKInstance> inferredRegulations = inferReactionRegulations(reactionInst);
-							if (inferredRegulations.size() == 1 && inferredRegulations.get(0) == null)
-							{
-								return;
-							}
-							if (infReactionInst.getSchemClass().isValidAttribute(releaseDate)) 
-							{
-								infReactionInst.addAttributeValue(releaseDate, dateOfRelease);
-							}
-							// FetchIdenticalInstances would just return the instance being inferred. Since this step is meant to always
-							// add a new inferred instance, the storeInstance method is just called here.
-							GKInstance orthoStableIdentifierInst = EventsInferrer.getStableIdentifierGenerator().generateOrthologousStableId(infReactionInst, reactionInst);
-							infReactionInst.addAttributeValue(stableIdentifier, orthoStableIdentifierInst);
-							dba.storeInstance(infReactionInst);
-							logger.info("Inferred RlE instance: " + infReactionInst);
+						logger.info("Unable to copy previous release's inference forward -- inferring {}", reactionInst);
+					}
+				} else if (previousFailedStage != null)
+				{
+					logger.info("RlE unchanged since previous release, where its {} inference failed -- terminating inference for {}", previousFailedStage, reactionInst);
+					failedStage = previousFailedStage;
+					return null;
+				} else {
+					logger.info("RlE unchanged since previous release, where it was not inferred or attempted -- inferring {}", reactionInst);
+				}
+			}
+			if (inferredRegulations == null)
+			{
+				inferredRegulations = inferReactionParticipants(reactionInst, infReactionInst);
+				if (inferredRegulations == null)
+				{
+					return null;
+				}
+			}
+			if (infReactionInst.getSchemClass().isValidAttribute(releaseDate)) 
+			{
+				infReactionInst.addAttributeValue(releaseDate, dateOfRelease);
+			}
+			// FetchIdenticalInstances would just return the instance being inferred. Since this step is meant to always
+			// add a new inferred instance, the storeInstance method is just called here.
+			GKInstance orthoStableIdentifierInst = EventsInferrer.getStableIdentifierGenerator().generateOrthologousStableId(infReactionInst, reactionInst);
+			infReactionInst.addAttributeValue(stableIdentifier, orthoStableIdentifierInst);
+			long startTime = InferenceMetrics.start(InferenceMetrics.DB_WRITE);
+			dba.storeInstance(infReactionInst);
+			InferenceMetrics.record(InferenceMetrics.DB_WRITE, startTime);
+			ReactionWriteBuffer.recordStoredInstance(infReactionInst);
+			logger.debug("Inferred RlE instance: {}", infReactionInst);
 
-							if (infReactionInst.getSchemClass().isValidAttribute(inferredFrom))
-							{
-								infReactionInst = InstanceUtilities.addAttributeValueIfNecessary(infReactionInst, reactionInst, inferredFrom);
-								dba.updateInstanceAttribute(infReactionInst, inferredFrom);
-							}
-							infReactionInst = InstanceUtilities.addAttributeValueIfNecessary(infReactionInst, reactionInst, orthologousEvent);
-							dba.updateInstanceAttribute(infReactionInst, orthologousEvent);
-							reactionInst.addAttributeValue(orthologousEvent, infReactionInst);
-							dba.updateInstanceAttribute(reactionInst, orthologousEvent);
-							
-							inferredEvent.put(reactionInst, infReactionInst);
-							
-							// Regulations instances require the DB to contain the inferred ReactionlikeEvent, so Regulations inference happens post-inference
-							if (inferredRegulations.size() > 0)
-							{
-								logger.info("Number of regulator(s) inferred: " + inferredRegulations.size());
-								for (GKInstance infRegulation : inferredRegulations)
-								{
-									infRegulation = InstanceUtilities.checkForIdenticalInstances(infRegulation, null);
-									infReactionInst.addAttributeValue("regulatedBy", infRegulation);
-									dba.updateInstanceAttribute(infReactionInst, "regulatedBy");
-								}
-							}
-							// After successfully adding a new inferred instance to the DB, it is recorded in the 'inferred reactions' file
-							inferredCount++;
-							inferrableHumanEvents.add(reactionInst);
-							String inferredEvent = infReactionInst.getAttributeValue(DB_ID).toString() + "\t" + infReactionInst.getDisplayName() + "\n";	
-							Files.write(Paths.get(inferredFilehandle), inferredEvent.getBytes(), StandardOpenOption.APPEND);
-						} else {
-							logger.info("Catalyst inference unsuccessful -- terminating inference for " + reactionInst);
-						}
-					} else {
-						logger.info("Output inference unsuccessful -- terminating inference for " + reactionInst);
+			if (infReactionInst.getSchemClass().isValidAttribute(inferredFrom))
+			{
+				infReactionInst = InstanceUtilities.addAttributeValueIfNecessary(infReactionInst, reactionInst, inferredFrom);
+				ReactionWriteBuffer.updateInstanceAttribute(infReactionInst, inferredFrom);
+			}
+			infReactionInst = InstanceUtilities.addAttributeValueIfNecessary(infReactionInst, reactionInst, orthologousEvent);
+			ReactionWriteBuffer.updateInstanceAttribute(infReactionInst, orthologousEvent);
+			ReactionWriteBuffer.snapshotAttribute(reactionInst, orthologousEvent);
+			reactionInst.addAttributeValue(orthologousEvent, infReactionInst);
+			ReactionWriteBuffer.updateInstanceAttribute(reactionInst, orthologousEvent);
+
+			// Regulations instances require the DB to contain the inferred ReactionlikeEvent, so Regulations inference happens post-inference
+			if (inferredRegulations.size() > 0)
+			{
+				logger.debug("Number of regulator(s) inferred: {}", inferredRegulations.size());
+				for (GKInstance infRegulation : inferredRegulations)
+				{
+					infRegulation = InstanceUtilities.checkForIdenticalInstances(infRegulation, null);
+					infReactionInst.addAttributeValue("regulatedBy", infRegulation);
+				}
+				ReactionWriteBuffer.updateInstanceAttribute(infReactionInst, "regulatedBy");
+			}
+			return infReactionInst;
+		} else {
+			logger.info("No distinct proteins found in instance -- terminating inference for {}", reactionInst);
+			failedStage = "protein_count";
+		}
+		return null;
+	}
+
+	// Attempt to infer all PhysicalEntities associated with this reaction's Input, Output, CatalystActivity and RegulatedBy attributes.
+	// Failure to successfully infer any of these attributes will end inference for this reaction, returning null. Otherwise, the
+	// inferred Regulation instances are returned, since they can only be stored once the inferred RlE is in the DB.
+	private static List<GKInstance> inferReactionParticipants(GKInstance reactionInst, GKInstance infReactionInst) throws Exception
+	{
+		logger.debug("Inferring inputs...");
+		if (inferReactionInputsOrOutputs(reactionInst, infReactionInst, input))
+		{
+			logger.debug("Inferring outputs...");
+			if (inferReactionInputsOrOutputs(reactionInst, infReactionInst, output))
+			{
+				logger.debug("Inferring catalysts...");
+				if (inferReactionCatalysts(reactionInst, infReactionInst))
+				{
+					// Many reactions are not regulated at all, meaning inference is attempted but will not end the process if there is nothing to infer. 
+					// The inference process will end though if inferRegulations returns an invalid value.
+					logger.debug("Inferring regulations...");
+					List<GKInstance> inferredRegulations = inferReactionRegulations(reactionInst);
+					if (inferredRegulations.size() == 1 && inferredRegulations.get(0) == null)
+					{
+						failedStage = "regulation";
+						return null;
 					}
+					return inferredRegulations;
 				} else {
-					logger.info("Input inference unsuccessful -- terminating inference for " + reactionInst);
+					logger.info("Catalyst inference unsuccessful -- terminating inference for {}", reactionInst);
+					failedStage = "catalyst";
 				}
 			} else {
-				logger.info("No distinct proteins found in instance -- terminating inference for " + reactionInst);
+				logger.info("Output inference unsuccessful -- terminating inference for {}", reactionInst);
+				failedStage = "output";
 			}
+		} else {
+			logger.info("Input inference unsuccessful -- terminating inference for {}", reactionInst);
+			failedStage = "input";
 		}
+		return null;
 	}
 	
 	// Function used to create inferred PhysicalEntities contained in the 'input' or 'output' attributes of the current reaction instance.
@@ -143,8 +282,8 @@ public class ReactionInferrer {
 	{
 		List<GKInstance> infAttributeInstances = new ArrayList<>();
 		Collection<GKInstance> attributeInstances = (Collection<GKInstance>) reactionInst.getAttributeValuesList(attribute);
-		logger.info("Total " + attribute + " instances: " + attributeInstances.size());
-		logger.info(attribute.substring(0,1).toUpperCase() + attribute.substring(1) + " instances: " + attributeInstances);
+		logger.debug("Total {} instances: {}", attribute, attributeInstances.size());
+		logger.debug("{} instances: {}", attribute, attributeInstances);
 		for (GKInstance attributeInst : attributeInstances)
 		{
 			GKInstance infAttributeInst = OrthologousEntityGenerator.createOrthoEntity(attributeInst, false);
@@ -155,7 +294,7 @@ public class ReactionInferrer {
 			infAttributeInstances.add(infAttributeInst);
 		}
 		infReactionInst.addAttributeValue(attribute, infAttributeInstances);
-		logger.info("Completed " + attribute + " inference");
+		logger.debug("Completed {} inference", attribute);
 		return true;
 	}
 	
@@ -165,22 +304,23 @@ public class ReactionInferrer {
 	private static boolean inferReactionCatalysts(GKInstance reactionInst, GKInstance infReactionInst) throws Exception
 	{
 		Collection<GKInstance> catalystInstances = (Collection<GKInstance>) reactionInst.getAttributeValuesList(catalystActivity);
-		logger.info("Total CatalystActivity instances: " + catalystInstances.size());
+		logger.debug("Total CatalystActivity instances: {}", catalystInstances.size());
 		if (catalystInstances.size() > 0) {
-			logger.info("Catalyst instance(s): " + catalystInstances);
+			logger.debug("Catalyst instance(s): {}", catalystInstances);
 		}
 		for (GKInstance catalystInst : catalystInstances)
 		{
-			logger.info("Attempting catalyst inference: " + catalystInst);
-			if (inferredCatalyst.get(catalystInst) == null)
+			logger.debug("Attempting catalyst inference: {}", catalystInst);
+			GKInstance infCatalystInst = inferredCatalyst.get(catalystInst);
+			if (infCatalystInst == null)
 			{
-				GKInstance infCatalystInst = InstanceUtilities.createNewInferredGKInstance(catalystInst);
+				infCatalystInst = InstanceUtilities.createNewInferredGKInstance(catalystInst);
 				infCatalystInst.setDbAdaptor(dba);
 				infCatalystInst.addAttributeValue(activity, catalystInst.getAttributeValue(activity));
 				GKInstance catalystPEInst = (GKInstance) catalystInst.getAttributeValue(physicalEntity);
 				if (catalystPEInst != null)
 				{
-					logger.info("Catalyst PE instance: " + catalystPEInst);
+					logger.debug("Catalyst PE instance: {}", catalystPEInst);
 					GKInstance infCatalystPEInst = OrthologousEntityGenerator.createOrthoEntity(catalystPEInst, false);
 					if (infCatalystPEInst != null)
 					{
@@ -192,11 +332,11 @@ public class ReactionInferrer {
 
 				List<GKInstance> activeUnits = new ArrayList<>();
 				Collection<GKInstance> activeUnitInstances = (Collection<GKInstance>) catalystInst.getAttributeValuesList(activeUnit);
-				logger.info("Total active unit instances: " + activeUnitInstances);
+				logger.debug("Total active unit instances: {}", activeUnitInstances);
 				if (activeUnitInstances.size() > 0) {
-					logger.info("Active unit instance(s): " + activeUnitInstances);
+					logger.debug("Active unit instance(s): {}", activeUnitInstances);
 					for (GKInstance activeUnitInst : activeUnitInstances) {
-						logger.info("Active Unit instance: " + activeUnitInst);
+						logger.debug("Active Unit instance: {}", activeUnitInst);
 						GKInstance infActiveUnitInst = OrthologousEntityGenerator.createOrthoEntity(activeUnitInst, false);
 						if (infActiveUnitInst != null) {
 							activeUnits.add(infActiveUnitInst);
@@ -207,12 +347,13 @@ public class ReactionInferrer {
 				infCatalystInst.addAttributeValue(_displayName, catalystInst.getAttributeValue(_displayName));
 				infCatalystInst = InstanceUtilities.checkForIdenticalInstances(infCatalystInst, null);
 				inferredCatalyst.put(catalystInst, infCatalystInst);
+				ReactionWriteBuffer.registerCacheEntry(inferredCatalyst, catalystInst);
 			} else {
-				logger.info("Inferred catalyst already exists");
+				logger.debug("Inferred catalyst already exists");
 			}
-			infReactionInst.addAttributeValue(catalystActivity, inferredCatalyst.get(catalystInst));
+			infReactionInst.addAttributeValue(catalystActivity, infCatalystInst);
 		}
-		logger.info("Completed catalyst inference");
+		logger.debug("Completed catalyst inference");
 		return true;
 	}
 	
@@ -222,28 +363,28 @@ public class ReactionInferrer {
 	{
 		List<GKInstance> inferredRegulations = new ArrayList<>();
 		Collection<GKInstance> regulationInstances = (Collection<GKInstance>) reactionInst.getAttributeValuesList("regulatedBy");
-		logger.info("Total RegulatedBy instances: " + regulationInstances.size());
+		logger.debug("Total RegulatedBy instances: {}", regulationInstances.size());
 		if (regulationInstances.size() > 0) {
-			logger.info("Regulation instances: " + regulationInstances);
+			logger.debug("Regulation instances: {}", regulationInstances);
 			for (GKInstance regulationInst : regulationInstances) {
-				logger.info("Attempting Regulation inference: " + regulationInst);
+				logger.debug("Attempting Regulation inference: {}", regulationInst);
 				GKInstance regulatorInst = (GKInstance) regulationInst.getAttributeValue(regulator);
-				logger.info("Regulator: " + regulatorInst);
+				logger.debug("Regulator: {}", regulatorInst);
 				GKInstance infRegulatorInst = null;
 				if (regulatorInst.getSchemClass().isa(PhysicalEntity)) {
 					infRegulatorInst = OrthologousEntityGenerator.createOrthoEntity(regulatorInst, false);
 				} else if (regulatorInst.getSchemClass().isa(CatalystActivity)) {
 					// This has never happened since running the new orthoinference (JCook 2019)
-					logger.warn(regulatorInst + " is a CatalystActivity, which is unexpected -- refer to infer_events.pl");
+					logger.warn("{} is a CatalystActivity, which is unexpected -- refer to infer_events.pl", regulatorInst);
 					System.exit(0);
 				} else if (regulatorInst.getSchemClass().isa(Event)) {
 					// This has never happened since running the new orthoinference (JCook 2019)
-					logger.warn(regulatorInst + " is an Event, which is unexpected -- refer to infer_events.pl");
+					logger.warn("{} is an Event, which is unexpected -- refer to infer_events.pl", regulatorInst);
 					System.exit(0);
 				}
 				if (infRegulatorInst == null) {
 					if (regulationInst.getSchemClass().isa(Requirement)) {
-						logger.info("Regulation is a 'Requirement' and regulation inference was unsuccessful -- terminating inference for " + reactionInst);
+						logger.info("Regulation is a 'Requirement' and regulation inference was unsuccessful -- terminating inference for {}", reactionInst);
 						inferredRegulations.clear();
 						GKInstance nullInst = null;
 						inferredRegulations.add(nullInst);
@@ -257,7 +398,7 @@ public class ReactionInferrer {
 				infRegulationInst.addAttributeValue(regulator, infRegulatorInst);
 				infRegulationInst.addAttributeValue(_displayName, regulationInst.getAttributeValue(_displayName));
 				inferredRegulations.add(infRegulationInst);
-				logger.info("Completed regulator inference");
+				logger.debug("Completed regulator inference");
 			}
 		}
 		return inferredRegulations;
@@ -298,6 +439,15 @@ public class ReactionInferrer {
 		return inferredEvent;
 	}
 	
+	// Identity caches that are saved to, and restored from, checkpoints
+	public static Map<String, Map<GKInstance, GKInstance>> getInstanceKeyedCaches()
+	{
+		Map<String, Map<GKInstance, GKInstance>> instanceKeyedCaches = new LinkedHashMap<>();
+		instanceKeyedCaches.put("inferredCatalyst", inferredCatalyst);
+		instanceKeyedCaches.put("inferredEvent", inferredEvent);
+		return instanceKeyedCaches;
+	}
+
 	public static List<GKInstance> getInferrableHumanEvents()
 	{
 		return inferrableHumanEvents;
@@ -313,6 +463,21 @@ public class ReactionInferrer {
 		return inferredCount;
 	}
 
+	public static void setSlowReactionThreshold(long slowReactionThresholdCopy)
+	{
+		slowReactionThreshold = slowReactionThresholdCopy;
+	}
+
+	public static void setEligibleCount(int eligibleCountCopy)
+	{
+		eligibleCount = eligibleCountCopy;
+	}
+
+	public static void setInferredCount(int inferredCountCopy)
+	{
+		inferredCount = inferredCountCopy;
+	}
+
 	public static void addAlreadyInferredEvents(GKInstance reactionInst, GKInstance previouslyInferredReactionInst) {
 		inferredEvent.put(reactionInst, previouslyInferredReactionInst);
 		inferrableHumanEvents.add(reactionInst);
@@ -0,0 +1,136 @@
+package org.reactome.orthoinference;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.gk.model.GKInstance;
+import org.gk.persistence.MySQLAdaptor;
+
+/**
+ * Streams a species' ReactionlikeEvents in DB ID order, a page at a time, instead of loading them all with fetchInstanceByAttribute.
+ * Pages are read with keyset pagination (DB_ID > last DB ID seen, ordered by DB_ID, limited to 'reactionPageSize' rows), so each query
+ * is a short index range scan however far into the RlEs the run is. When the RlE loop reaches the first RlE of a page, the page's
+ * pending RlEs are created together and their attribute values are loaded in bulk. The previous page is released at the same time,
+ * so only one page of RlEs is held at once (the adaptor's own cache keeps them until it is evicted, see AdaptorCacheManager).
+ *
+ * The DB IDs themselves are still collected up front, as checkpoint/shard filtering, the skip pre-pass and the pipeline's read-ahead
+ * all walk the same ordered list.
+ */
+public class ReactionPageSource {
+
+	private static final Logger logger = LogManager.getLogger();
+	private static final String PAGE_QUERY = "SELECT DISTINCT e.DB_ID, d._class FROM Event_2_species e"
+			+ " JOIN ReactionlikeEvent r ON r.DB_ID = e.DB_ID JOIN DatabaseObject d ON d.DB_ID = e.DB_ID"
+			+ " WHERE e.species = ? AND e.DB_ID > ? ORDER BY e.DB_ID LIMIT ?";
+	private final MySQLAdaptor dba;
+	private final long speciesDbId;
+	private final int pageSize;
+	private final Map<Long, GKInstance> currentPage = new LinkedHashMap<>();
+	private Set<Long> pendingDbIds;
+	private int pagesLoaded = 0;
+
+	public ReactionPageSource(MySQLAdaptor dba, long speciesDbId, int pageSize)
+	{
+		this.dba = dba;
+		this.speciesDbId = speciesDbId;
+		this.pageSize = pageSize;
+	}
+
+	// Pages through the DB IDs of all the species' RlEs, in order
+	public List<Long> fetchDbIds() throws Exception
+	{
+		List<Long> dbIds = new ArrayList<>();
+		long lastDbId = 0;
+		Map<Long, String> page;
+		while (!(page = fetchPage(lastDbId)).isEmpty())
+		{
+			dbIds.addAll(page.keySet());
+			lastDbId = dbIds.get(dbIds.size() - 1);
+		}
+		return dbIds;
+	}
+
+	// Only RlEs that are still to be inferred are loaded when their page is reached
+	public void setPendingDbIds(Collection<Long> pendingDbIdsCopy)
+	{
+		pendingDbIds = new HashSet<>(pendingDbIdsCopy);
+	}
+
+	// Returns the RlE, loading the page that starts with it if it isn't in the current page. RlEs must be requested in DB ID order.
+	public GKInstance getReaction(Long dbId) throws Exception
+	{
+		if (!currentPage.containsKey(dbId))
+		{
+			loadPage(dbId);
+		}
+		GKInstance reactionInst = currentPage.get(dbId);
+		if (reactionInst == null)
+		{
+			// The RlE was removed (or lost its species) after the DB IDs were collected
+			logger.warn("RlE " + dbId + " was not found in its page, fetching it on its own");
+			reactionInst = dba.fetchInstance(dbId);
+		}
+		return reactionInst;
+	}
+
+	// The RlEs of the current page, which are pinned for adaptor cache evictions
+	public Map<Long, GKInstance> getCurrentPage()
+	{
+		return currentPage;
+	}
+
+	public int getPagesLoaded()
+	{
+		return pagesLoaded;
+	}
+
+	private void loadPage(Long firstDbId) throws Exception
+	{
+		currentPage.clear();
+		List<GKInstance> pageInstances = new ArrayList<>();
+		for (Map.Entry<Long, String> pageEntry : fetchPage(firstDbId - 1).entrySet())
+		{
+			if (pendingDbIds == null || pendingDbIds.contains(pageEntry.getKey()))
+			{
+				GKInstance reactionInst = dba.fetchInstance(pageEntry.getValue(), pageEntry.getKey());
+				currentPage.put(pageEntry.getKey(), reactionInst);
+				pageInstances.add(reactionInst);
+			}
+		}
+		if (!pageInstances.isEmpty())
+		{
+			dba.loadInstanceAttributeValues(pageInstances);
+		}
+		pagesLoaded++;
+		logger.debug("Loaded page " + pagesLoaded + " of " + pageInstances.size() + " RlE(s) starting at " + firstDbId);
+	}
+
+	// Returns the class of each of the next 'pageSize' RlEs after the given DB ID, in DB ID order
+	private Map<Long, String> fetchPage(long afterDbId) throws Exception
+	{
+		Map<Long, String> page = new LinkedHashMap<>();
+		try (PreparedStatement pageStatement = dba.getConnection().prepareStatement(PAGE_QUERY))
+		{
+			pageStatement.setLong(1, speciesDbId);
+			pageStatement.setLong(2, afterDbId);
+			pageStatement.setInt(3, pageSize);
+			try (ResultSet pageResults = pageStatement.executeQuery())
+			{
+				while (pageResults.next())
+				{
+					page.put(pageResults.getLong(1), pageResults.getString(2));
+				}
+			}
+		}
+		return page;
+	}
+}
@@ -0,0 +1,155 @@
+package org.reactome.orthoinference;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.gk.model.GKInstance;
+import org.gk.persistence.MySQLAdaptor;
+
+/**
+ * Feeds the ReactionlikeEvent loop in EventsInferrer through a staged pipeline connected by bounded queues:
+ *
+ *  source -> filter (pipelineFilterThreads) -> inference and persistence (1 thread) -> reporting (1 thread, see ReactionReporter)
+ *
+ * The source submits each RlE DB ID to the filter stage in order. Filter workers load the RlE through their own read-only
+ * MySQLAdaptor (adaptors aren't thread-safe) and compute its ReactionFilterResult, so the DB reads and CPU work of the skip checks
+ * and protein counts overlap with the inference of earlier RlEs. Results are queued in source order, and the source blocks once
+ * 'pipelineQueueSize' RlEs are waiting, which keeps memory bounded when inference is the slower stage. RlEs that already have an
+ * inference for the species aren't filtered, since the inference thread doesn't use their results (see skip()).
+ *
+ * Entity inference and persistence stay in a single thread: identity checks need every earlier instance to have been stored,
+ * and stable identifier paralog numbering depends on RlEs being inferred in DB ID order.
+ * With pipelineFilterThreads set to 0, results are computed in the inference thread when they are needed, as before.
+ */
+public class ReactionPipeline {
+
+	private static final Logger logger = LogManager.getLogger();
+	private final List<Long> reactionDbIds;
+	private final int filterThreads;
+	private final BlockingQueue<Future<ReactionFilterResult>> filteredReactions;
+	private final Callable<MySQLAdaptor> filterAdaptorFactory;
+	private final List<MySQLAdaptor> filterAdaptors = Collections.synchronizedList(new ArrayList<>());
+	private final ThreadLocal<MySQLAdaptor> filterAdaptor = new ThreadLocal<>();
+	private final ThreadLocal<Long> filterAdaptorEvictionCount = ThreadLocal.withInitial(() -> 0L);
+	private ExecutorService filterExecutor;
+	private Thread sourceThread;
+	private int nextIndex = 0;
+
+	public ReactionPipeline(List<Long> reactionDbIds, int filterThreads, int queueSize, Callable<MySQLAdaptor> filterAdaptorFactory)
+	{
+		this.reactionDbIds = reactionDbIds;
+		this.filterThreads = filterThreads;
+		this.filteredReactions = new ArrayBlockingQueue<>(Math.max(queueSize, 1));
+		this.filterAdaptorFactory = filterAdaptorFactory;
+	}
+
+	public void start()
+	{
+		if (filterThreads <= 0)
+		{
+			return;
+		}
+		logger.info("Starting RlE pipeline with " + filterThreads + " filter thread(s)");
+		filterExecutor = Executors.newFixedThreadPool(filterThreads);
+		sourceThread = new Thread(() -> {
+			try {
+				for (Long reactionDbId : reactionDbIds)
+				{
+					filteredReactions.put(filterExecutor.submit(() -> filter(reactionDbId)));
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}, "rle-pipeline-source");
+		sourceThread.setDaemon(true);
+		sourceThread.start();
+	}
+
+	// Returns the filter result of the next RlE, in the order the DB IDs were given
+	public ReactionFilterResult next(GKInstance reactionInst) throws Exception
+	{
+		if (filterThreads <= 0)
+		{
+			return ReactionFilterResult.compute(reactionInst);
+		}
+		ReactionFilterResult filterResult;
+		try {
+			filterResult = take(reactionInst).get();
+		} catch (ExecutionException e) {
+			throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+		}
+		// The filter stage found an inference that the inference thread didn't, so the checks weren't run
+		if (filterResult.isPreviouslyInferred())
+		{
+			return ReactionFilterResult.compute(reactionInst);
+		}
+		return filterResult;
+	}
+
+	// Discards the filter result of the next RlE, which the inference thread found to have been inferred already
+	public void skip(GKInstance reactionInst) throws Exception
+	{
+		if (filterThreads > 0)
+		{
+			take(reactionInst);
+		}
+	}
+
+	private Future<ReactionFilterResult> take(GKInstance reactionInst) throws Exception
+	{
+		Long reactionDbId = reactionInst.getDBID();
+		Future<ReactionFilterResult> filteredReaction = filteredReactions.take();
+		Long filteredReactionDbId = reactionDbIds.get(nextIndex++);
+		if (!filteredReactionDbId.equals(reactionDbId))
+		{
+			throw new IllegalStateException("RlE pipeline out of order -- expected " + reactionDbId + " but got " + filteredReactionDbId);
+		}
+		return filteredReaction;
+	}
+
+	public void close()
+	{
+		if (filterExecutor == null)
+		{
+			return;
+		}
+		sourceThread.interrupt();
+		filterExecutor.shutdownNow();
+		for (MySQLAdaptor adaptor : filterAdaptors)
+		{
+			try {
+				adaptor.cleanUp();
+			} catch (Exception e) {
+				logger.warn("Unable to close RlE pipeline DB adaptor", e);
+			}
+		}
+	}
+
+	private ReactionFilterResult filter(Long reactionDbId) throws Exception
+	{
+		if (filterAdaptor.get() == null)
+		{
+			MySQLAdaptor adaptor = filterAdaptorFactory.call();
+			filterAdaptors.add(adaptor);
+			filterAdaptor.set(adaptor);
+		}
+		SqlProfiler.setCurrentReaction(reactionDbId);
+		filterAdaptorEvictionCount.set(AdaptorCacheManager.refreshIfEvicted(filterAdaptor.get(), filterAdaptorEvictionCount.get()));
+		GKInstance reactionInst = filterAdaptor.get().fetchInstance(reactionDbId);
+		if (EventsInferrer.isPreviouslyInferred(reactionInst))
+		{
+			return ReactionFilterResult.previouslyInferred(reactionDbId);
+		}
+		return ReactionFilterResult.compute(reactionInst);
+	}
+}
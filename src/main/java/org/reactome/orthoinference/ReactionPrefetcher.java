@@ -0,0 +1,288 @@
+package org.reactome.orthoinference;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.gk.model.GKInstance;
+import static org.gk.model.ReactomeJavaConstants.*;
+import org.gk.persistence.MySQLAdaptor;
+import org.gk.schema.SchemaAttribute;
+
+/**
+ * Reads ahead of the RlE loop: while an RlE is being inferred, a background thread walks the participant graphs of the next
+ * 'prefetchWindow' RlEs through its own read-only MySQLAdaptor, loading the attribute values of each level of the walk with one
+ * bulk query per class. The values of every instance the inference will read, including the RlE's existing inferences found
+ * through orthologousEvent/inferredFrom, are copied into a snapshot that doesn't reference the prefetch adaptor's instances.
+ * When the loop reaches one of those RlEs, the snapshot is copied into the main adaptor's instances that haven't been loaded yet,
+ * without any DB queries, except for the inferredTo/orthologousEvent back-links. Those are written by the inferences of earlier
+ * RlEs, possibly after the snapshot was taken, so they are still read through the main adaptor, with one query per class.
+ */
+public class ReactionPrefetcher {
+
+	private static final Logger logger = LogManager.getLogger();
+	// Attributes followed from an RlE to reach the instances read by its inference
+	private static final List<String> FOLLOWED_ATTRIBUTES = Arrays.asList(input, output, catalystActivity, "regulatedBy", physicalEntity, activeUnit,
+			regulator, hasComponent, hasMember, hasCandidate, repeatedUnit, referenceEntity, hasModifiedResidue, modification, psiMod, compartment);
+	// Attributes followed from the RlE only, to its existing inferences, whose own participants aren't read
+	private static final List<String> INFERENCE_ATTRIBUTES = Arrays.asList(orthologousEvent, inferredFrom);
+	// Attributes written by the inference of earlier RlEs, which are read through the main adaptor
+	private static final String[] BACK_LINK_ATTRIBUTES = {inferredTo, orthologousEvent};
+	private final List<Long> reactionDbIds;
+	private final int prefetchWindow;
+	private final Callable<MySQLAdaptor> prefetchAdaptorFactory;
+	private final BlockingQueue<PrefetchedReaction> prefetchedReactions;
+	private Thread prefetchThread;
+	private MySQLAdaptor prefetchAdaptor;
+	private long prefetchAdaptorEvictionCount = 0;
+	private int prefetchedCount = 0;
+	private int missedCount = 0;
+
+	public ReactionPrefetcher(List<Long> reactionDbIds, int prefetchWindow, Callable<MySQLAdaptor> prefetchAdaptorFactory)
+	{
+		this.reactionDbIds = reactionDbIds;
+		this.prefetchWindow = prefetchWindow;
+		this.prefetchAdaptorFactory = prefetchAdaptorFactory;
+		this.prefetchedReactions = new ArrayBlockingQueue<>(Math.max(prefetchWindow, 1));
+	}
+
+	public void start() throws Exception
+	{
+		if (prefetchWindow <= 0)
+		{
+			return;
+		}
+		logger.info("Prefetching up to " + prefetchWindow + " RlE(s) ahead");
+		prefetchAdaptor = prefetchAdaptorFactory.call();
+		prefetchThread = new Thread(() -> {
+			try {
+				for (Long reactionDbId : reactionDbIds)
+				{
+					// Blocks once 'prefetchWindow' RlEs are waiting to be loaded
+					prefetchedReactions.put(new PrefetchedReaction(reactionDbId, snapshotInstances(reactionDbId)));
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (Exception e) {
+				// Prefetching is only an optimization, so the RlEs are left to be loaded lazily as usual
+				logger.warn("Prefetching stopped", e);
+			}
+		}, "rle-prefetcher");
+		prefetchThread.setDaemon(true);
+		prefetchThread.start();
+	}
+
+	// Copies the RlE's prefetched instances into the main adaptor, if the prefetcher has reached it. Doesn't wait for the prefetcher.
+	public void loadPrefetched(Long reactionDbId, MySQLAdaptor dba) throws Exception
+	{
+		if (prefetchThread == null)
+		{
+			return;
+		}
+		PrefetchedReaction prefetchedReaction = prefetchedReactions.peek();
+		// Walks that finished after their RlE was reached are stale
+		while (prefetchedReaction != null && prefetchedReaction.reactionDbId < reactionDbId)
+		{
+			prefetchedReactions.poll();
+			prefetchedReaction = prefetchedReactions.peek();
+		}
+		if (prefetchedReaction == null || !prefetchedReaction.reactionDbId.equals(reactionDbId))
+		{
+			missedCount++;
+			return;
+		}
+		prefetchedReactions.poll();
+		Map<String, List<GKInstance>> copiedInstances = new HashMap<>();
+		for (InstanceSnapshot snapshot : prefetchedReaction.snapshots)
+		{
+			GKInstance inst = getMainInstance(snapshot.reference, dba);
+			// Instances the main adaptor has already loaded may have been changed by the inference since
+			if (inst.isInflated())
+			{
+				continue;
+			}
+			for (Map.Entry<String, List<Object>> attributeValues : snapshot.attributeValues.entrySet())
+			{
+				List<Object> values = new ArrayList<>();
+				for (Object value : attributeValues.getValue())
+				{
+					values.add(value instanceof InstanceReference ? getMainInstance((InstanceReference) value, dba) : value);
+				}
+				inst.setAttributeValueNoCheck(attributeValues.getKey(), values);
+			}
+			inst.setIsInflated(true);
+			copiedInstances.computeIfAbsent(snapshot.reference.className, k -> new ArrayList<>()).add(inst);
+		}
+		for (String backLinkAttribute : BACK_LINK_ATTRIBUTES)
+		{
+			for (List<GKInstance> classInstances : copiedInstances.values())
+			{
+				if (classInstances.get(0).getSchemClass().isValidAttribute(backLinkAttribute))
+				{
+					dba.loadInstanceAttributeValues(classInstances, new String[]{backLinkAttribute});
+				}
+			}
+		}
+		prefetchedCount++;
+	}
+
+	private static GKInstance getMainInstance(InstanceReference reference, MySQLAdaptor dba) throws Exception
+	{
+		GKInstance inst = dba.fetchInstance(reference.className, reference.dbId);
+		if (inst.getDisplayName() == null)
+		{
+			inst.setDisplayName(reference.displayName);
+		}
+		return inst;
+	}
+
+	public void close() throws Exception
+	{
+		if (prefetchThread == null)
+		{
+			return;
+		}
+		prefetchThread.interrupt();
+		prefetchThread.join();
+		prefetchAdaptor.cleanUp();
+		logger.info("Prefetched " + prefetchedCount + " RlE(s), " + missedCount + " RlE(s) were reached before their prefetch finished");
+	}
+
+	// Walks the RlE's followed attributes on the prefetch adaptor a level at a time, returning a snapshot of every instance reached
+	@SuppressWarnings("unchecked")
+	private List<InstanceSnapshot> snapshotInstances(Long reactionDbId) throws Exception
+	{
+		List<InstanceSnapshot> snapshots = new ArrayList<>();
+		Set<Long> seenDbIds = new HashSet<>();
+		Set<Long> inferenceDbIds = new HashSet<>();
+		SqlProfiler.setCurrentReaction(reactionDbId);
+		prefetchAdaptorEvictionCount = AdaptorCacheManager.refreshIfEvicted(prefetchAdaptor, prefetchAdaptorEvictionCount);
+		GKInstance reactionInst = prefetchAdaptor.fetchInstance(reactionDbId);
+		if (reactionInst == null)
+		{
+			return snapshots;
+		}
+		List<GKInstance> level = new ArrayList<>();
+		level.add(reactionInst);
+		seenDbIds.add(reactionDbId);
+		while (!level.isEmpty())
+		{
+			List<GKInstance> unloadedInstances = new ArrayList<>();
+			for (GKInstance inst : level)
+			{
+				if (!inst.isInflated())
+				{
+					unloadedInstances.add(inst);
+				}
+			}
+			if (!unloadedInstances.isEmpty())
+			{
+				prefetchAdaptor.loadInstanceAttributeValues(unloadedInstances);
+			}
+			List<GKInstance> nextLevel = new ArrayList<>();
+			for (GKInstance inst : level)
+			{
+				snapshots.add(new InstanceSnapshot(inst));
+				// The RlE's existing inferences are loaded, but their participants aren't walked
+				if (inferenceDbIds.contains(inst.getDBID()))
+				{
+					continue;
+				}
+				for (String attribute : FOLLOWED_ATTRIBUTES)
+				{
+					addUnseenValues(inst, attribute, nextLevel, seenDbIds);
+				}
+				if (inst == reactionInst)
+				{
+					for (String attribute : INFERENCE_ATTRIBUTES)
+					{
+						for (GKInstance inferenceInst : addUnseenValues(inst, attribute, nextLevel, seenDbIds))
+						{
+							inferenceDbIds.add(inferenceInst.getDBID());
+						}
+					}
+				}
+			}
+			level = nextLevel;
+		}
+		return snapshots;
+	}
+
+	// Adds the attribute's values that haven't been reached yet to the next level, returning them
+	@SuppressWarnings("unchecked")
+	private static List<GKInstance> addUnseenValues(GKInstance inst, String attribute, List<GKInstance> nextLevel, Set<Long> seenDbIds) throws Exception
+	{
+		List<GKInstance> unseenInstances = new ArrayList<>();
+		if (inst.getSchemClass().isValidAttribute(attribute))
+		{
+			for (GKInstance valueInst : (Collection<GKInstance>) inst.getAttributeValuesList(attribute))
+			{
+				if (valueInst != null && seenDbIds.add(valueInst.getDBID()))
+				{
+					unseenInstances.add(valueInst);
+				}
+			}
+		}
+		nextLevel.addAll(unseenInstances);
+		return unseenInstances;
+	}
+
+	private static class PrefetchedReaction
+	{
+		private final Long reactionDbId;
+		private final List<InstanceSnapshot> snapshots;
+
+		private PrefetchedReaction(Long reactionDbId, List<InstanceSnapshot> snapshots)
+		{
+			this.reactionDbId = reactionDbId;
+			this.snapshots = snapshots;
+		}
+	}
+
+	// The class, DB ID and display name of an instance, without a reference to the adaptor it was read through
+	private static class InstanceReference
+	{
+		private final String className;
+		private final Long dbId;
+		private final String displayName;
+
+		private InstanceReference(GKInstance inst)
+		{
+			this.className = inst.getSchemClass().getName();
+			this.dbId = inst.getDBID();
+			this.displayName = inst.getDisplayName();
+		}
+	}
+
+	// The loaded attribute values of an instance, with instance values replaced by their InstanceReferences
+	private static class InstanceSnapshot
+	{
+		private final InstanceReference reference;
+		private final Map<String, List<Object>> attributeValues = new HashMap<>();
+
+		private InstanceSnapshot(GKInstance inst) throws Exception
+		{
+			this.reference = new InstanceReference(inst);
+			for (Object attribute : inst.getSchemClass().getAttributes())
+			{
+				String attributeName = ((SchemaAttribute) attribute).getName();
+				List<Object> values = new ArrayList<>();
+				for (Object value : inst.getAttributeValuesList(attributeName))
+				{
+					values.add(value instanceof GKInstance ? new InstanceReference((GKInstance) value) : value);
+				}
+				attributeValues.put(attributeName, values);
+			}
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package org.reactome.orthoinference;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The reporting stage of the ReactionPipeline: appends lines to the eligible/inferred files from a single background thread,
+ * so that file writes don't hold up the inference. Lines are written in the order they were appended. At most 'queueSize'
+ * lines can be waiting, after which the inference thread waits for space in the queue. Until start() is called, lines are
+ * written immediately.
+ */
+public class ReactionReporter {
+
+	private static final Logger logger = LogManager.getLogger();
+	private static BlockingQueue<ReportEntry> reportingQueue;
+	private static Thread reportingThread;
+	private static volatile IOException reportingException;
+
+	public static void start(int queueSize)
+	{
+		reportingQueue = new ArrayBlockingQueue<>(Math.max(queueSize, 1));
+		reportingThread = new Thread(ReactionReporter::writeQueuedLines, "rle-pipeline-reporter");
+		reportingThread.setDaemon(true);
+		reportingThread.start();
+	}
+
+	public static void append(String filename, String line) throws Exception
+	{
+		throwReportingException();
+		if (reportingQueue == null)
+		{
+			write(filename, line);
+			return;
+		}
+		reportingQueue.put(new ReportEntry(filename, line, null));
+	}
+
+	// Waits until all queued lines have been written
+	public static void flush() throws Exception
+	{
+		if (reportingQueue != null)
+		{
+			CountDownLatch flushed = new CountDownLatch(1);
+			reportingQueue.put(new ReportEntry(null, null, flushed));
+			flushed.await();
+		}
+		throwReportingException();
+	}
+
+	public static void shutdown() throws Exception
+	{
+		flush();
+		if (reportingQueue != null)
+		{
+			reportingThread.interrupt();
+			reportingThread.join();
+			reportingQueue = null;
+			reportingThread = null;
+		}
+	}
+
+	// Runs in the reporting thread until it is interrupted by shutdown(), by which time the queue has been flushed
+	private static void writeQueuedLines()
+	{
+		try {
+			while (true)
+			{
+				ReportEntry reportEntry = reportingQueue.take();
+				if (reportEntry.flushed != null)
+				{
+					reportEntry.flushed.countDown();
+					continue;
+				}
+				try {
+					write(reportEntry.filename, reportEntry.line);
+				} catch (IOException e) {
+					logger.error("Unable to append to " + reportEntry.filename, e);
+					reportingException = e;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void write(String filename, String line) throws IOException
+	{
+		Files.write(Paths.get(filename), line.getBytes(), StandardOpenOption.APPEND);
+	}
+
+	private static void throwReportingException() throws IOException
+	{
+		if (reportingException != null)
+		{
+			throw reportingException;
+		}
+	}
+
+	// A line to append, or a marker that is counted down once every line queued before it has been written
+	private static class ReportEntry
+	{
+		private final String filename;
+		private final String line;
+		private final CountDownLatch flushed;
+
+		private ReportEntry(String filename, String line, CountDownLatch flushed)
+		{
+			this.filename = filename;
+			this.line = line;
+			this.flushed = flushed;
+		}
+	}
+}
@@ -0,0 +1,205 @@
+package org.reactome.orthoinference;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.gk.model.GKInstance;
+import org.json.simple.JSONObject;
+
+/**
+ * Writes one JSON record per human RlE processed by the RlE loop to reaction_trace_(release)_(species).jsonl.gz ('reactionTrace=true').
+ * Each record has the RlE's DB ID, its outcome ('inferred', 'already_inferred', 'previously_inferred', 'skipped' with its reasons, or
+ * 'failed' with the stage that failed), its protein counts, the PhysicalEntity inferences it made and how many came from the cache, the
+ * inference cache hits and misses, the DB calls it issued (see InferenceStatistics) and the time it took.
+ *
+ * Records are compressed and written, in order, by a single background thread. Skip checks and protein counts made by the pipeline's filter
+ * threads are not included in an RlE's DB calls. A killed run's file can end part way through a record, so a resumed run writes its
+ * records to a new file for the run segment (eg: reaction_trace_(release)_(species).segment002.jsonl.gz) rather than appending to it.
+ * RlEs that failed or were completed after the last checkpoint are traced again by the resumed run, so when reading the files in name
+ * order, a later record for an RlE replaces an earlier one.
+ */
+public class ReactionTrace {
+
+	private static final Logger logger = LogManager.getLogger();
+	public static final String INFERRED = "inferred";
+	public static final String ALREADY_INFERRED = "already_inferred";
+	public static final String PREVIOUSLY_INFERRED = "previously_inferred";
+	public static final String SKIPPED = "skipped";
+	public static final String FAILED = "failed";
+	private static ThreadPoolExecutor tracingExecutor;
+	private static Writer traceWriter;
+	private static String filename;
+	private static volatile IOException tracingException;
+	private static JSONObject currentRecord;
+	private static long startTime;
+	private static long entityInferenceCountBefore;
+	private static long cachedEntityCountBefore;
+	private static long cacheHitsBefore;
+	private static long cacheMissesBefore;
+	private static long dbCallCountBefore;
+
+	public static boolean isEnabled()
+	{
+		return traceWriter != null;
+	}
+
+	// Starts the trace in 'filenamePrefix'.jsonl.gz, replacing the files of any earlier run, or in the next segment's file when resuming
+	public static void start(String filenamePrefix, int queueSize, boolean resume) throws IOException
+	{
+		filename = filenamePrefix + ".jsonl.gz";
+		if (!resume)
+		{
+			try (DirectoryStream<Path> segmentFiles = Files.newDirectoryStream(Paths.get(filename).toAbsolutePath().getParent(),
+					Paths.get(filenamePrefix).getFileName() + ".segment*.jsonl.gz"))
+			{
+				for (Path segmentFile : segmentFiles)
+				{
+					Files.delete(segmentFile);
+				}
+			}
+		} else {
+			for (int segment = 2; Files.exists(Paths.get(filename)); segment++)
+			{
+				filename = String.format("%s.segment%03d.jsonl.gz", filenamePrefix, segment);
+			}
+		}
+		traceWriter = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(Paths.get(filename))), StandardCharsets.UTF_8));
+		tracingExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(Math.max(queueSize, 1)),
+				runnable -> {
+					Thread tracingThread = new Thread(runnable, "rle-trace-writer");
+					tracingThread.setDaemon(true);
+					return tracingThread;
+				},
+				// The compressed stream can only be written by one thread, so the RlE loop waits for space in the queue when it is full
+				(runnable, executor) -> {
+					try {
+						executor.getQueue().put(runnable);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				});
+	}
+
+	// Called when the RlE loop reaches an RlE, before it is read or filtered
+	@SuppressWarnings("unchecked")
+	public static void startReaction(Long reactionDbId)
+	{
+		if (!isEnabled())
+		{
+			return;
+		}
+		currentRecord = new JSONObject();
+		currentRecord.put("dbId", reactionDbId);
+		startTime = System.nanoTime();
+		entityInferenceCountBefore = OrthologousEntityGenerator.getEntityInferenceCount();
+		cachedEntityCountBefore = OrthologousEntityGenerator.getCachedEntityCount();
+		cacheHitsBefore = InferenceStatistics.getCacheHits();
+		cacheMissesBefore = InferenceStatistics.getCacheMisses();
+		dbCallCountBefore = InferenceStatistics.getThreadDbCallCount();
+	}
+
+	// The outcome of the current RlE, and its details: the inferred RlE's DB ID, the skip reasons or the stage that failed
+	@SuppressWarnings("unchecked")
+	public static void setOutcome(String outcome, String detailKey, Object detail)
+	{
+		if (currentRecord == null)
+		{
+			return;
+		}
+		currentRecord.put("outcome", outcome);
+		if (detailKey != null)
+		{
+			currentRecord.put(detailKey, detail);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	public static void setProteinCounts(List<Integer> proteinCounts)
+	{
+		if (currentRecord == null || proteinCounts == null)
+		{
+			return;
+		}
+		JSONObject proteinCountsJSON = new JSONObject();
+		proteinCountsJSON.put("total", proteinCounts.get(0));
+		proteinCountsJSON.put("inferrable", proteinCounts.get(1));
+		proteinCountsJSON.put("maxHomologues", proteinCounts.get(2));
+		currentRecord.put("proteinCounts", proteinCountsJSON);
+	}
+
+	// Completes the current RlE's record, and queues it to be written
+	@SuppressWarnings("unchecked")
+	public static void finishReaction() throws IOException
+	{
+		if (currentRecord == null)
+		{
+			return;
+		}
+		throwTracingException();
+		currentRecord.put("elapsedMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+		currentRecord.put("entityInferences", OrthologousEntityGenerator.getEntityInferenceCount() - entityInferenceCountBefore);
+		currentRecord.put("cachedEntities", OrthologousEntityGenerator.getCachedEntityCount() - cachedEntityCountBefore);
+		currentRecord.put("cacheHits", InferenceStatistics.getCacheHits() - cacheHitsBefore);
+		currentRecord.put("cacheMisses", InferenceStatistics.getCacheMisses() - cacheMissesBefore);
+		currentRecord.put("dbCalls", InferenceStatistics.getThreadDbCallCount() - dbCallCountBefore);
+		String line = currentRecord.toJSONString() + "\n";
+		currentRecord = null;
+		tracingExecutor.execute(() -> {
+			try {
+				traceWriter.write(line);
+			} catch (IOException e) {
+				logger.error("Unable to write to " + filename, e);
+				tracingException = e;
+			}
+		});
+	}
+
+	// Records the current RlE as failed with an exception, and writes out the trace before the run exits
+	public static void failReaction(GKInstance reactionInst)
+	{
+		try {
+			setOutcome(FAILED, "failedStage", "exception");
+			finishReaction();
+			close();
+		} catch (Exception e) {
+			logger.error("Unable to write the trace of " + reactionInst, e);
+		}
+	}
+
+	// Waits until all queued records have been written, and closes the file
+	public static void close() throws Exception
+	{
+		if (!isEnabled())
+		{
+			return;
+		}
+		tracingExecutor.submit(() -> {}).get();
+		tracingExecutor.shutdown();
+		traceWriter.close();
+		traceWriter = null;
+		throwTracingException();
+		logger.info("RlE trace written to " + filename);
+	}
+
+	private static void throwTracingException() throws IOException
+	{
+		if (tracingException != null)
+		{
+			throw tracingException;
+		}
+	}
+}
@@ -0,0 +1,287 @@
+package org.reactome.orthoinference;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.gk.model.GKInstance;
+import org.gk.persistence.MySQLAdaptor;
+
+/**
+ * Holds the writes made while a single ReactionlikeEvent is being inferred, so that they can be committed as one unit once the
+ * inferred RlE has been stored, or dropped if the inference fails part way through (eg: an output or catalyst can't be inferred).
+ *
+ * New instances still need to be stored as they are created, since their DB IDs are needed for identity checks and cache keys
+ * of the instances that contain them. When the database supports transactions these stores are made inside a transaction that is
+ * rolled back on failure; otherwise the stored instances are deleted again. Attribute updates (the inferredFrom/inferredTo/orthologousEvent
+ * back-links) are held in memory and only written on commit, with each instance/attribute pair written once no matter how often it was touched.
+ *
+ * Sharded runs don't use transactions, since an instance stored by one shard must be found by the identity checks of the others as
+ * soon as it is stored. Instances stored through an identity check may already be used by another shard, so a sharded rollback keeps
+ * them (as orphans, like a failed inference did before rollbacks) and only deletes the RlE's own instances. The buffered attribute
+ * updates are written while holding the shard lock.
+ *
+ * Anything cached in memory during the inference (identity caches, stable identifier counts, added back-link values) is registered
+ * here as well, and is reverted on rollback so that the caches only ever point at committed instances. Actions that should only
+ * happen once the inference is committed (eg: saving identity cache entries to disk) are registered as commit actions.
+ */
+public class ReactionWriteBuffer {
+
+	private static final Logger logger = LogManager.getLogger();
+	private static MySQLAdaptor dba;
+	private static Boolean transactional;
+	private static boolean active = false;
+	private static List<GKInstance> storedInstances = new ArrayList<>();
+	private static Set<GKInstance> sharedInstances = new HashSet<>();
+	private static Map<GKInstance, Set<String>> pendingAttributeUpdates = new LinkedHashMap<>();
+	private static Map<GKInstance, Map<String, List<Object>>> attributeSnapshots = new HashMap<>();
+	private static List<Runnable> rollbackActions = new ArrayList<>();
+	private static List<Runnable> commitActions = new ArrayList<>();
+
+	// Starts buffering the writes of a ReactionlikeEvent inference
+	public static void begin() throws Exception
+	{
+		if (active)
+		{
+			throw new IllegalStateException("A ReactionlikeEvent write buffer is already open");
+		}
+		if (isTransactional())
+		{
+			dba.startTransaction();
+		}
+		active = true;
+	}
+
+	// Writes all buffered attribute updates and commits the stored instances
+	public static void commit() throws Exception
+	{
+		if (!active)
+		{
+			return;
+		}
+		long startTime = InferenceMetrics.start(InferenceMetrics.DB_WRITE);
+		try {
+			// When sharded, no other shard may update the same attributes between the merge and the update
+			ShardCoordinator.acquireLock();
+			try {
+				for (Map.Entry<GKInstance, Set<String>> pendingUpdate : pendingAttributeUpdates.entrySet())
+				{
+					for (String attribute : pendingUpdate.getValue())
+					{
+						if (ShardCoordinator.isSharded())
+						{
+							mergeWithStoredValues(pendingUpdate.getKey(), attribute);
+						}
+						dba.updateInstanceAttribute(pendingUpdate.getKey(), attribute);
+					}
+				}
+			} finally {
+				ShardCoordinator.releaseLock();
+			}
+			if (isTransactional())
+			{
+				dba.commit();
+			}
+			InferenceMetrics.record(InferenceMetrics.DB_WRITE, startTime);
+			for (GKInstance storedInst : storedInstances)
+			{
+				SpeciesReport.recordStoredInstance(storedInst);
+			}
+			for (Runnable commitAction : commitActions)
+			{
+				commitAction.run();
+			}
+		} finally {
+			clear();
+		}
+	}
+
+	// Drops everything written since begin() was called, and reverts the in-memory state that was registered with the buffer
+	public static void rollback() throws Exception
+	{
+		if (!active)
+		{
+			return;
+		}
+		try {
+			if (isTransactional())
+			{
+				dba.rollback();
+			} else {
+				for (int i = storedInstances.size() - 1; i >= 0; i--)
+				{
+					if (!ShardCoordinator.isSharded() || !sharedInstances.contains(storedInstances.get(i)))
+					{
+						dba.deleteInstance(storedInstances.get(i));
+					}
+				}
+			}
+			for (Map.Entry<GKInstance, Map<String, List<Object>>> snapshot : attributeSnapshots.entrySet())
+			{
+				for (Map.Entry<String, List<Object>> attributeSnapshot : snapshot.getValue().entrySet())
+				{
+					snapshot.getKey().setAttributeValue(attributeSnapshot.getKey(), attributeSnapshot.getValue());
+				}
+			}
+			for (int i = rollbackActions.size() - 1; i >= 0; i--)
+			{
+				rollbackActions.get(i).run();
+			}
+			logger.info("Rolled back " + storedInstances.size() + " stored instance(s) and " + pendingAttributeUpdates.size() + " updated instance(s)");
+		} finally {
+			clear();
+		}
+	}
+
+	// Other shards may have added values to the attribute since the instance was loaded. The stored values are reloaded,
+	// and the values added during this inference are added back, so that updating the attribute doesn't overwrite them.
+	@SuppressWarnings("unchecked")
+	private static void mergeWithStoredValues(GKInstance instance, String attribute) throws Exception
+	{
+		List<Object> bufferedValues = new ArrayList<>(instance.getAttributeValuesList(attribute));
+		dba.loadInstanceAttributeValues(Collections.singletonList(instance), new String[] {attribute});
+		Set<Long> storedDbIds = new HashSet<>();
+		for (Object storedValue : (Collection<Object>) instance.getAttributeValuesList(attribute))
+		{
+			storedDbIds.add(((GKInstance) storedValue).getDBID());
+		}
+		for (Object bufferedValue : bufferedValues)
+		{
+			if (storedDbIds.add(((GKInstance) bufferedValue).getDBID()))
+			{
+				instance.addAttributeValue(attribute, bufferedValue);
+			}
+		}
+	}
+
+	// Records an instance that was just stored, so it can be removed again if the database doesn't support transactions.
+	// Instances stored outside of an RlE inference can't be rolled back, so they are counted in the species report straight away.
+	public static void recordStoredInstance(GKInstance storedInst)
+	{
+		if (active)
+		{
+			storedInstances.add(storedInst);
+		} else {
+			SpeciesReport.recordStoredInstance(storedInst);
+		}
+	}
+
+	// Records a stored instance that other shards' identity checks can find, and that a sharded rollback keeps
+	public static void recordSharedInstance(GKInstance sharedInst)
+	{
+		if (active && sharedInst != null)
+		{
+			sharedInstances.add(sharedInst);
+		}
+	}
+
+	// Keeps a copy of the attribute's current values, so that values added to the in-memory instance can be reverted on rollback.
+	// Needs to be called before the attribute is modified.
+	@SuppressWarnings("unchecked")
+	public static void snapshotAttribute(GKInstance instance, String attribute) throws Exception
+	{
+		if (!active)
+		{
+			return;
+		}
+		Map<String, List<Object>> instanceSnapshots = attributeSnapshots.computeIfAbsent(instance, k -> new HashMap<>());
+		if (!instanceSnapshots.containsKey(attribute))
+		{
+			Collection<Object> attributeValues = instance.getAttributeValuesList(attribute);
+			instanceSnapshots.put(attribute, attributeValues == null ? new ArrayList<>() : new ArrayList<>(attributeValues));
+		}
+	}
+
+	// Updates the attribute in the DB, or holds it until commit if a buffer is open
+	public static void updateInstanceAttribute(GKInstance instance, String attribute) throws Exception
+	{
+		if (!active)
+		{
+			dba.updateInstanceAttribute(instance, attribute);
+			return;
+		}
+		pendingAttributeUpdates.computeIfAbsent(instance, k -> new LinkedHashSet<>()).add(attribute);
+	}
+
+	// Removes the cache entry again if the current inference is rolled back, or saves it to the persistent identity cache once committed
+	public static <K> void registerCacheEntry(Map<K, ?> cache, K key)
+	{
+		if (cache instanceof InferredInstanceCache && key instanceof GKInstance)
+		{
+			// Removing through the Map would fetch the rolled back value from the DB
+			long keyDbId = ((GKInstance) key).getDBID();
+			registerRollbackAction(() -> ((InferredInstanceCache) cache).removeDbId(keyDbId));
+		} else {
+			registerRollbackAction(() -> cache.remove(key));
+		}
+		PersistentIdentityCache.recordCacheEntry(cache, key);
+	}
+
+	public static void registerRollbackAction(Runnable rollbackAction)
+	{
+		if (active)
+		{
+			rollbackActions.add(rollbackAction);
+		}
+	}
+
+	// Runs the action once the current inference has been committed, or immediately if no buffer is open
+	public static void registerCommitAction(Runnable commitAction)
+	{
+		if (active)
+		{
+			commitActions.add(commitAction);
+		} else {
+			commitAction.run();
+		}
+	}
+
+	public static boolean isActive()
+	{
+		return active;
+	}
+
+	private static boolean isTransactional() throws Exception
+	{
+		if (transactional == null && ShardCoordinator.isSharded())
+		{
+			logger.info("Sharded run -- stored instances are visible to other shards immediately, and failed RlE inferences are removed by deleting their own stored instances");
+			transactional = false;
+		}
+		if (transactional == null)
+		{
+			transactional = dba.supportsTransactions();
+			if (!transactional)
+			{
+				logger.warn("Database does not support transactions -- failed RlE inferences will be removed by deleting their stored instances");
+			}
+		}
+		return transactional;
+	}
+
+	private static void clear()
+	{
+		storedInstances.clear();
+		sharedInstances.clear();
+		pendingAttributeUpdates.clear();
+		attributeSnapshots.clear();
+		rollbackActions.clear();
+		commitActions.clear();
+		active = false;
+	}
+
+	public static void setAdaptor(MySQLAdaptor dbAdaptor)
+	{
+		dba = dbAdaptor;
+		transactional = null;
+	}
+}
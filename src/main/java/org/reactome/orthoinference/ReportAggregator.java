@@ -0,0 +1,90 @@
+package org.reactome.orthoinference;
+
+import java.io.FileReader;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+
+/**
+ * Combines the species reports of a release (report_ortho_inference_(release)_(species).json, see SpeciesReport) into the sorted
+ * report sent to Curation, report_ortho_inference_test_reactome_(release)_sorted.txt. Species are listed in the order Curation
+ * expects, followed by any other species in alphabetical order. Run by formatOrthoinferenceReport.sh.
+ */
+public class ReportAggregator {
+
+	private static final Logger logger = LogManager.getLogger();
+	private static final List<String> SORTED_SPECIES = Arrays.asList("ddis", "pfal", "spom", "scer", "cele", "sscr", "btau", "cfam", "mmus",
+			"rnor", "ggal", "xtro", "drer", "dmel");
+
+	// Arguments: release number, and optionally the directory holding the species reports (default: the current directory)
+	public static void main(String[] args) throws Exception
+	{
+		if (args.length < 1)
+		{
+			logger.fatal("Please include the release number as the first argument");
+			System.exit(1);
+		}
+		String releaseVersion = args[0];
+		Path reportDirectory = Paths.get(args.length > 1 ? args[1] : ".");
+		List<JSONObject> speciesReports = readSpeciesReports(releaseVersion, reportDirectory);
+		if (speciesReports.isEmpty())
+		{
+			logger.fatal("No species reports found for release " + releaseVersion + " in " + reportDirectory);
+			System.exit(1);
+		}
+		Path sortedReportPath = reportDirectory.resolve("report_ortho_inference_test_reactome_" + releaseVersion + "_sorted.txt");
+		Files.write(sortedReportPath, formatSortedReport(releaseVersion, speciesReports));
+		logger.info("Combined " + speciesReports.size() + " species reports into " + sortedReportPath);
+	}
+
+	static List<JSONObject> readSpeciesReports(String releaseVersion, Path reportDirectory) throws Exception
+	{
+		List<JSONObject> speciesReports = new ArrayList<>();
+		JSONParser parser = new JSONParser();
+		try (DirectoryStream<Path> reportPaths = Files.newDirectoryStream(reportDirectory, "report_ortho_inference_" + releaseVersion + "_*.json"))
+		{
+			for (Path reportPath : reportPaths)
+			{
+				try (FileReader reportReader = new FileReader(reportPath.toFile()))
+				{
+					speciesReports.add((JSONObject) parser.parse(reportReader));
+				}
+			}
+		}
+		return speciesReports;
+	}
+
+	// The lines are the same as those written to the unsorted report by EventsInferrer.outputReport
+	static List<String> formatSortedReport(String releaseVersion, List<JSONObject> speciesReports)
+	{
+		List<JSONObject> sortedReports = new ArrayList<>(speciesReports);
+		sortedReports.sort(Comparator.comparingInt((JSONObject speciesReport) -> getSortIndex((String) speciesReport.get("species")))
+				.thenComparing(speciesReport -> (String) speciesReport.get("species")));
+		List<String> lines = new ArrayList<>();
+		lines.add("#Inferred reactions report for v" + releaseVersion);
+		for (JSONObject speciesReport : sortedReports)
+		{
+			long eligibleCount = (Long) speciesReport.get("eligible");
+			long inferredCount = (Long) speciesReport.get("inferred");
+			float percentInferred = (float) 100*inferredCount/eligibleCount;
+			lines.add("hsap to " + speciesReport.get("species") + ":\t" + inferredCount + " out of " + eligibleCount + " eligible reactions (" + String.format("%.2f", percentInferred) + "%)");
+		}
+		return lines;
+	}
+
+	private static int getSortIndex(String species)
+	{
+		int sortIndex = SORTED_SPECIES.indexOf(species);
+		return sortIndex >= 0 ? sortIndex : SORTED_SPECIES.size();
+	}
+}
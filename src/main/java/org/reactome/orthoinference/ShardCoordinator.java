@@ -0,0 +1,126 @@
+package org.reactome.orthoinference;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.gk.persistence.MySQLAdaptor;
+
+/**
+ * Splits a species run across several JVMs by ReactionlikeEvent DB ID (DB ID % shard count == shard index).
+ *
+ * Shards coordinate through the database only. Shared entities are resolved through the usual defining-attribute identity check,
+ * which is only reliable if no other shard is storing an identical instance at the same time, so each shard holds a MySQL named lock
+ * (GET_LOCK) around each identity check and the store that follows it, and around the commit of an RlE's buffered attribute updates
+ * (see ReactionWriteBuffer). Everything else, including the rest of each RlE's inference, runs in parallel across shards. The lock can
+ * be acquired again by the shard holding it, and is released once every acquisition has been released.
+ * Paralog stable identifiers can't be numbered consistently while shards run in parallel, so shards give out provisional identifiers
+ * that the --finalize run replaces with final ones (see StableIdentifierGenerator).
+ * Once all shards have finished, a run with --finalize infers the Pathways, diagrams and report from all shards' results.
+ */
+public class ShardCoordinator {
+
+	private static final Logger logger = LogManager.getLogger();
+	private static MySQLAdaptor dba;
+	private static int shardIndex = 0;
+	private static int shardCount = 1;
+	private static String lockName;
+	private static int lockTimeout = 600;
+	private static int lockDepth = 0;
+
+	public static boolean isSharded()
+	{
+		return shardCount > 1;
+	}
+
+	// Checks if the RlE is part of this shard's partition
+	public static boolean isInShard(Long reactionDbId)
+	{
+		return reactionDbId % shardCount == shardIndex;
+	}
+
+	// Blocks until no other shard is writing to the DB. Does nothing when the run isn't sharded.
+	public static void acquireLock() throws Exception
+	{
+		if (!isSharded())
+		{
+			return;
+		}
+		if (lockDepth > 0)
+		{
+			lockDepth++;
+			return;
+		}
+		try (PreparedStatement lockStatement = dba.getConnection().prepareStatement("SELECT GET_LOCK(?, ?)"))
+		{
+			lockStatement.setString(1, lockName);
+			lockStatement.setInt(2, lockTimeout);
+			try (ResultSet lockResult = lockStatement.executeQuery())
+			{
+				if (!lockResult.next() || lockResult.getInt(1) != 1)
+				{
+					throw new IllegalStateException("Timed out after " + lockTimeout + "s waiting for shard lock " + lockName);
+				}
+			}
+		}
+		lockDepth = 1;
+	}
+
+	public static void releaseLock() throws Exception
+	{
+		if (lockDepth == 0 || --lockDepth > 0)
+		{
+			return;
+		}
+		try (PreparedStatement releaseStatement = dba.getConnection().prepareStatement("SELECT RELEASE_LOCK(?)"))
+		{
+			releaseStatement.setString(1, lockName);
+			releaseStatement.executeQuery().close();
+		}
+	}
+
+	// Suffix added to the names of files written by each shard (eg: eligible_mmus_75_shard0of4.txt)
+	public static int getShardIndex()
+	{
+		return shardIndex;
+	}
+
+	public static String getShardSuffix()
+	{
+		return isSharded() ? "_shard" + shardIndex + "of" + shardCount : "";
+	}
+
+	// Parses a shard given as 'index/count' (eg: 0/4)
+	public static void setShard(String shard)
+	{
+		String[] shardSplit = shard.split("/");
+		if (shardSplit.length != 2)
+		{
+			throw new IllegalArgumentException("Shard must be given as index/count (eg: 0/4): " + shard);
+		}
+		shardIndex = Integer.valueOf(shardSplit[0]);
+		shardCount = Integer.valueOf(shardSplit[1]);
+		if (shardCount < 1 || shardIndex < 0 || shardIndex >= shardCount)
+		{
+			throw new IllegalArgumentException("Shard index must be between 0 and " + (shardCount - 1) + ": " + shard);
+		}
+		logger.info("Running shard " + shardIndex + " of " + shardCount);
+	}
+
+	public static void setLockTimeout(int lockTimeoutCopy)
+	{
+		lockTimeout = lockTimeoutCopy;
+	}
+
+	// The lock is specific to the database and species being inferred. MySQL lock names are limited to 64 characters.
+	public static void setAdaptor(MySQLAdaptor dbAdaptor, String species)
+	{
+		dba = dbAdaptor;
+		lockName = ("orthoinference." + dbAdaptor.getDBName() + "." + species);
+		if (lockName.length() > 64)
+		{
+			lockName = lockName.substring(lockName.length() - 64);
+		}
+	}
+}
@@ -0,0 +1,168 @@
+package org.reactome.orthoinference;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.gk.persistence.MySQLAdaptor;
+
+/**
+ * The skip reasons of every source species RlE (see SkipInstanceChecker), evaluated once in parallel before the RlE loop.
+ * The checks only depend on the source species' data, so decisions are saved to a file keyed by the database and reused by
+ * every species run (and shard) against that database. Reasons are kept as one bitmask byte per RlE, in DB ID order.
+ * The file is only reused for the same database, RlEs and skip list Pathways. Its DB calls aren't counted in the species'
+ * InferenceStatistics, as they are made once for all species.
+ */
+public class SkipDecisions {
+
+	private static final Logger logger = LogManager.getLogger();
+	private final long[] reactionDbIds;
+	private final byte[] skipReasons;
+
+	private SkipDecisions(long[] reactionDbIds, byte[] skipReasons)
+	{
+		this.reactionDbIds = reactionDbIds;
+		this.skipReasons = skipReasons;
+	}
+
+	// Returns the RlE's skip reasons bitmask, or null if the RlE wasn't part of the pre-pass
+	public Integer getSkipReasons(Long reactionDbId)
+	{
+		int index = Arrays.binarySearch(reactionDbIds, reactionDbId);
+		return index >= 0 ? Integer.valueOf(skipReasons[index]) : null;
+	}
+
+	public int getSkippedCount()
+	{
+		int skippedCount = 0;
+		for (byte reactionSkipReasons : skipReasons)
+		{
+			if (reactionSkipReasons != 0)
+			{
+				skippedCount++;
+			}
+		}
+		return skippedCount;
+	}
+
+	// Reads the decisions saved for this DB and set of RlEs, or evaluates and saves them if there aren't any
+	public static SkipDecisions loadOrCompute(List<Long> sortedReactionDbIds, String dbName, String filename, int threads, Callable<MySQLAdaptor> adaptorFactory) throws Exception
+	{
+		long[] reactionDbIds = sortedReactionDbIds.stream().mapToLong(Long::longValue).toArray();
+		String header = getHeader(dbName, reactionDbIds);
+		Path skipDecisionsPath = Paths.get(filename);
+		if (Files.exists(skipDecisionsPath))
+		{
+			SkipDecisions skipDecisions = read(skipDecisionsPath, header, reactionDbIds);
+			if (skipDecisions != null)
+			{
+				logger.info("Read skip decisions for " + reactionDbIds.length + " RlEs from " + filename);
+				return skipDecisions;
+			}
+			logger.info(filename + " is for a different DB, set of RlEs or skip list -- evaluating skip decisions again");
+		}
+		SkipDecisions skipDecisions = compute(reactionDbIds, threads, adaptorFactory);
+		skipDecisions.write(skipDecisionsPath, header);
+		logger.info("Evaluated skip decisions for " + reactionDbIds.length + " RlEs, " + skipDecisions.getSkippedCount() + " will be skipped");
+		return skipDecisions;
+	}
+
+	// Identifies the DB, RlEs and skip list the decisions were evaluated for
+	static String getHeader(String dbName, long[] reactionDbIds)
+	{
+		return "#" + dbName + "\t" + reactionDbIds.length + "\t" + Arrays.hashCode(reactionDbIds) + "\t" + SkipInstanceChecker.getSkipListPathwayDbIds();
+	}
+
+	// Each thread evaluates RlEs through its own read-only adaptor, as MySQLAdaptor isn't thread-safe
+	private static SkipDecisions compute(long[] reactionDbIds, int threads, Callable<MySQLAdaptor> adaptorFactory) throws Exception
+	{
+		List<MySQLAdaptor> adaptors = Collections.synchronizedList(new ArrayList<>());
+		ThreadLocal<MySQLAdaptor> threadAdaptor = new ThreadLocal<>();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(threads, 1));
+		try {
+			List<Future<Integer>> futureSkipReasons = new ArrayList<>();
+			for (long reactionDbId : reactionDbIds)
+			{
+				futureSkipReasons.add(executor.submit(() -> {
+					if (threadAdaptor.get() == null)
+					{
+						MySQLAdaptor adaptor = adaptorFactory.call();
+						adaptors.add(adaptor);
+						threadAdaptor.set(adaptor);
+					}
+					return SkipInstanceChecker.getSkipReasons(threadAdaptor.get().fetchInstance(reactionDbId));
+				}));
+			}
+			byte[] skipReasons = new byte[reactionDbIds.length];
+			for (int i = 0; i < reactionDbIds.length; i++)
+			{
+				try {
+					skipReasons[i] = futureSkipReasons.get(i).get().byteValue();
+				} catch (ExecutionException e) {
+					throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+				}
+			}
+			return new SkipDecisions(reactionDbIds, skipReasons);
+		} finally {
+			executor.shutdownNow();
+			for (MySQLAdaptor adaptor : adaptors)
+			{
+				adaptor.cleanUp();
+			}
+		}
+	}
+
+	private static SkipDecisions read(Path skipDecisionsPath, String header, long[] reactionDbIds) throws Exception
+	{
+		try (BufferedReader br = Files.newBufferedReader(skipDecisionsPath))
+		{
+			if (!header.equals(br.readLine()))
+			{
+				return null;
+			}
+			byte[] skipReasons = new byte[reactionDbIds.length];
+			for (int i = 0; i < reactionDbIds.length; i++)
+			{
+				String line = br.readLine();
+				String[] tabSplit = line != null ? line.split("\t") : new String[0];
+				if (tabSplit.length != 2 || Long.parseLong(tabSplit[0]) != reactionDbIds[i])
+				{
+					return null;
+				}
+				skipReasons[i] = Byte.parseByte(tabSplit[1]);
+			}
+			return new SkipDecisions(reactionDbIds, skipReasons);
+		}
+	}
+
+	// Written to a temporary file first, as shards may be saving the same decisions at the same time
+	private void write(Path skipDecisionsPath, String header) throws Exception
+	{
+		Path tempPath = Files.createTempFile(skipDecisionsPath.toAbsolutePath().getParent(), skipDecisionsPath.getFileName().toString(), ".tmp");
+		try (BufferedWriter bw = Files.newBufferedWriter(tempPath))
+		{
+			bw.write(header);
+			bw.newLine();
+			for (int i = 0; i < reactionDbIds.length; i++)
+			{
+				bw.write(reactionDbIds[i] + "\t" + skipReasons[i]);
+				bw.newLine();
+			}
+		}
+		Files.move(tempPath, skipDecisionsPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+}
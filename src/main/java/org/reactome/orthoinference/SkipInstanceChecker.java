@@ -15,20 +15,50 @@ public class SkipInstanceChecker {
 
 	private static final Logger logger = LogManager.getLogger();
 	private static MySQLAdaptor dba;
-	private static Set<String> skipList = new HashSet<>();
+	private static Set<Long> skipList = new HashSet<>();
+	private static SkipDecisions skipDecisions;
 	private static final long HIV_INFECTION_DB_ID = 162906L;
 	private static final long INFLUENZA_INFECTION_DB_ID = 168255L;
 	private static final long AMYLOID_FIBER_FORMATION_DB_ID = 977225L;
+	private static final List<Long> SKIP_LIST_PATHWAY_DB_IDS = Arrays.asList(
+		HIV_INFECTION_DB_ID,
+		INFLUENZA_INFECTION_DB_ID,
+		AMYLOID_FIBER_FORMATION_DB_ID
+	);
+	// Reasons an RlE is skipped, as bits of the skip reasons bitmask
+	public static final int IN_SKIP_LIST = 1;
+	public static final int ONLY_IN_DISEASE_PATHWAY = 1 << 1;
+	public static final int CHIMERIC = 1 << 2;
+	public static final int RELATED_SPECIES = 1 << 3;
+	public static final int DISEASE = 1 << 4;
+	public static final int MANUALLY_INFERRED = 1 << 5;
+	public static final int MULTIPLE_SPECIES = 1 << 6;
+	private static final Map<Integer, String> SKIP_REASON_DESCRIPTIONS = new LinkedHashMap<>();
+	static {
+		SKIP_REASON_DESCRIPTIONS.put(IN_SKIP_LIST, "is in skipList");
+		SKIP_REASON_DESCRIPTIONS.put(ONLY_IN_DISEASE_PATHWAY, "has only Disease TopLevelPathway");
+		SKIP_REASON_DESCRIPTIONS.put(CHIMERIC, "is chimeric");
+		SKIP_REASON_DESCRIPTIONS.put(RELATED_SPECIES, "has related species");
+		SKIP_REASON_DESCRIPTIONS.put(DISEASE, "is a disease reaction");
+		SKIP_REASON_DESCRIPTIONS.put(MANUALLY_INFERRED, "is manually inferred");
+		SKIP_REASON_DESCRIPTIONS.put(MULTIPLE_SPECIES, "has multiple species");
+	}
+	// Names of the skip reasons in the species reports (see SpeciesReport)
+	private static final Map<Integer, String> SKIP_REASON_NAMES = new LinkedHashMap<>();
+	static {
+		SKIP_REASON_NAMES.put(IN_SKIP_LIST, "skipList");
+		SKIP_REASON_NAMES.put(ONLY_IN_DISEASE_PATHWAY, "diseasePathway");
+		SKIP_REASON_NAMES.put(CHIMERIC, "chimeric");
+		SKIP_REASON_NAMES.put(RELATED_SPECIES, "relatedSpecies");
+		SKIP_REASON_NAMES.put(DISEASE, "disease");
+		SKIP_REASON_NAMES.put(MANUALLY_INFERRED, "manuallyInferred");
+		SKIP_REASON_NAMES.put(MULTIPLE_SPECIES, "multipleSpecies");
+	}
 
 	// Skiplist was traditionally provided in a file, but since it's currently just 3 instances, I've just hard-coded them here.
 	public static void buildStaticSkipList() throws Exception
 	{
-		List<Long> pathwayIdsToSkip = Arrays.asList(
-			HIV_INFECTION_DB_ID,
-			INFLUENZA_INFECTION_DB_ID,
-			AMYLOID_FIBER_FORMATION_DB_ID
-		);
-		for (long pathwayId : pathwayIdsToSkip)
+		for (long pathwayId : SKIP_LIST_PATHWAY_DB_IDS)
 		{
 			GKInstance pathwayInst = dba.fetchInstance(pathwayId);
 			if (pathwayInst != null)
@@ -42,68 +72,113 @@ public class SkipInstanceChecker {
 
 				for (GKInstance entityInst : followedInstances)
 				{
-					skipList.add(entityInst.getDBID().toString());
+					skipList.add(entityInst.getDBID());
 				}
 			}
 		}
 	}
 
+	// The Pathways whose RlEs are in the skip list
+	public static List<Long> getSkipListPathwayDbIds()
+	{
+		return SKIP_LIST_PATHWAY_DB_IDS;
+	}
+
 	// Skip orthoinference of this instance if:
 	public static boolean checkIfInstanceShouldBeSkipped(GKInstance reactionInst) throws Exception
 	{
-		// it is found in skiplist array
-		if (skipList.contains(reactionInst.getDBID().toString()))
+		return checkSkipReasons(reactionInst) != 0;
+	}
+
+	// Returns the reasons the RlE is skipped (0 if it isn't), logging them if it is
+	public static int checkSkipReasons(GKInstance reactionInst) throws Exception
+	{
+		// Reasons found by the skip decision pre-pass are reused, rather than re-evaluated for every species
+		Integer skipReasons = skipDecisions != null ? skipDecisions.getSkipReasons(reactionInst.getDBID()) : null;
+		if (skipReasons == null)
 		{
-			logger.info(reactionInst + " is in skipList -- skipping");
-			return true;
+			skipReasons = getSkipReasons(reactionInst);
 		}
+		if (skipReasons != 0)
+		{
+			logger.info(reactionInst + " " + describeSkipReasons(skipReasons) + " -- skipping");
+		}
+		return skipReasons;
+	}
 
+	// Evaluates all of the skip checks, returning a bitmask of the reasons an RlE is skipped (0 if it isn't). All reasons are
+	// evaluated, so that the reasons reported for an RlE don't depend on whether they came from the skip decision pre-pass.
+	public static int getSkipReasons(GKInstance reactionInst) throws Exception
+	{
+		int skipReasons = 0;
+		// it is found in skiplist array
+		if (skipList.contains(reactionInst.getDBID()))
+		{
+			skipReasons |= IN_SKIP_LIST;
+		}
 		// If the only TopLevelPathway of a Reaction is 'Disease', then it is skipped.
 		// Otherwise, it is inferred, making sure in cases where a Reaction is also a part of 'Disease' that that Pathway is not inferred.
-		if (InstanceUtilities.onlyInDiseasePathway(reactionInst)) {
-			logger.info(reactionInst + " has only Disease TopLevelPathway -- skipping");
-			return true;
+		if (InstanceUtilities.onlyInDiseasePathway(reactionInst))
+		{
+			skipReasons |= ONLY_IN_DISEASE_PATHWAY;
 		}
 		// it is chimeric
-		if (reactionInst.getAttributeValue(isChimeric) != null)
+		if (reactionInst.getAttributeValue(isChimeric) != null && (boolean) reactionInst.getAttributeValue(isChimeric))
 		{
-			if ((boolean) reactionInst.getAttributeValue(isChimeric))
-			{
-				logger.info(reactionInst + " is chimeric -- skipping");
-				return true;
-			}
+			skipReasons |= CHIMERIC;
 		}
 		// it has related species
 		if (reactionInst.getAttributeValue("relatedSpecies") != null)
 		{
-			logger.info(reactionInst + " has related species -- skipping");
-			return true;
+			skipReasons |= RELATED_SPECIES;
 		}
 		// it is a disease reaction
 		if (reactionInst.getAttributeValue(disease) != null)
 		{
-			logger.info(reactionInst + " is a disease reaction -- skipping");
-			return true;
+			skipReasons |= DISEASE;
 		}
 		// it is manually inferred
 		if (reactionInst.getAttributeValue(inferredFrom) != null)
 		{
-			logger.info(reactionInst + " is manually inferred -- skipping");
-			return true;
+			skipReasons |= MANUALLY_INFERRED;
 		}
 		// it contains multiple species
-		Collection<GKInstance> speciesInstances = checkIfEntitiesContainMultipleSpecies(reactionInst);
-		if (speciesInstances.size() > 1)
+		if (checkIfEntitiesContainMultipleSpecies(reactionInst))
 		{
-			logger.info(reactionInst + " has multiple species -- skipping");
-			return true;
+			skipReasons |= MULTIPLE_SPECIES;
 		}
-		return false;
+		return skipReasons;
+	}
+
+	public static List<String> getSkipReasonNames(int skipReasons)
+	{
+		List<String> names = new ArrayList<>();
+		for (Map.Entry<Integer, String> skipReasonName : SKIP_REASON_NAMES.entrySet())
+		{
+			if ((skipReasons & skipReasonName.getKey()) != 0)
+			{
+				names.add(skipReasonName.getValue());
+			}
+		}
+		return names;
+	}
+
+	public static String describeSkipReasons(int skipReasons)
+	{
+		List<String> descriptions = new ArrayList<>();
+		for (Map.Entry<Integer, String> skipReasonDescription : SKIP_REASON_DESCRIPTIONS.entrySet())
+		{
+			if ((skipReasons & skipReasonDescription.getKey()) != 0)
+			{
+				descriptions.add(skipReasonDescription.getValue());
+			}
+		}
+		return String.join(", ", descriptions);
 	}
 
-	// Goes through all input/output/catalystActivity/regulatedBy attribute instances, and captures all species associates with them. Returns a collection of species instances.
+	// Goes through all input/output/catalystActivity/regulatedBy attribute instances, and checks if more than one species is associated with them.
 	@SuppressWarnings("unchecked")
-	private static Collection<GKInstance> checkIfEntitiesContainMultipleSpecies(GKInstance reactionInst) throws Exception
+	private static boolean checkIfEntitiesContainMultipleSpecies(GKInstance reactionInst) throws Exception
 	{
 		List<GKInstance> physicalEntityInstances = new ArrayList<>();
 		physicalEntityInstances.addAll(reactionInst.getAttributeValuesList(input));
@@ -127,89 +202,25 @@ public class SkipInstanceChecker {
 				}
 			}
 		}
-		Map<String, GKInstance> physicalEntityHash = new HashMap<>();
-		// Remove duplicates using HashMap
+		// Species of each PhysicalEntity's constituents are memoized per entity, so only their union is taken here
+		Set<Long> speciesDbIds = new HashSet<>();
 		for (GKInstance physicalEntityInst : physicalEntityInstances)
 		{
-			physicalEntityHash.put(physicalEntityInst.getDBID().toString(), physicalEntityInst);
-		}
-		Map<String, GKInstance> physicalEntitiesFinal = new HashMap<>();
-		for (GKInstance physicalEntityInst : physicalEntityHash.values())
-		{
-			physicalEntitiesFinal.put(physicalEntityInst.getDBID().toString(), physicalEntityInst);
-			Collection<GKInstance> allConstituentInstances = recursePhysicalEntityConstituentInstances(physicalEntityInst);
-			if (allConstituentInstances != null)
+			for (long speciesDbId : EntitySpeciesClosure.getSpeciesDbIds(physicalEntityInst))
 			{
-				for (GKInstance constituentInst : allConstituentInstances)
-				{
-					physicalEntitiesFinal.put(constituentInst.getDBID().toString(), constituentInst);
-				}
+				speciesDbIds.add(speciesDbId);
 			}
-		}
-		Map<String, GKInstance> speciesHash = new HashMap<>();
-		for (GKInstance physicalEntityInst : physicalEntitiesFinal.values())
-		{
-			if (physicalEntityInst.getSchemClass().isValidAttribute(species))
+			if (speciesDbIds.size() > 1)
 			{
-				for (GKInstance speciesInst : (Collection<GKInstance>) physicalEntityInst.getAttributeValuesList(species))
-				{
-					speciesHash.put(speciesInst.getDBID().toString(), speciesInst);
-				}
+				return true;
 			}
 		}
-		return speciesHash.values();
+		return false;
 	}
 
-	// Looks at referrals of the constituent instances for the species attribute as well
-	// The term 'constituent' is used as a catch-all for instances under the hasMember/hasComponent/repeatedUnit attributes
-	@SuppressWarnings("unchecked")
-	private static Collection<GKInstance> recursePhysicalEntityConstituentInstances(GKInstance physicalEntity) throws Exception
+	public static void setSkipDecisions(SkipDecisions skipDecisionsCopy)
 	{
-		Map<String, GKInstance> constituentInstances = new HashMap<>();
-		if (physicalEntity.getSchemClass().isValidAttribute(hasMember))
-		{
-			for (GKInstance memberInst : (Collection<GKInstance>) physicalEntity.getAttributeValuesList(hasMember))
-			{
-				constituentInstances.put(memberInst.getDBID().toString(), memberInst);
-			}
-		}
-		if (physicalEntity.getSchemClass().isValidAttribute(hasComponent))
-		{
-			for (GKInstance componentInst : (Collection<GKInstance>) physicalEntity.getAttributeValuesList(hasComponent))
-			{
-				constituentInstances.put(componentInst.getDBID().toString(), componentInst);
-			}
-		}
-		if (physicalEntity.getSchemClass().isValidAttribute(repeatedUnit))
-		{
-			for (GKInstance repeatedUnitInst : (Collection<GKInstance>) physicalEntity.getAttributeValuesList(repeatedUnit))
-			{
-				constituentInstances.put(repeatedUnitInst.getDBID().toString(), repeatedUnitInst);
-			}
-		}
-		if (constituentInstances.size() > 0)
-		{
-			Map<String, GKInstance> finalConstituentInstancesMap = new HashMap<>();
-			for (GKInstance constituentInst : constituentInstances.values())
-			{
-				finalConstituentInstancesMap.put(constituentInst.getDBID().toString(), constituentInst);
-				if (constituentInst.getSchemClass().isa(EntitySet) || constituentInst.getSchemClass().isa(Complex) || constituentInst.getSchemClass().isa(Polymer))
-				{
-					Collection<GKInstance> recursedConstituentInstances = recursePhysicalEntityConstituentInstances(constituentInst);
-					if (recursedConstituentInstances != null)
-					{
-						for (GKInstance recursedConstituentInst : recursedConstituentInstances)
-						{
-							finalConstituentInstancesMap.put(recursedConstituentInst.getDBID().toString(), recursedConstituentInst);
-						}
-					}
-				} else {
-					continue;
-				}
-			}
-			return finalConstituentInstancesMap.values();
-		}
-		return null;
+		skipDecisions = skipDecisionsCopy;
 	}
 
 	public static void setAdaptor(MySQLAdaptor dbAdaptor)
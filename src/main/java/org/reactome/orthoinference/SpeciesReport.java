@@ -0,0 +1,131 @@
+package org.reactome.orthoinference;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.gk.model.GKInstance;
+import org.json.simple.JSONObject;
+
+/**
+ * The structured counterpart of the report line written for each species: report_ortho_inference_(release)_(species).json holds the
+ * eligible and inferred RlE counts, the RlEs skipped by each reason, the inferred instances stored by schema class, the time spent in
+ * each phase (see InferenceMetrics), the run's wall time and peak heap use, the heap samples taken during the run (see HeapSampler),
+ * and the total DB calls made. The sorted report that is sent to Curation is built from these files by the ReportAggregator.
+ *
+ * Skip counts are collected by the run that infers the RlEs, so a --finalize run of a sharded species reports none. Stored instances are
+ * counted once the RlE inference that stored them is committed (see ReactionWriteBuffer), and StableIdentifiers and InstanceEdits aren't
+ * counted. Both counts are saved in the checkpoint. Instances stored by RlEs that a killed run completed after its last checkpoint
+ * aren't counted when it is resumed, since those inferences are reused rather than repeated.
+ */
+public class SpeciesReport {
+
+	private static final Logger logger = LogManager.getLogger();
+	private static final Set<String> UNCOUNTED_STORED_CLASSES = new HashSet<>(Arrays.asList("StableIdentifier", "InstanceEdit"));
+	private static Map<String, Integer> skipCounts = new TreeMap<>();
+	private static Map<String, Long> storedInstanceCounts = new TreeMap<>();
+	private static long startTime = System.currentTimeMillis();
+
+	public static void setStartTime(long startTimeCopy)
+	{
+		startTime = startTimeCopy;
+	}
+
+	// Counts an RlE skipped for each of the reasons in the bitmask (see SkipInstanceChecker)
+	public static void recordSkip(int skipReasons)
+	{
+		for (String skipReasonName : SkipInstanceChecker.getSkipReasonNames(skipReasons))
+		{
+			recordSkip(skipReasonName);
+		}
+	}
+
+	public static void recordSkip(String skipReasonName)
+	{
+		skipCounts.merge(skipReasonName, 1, Integer::sum);
+	}
+
+	// Counts a stored inferred instance by its schema class
+	public static void recordStoredInstance(GKInstance storedInst)
+	{
+		String schemaClassName = storedInst.getSchemClass().getName();
+		if (!UNCOUNTED_STORED_CLASSES.contains(schemaClassName))
+		{
+			storedInstanceCounts.merge(schemaClassName, 1L, Long::sum);
+		}
+	}
+
+	public static Map<String, Integer> getSkipCounts()
+	{
+		return skipCounts;
+	}
+
+	public static Map<String, Long> getStoredInstanceCounts()
+	{
+		return storedInstanceCounts;
+	}
+
+	public static void write(String species, String releaseVersion, String filename) throws IOException
+	{
+		Files.write(Paths.get(filename), toJSON(species, releaseVersion).toJSONString().getBytes());
+		logger.info("Species report written to " + filename);
+	}
+
+	@SuppressWarnings("unchecked")
+	static JSONObject toJSON(String species, String releaseVersion)
+	{
+		JSONObject reportJSON = new JSONObject();
+		reportJSON.put("species", species);
+		reportJSON.put("release", releaseVersion);
+		reportJSON.put("eligible", ReactionInferrer.getEligibleCount());
+		reportJSON.put("inferred", ReactionInferrer.getInferredCount());
+		JSONObject skipCountsJSON = new JSONObject();
+		skipCountsJSON.putAll(skipCounts);
+		reportJSON.put("skipped", skipCountsJSON);
+		JSONObject storedInstancesJSON = new JSONObject();
+		storedInstancesJSON.putAll(storedInstanceCounts);
+		reportJSON.put("storedInstances", storedInstancesJSON);
+		Map<String, Map<String, Long>> dbCallCounts = InferenceStatistics.getDbCallCounts();
+		JSONObject dbCallsJSON = new JSONObject();
+		for (Map.Entry<String, Map<String, Long>> callCounts : dbCallCounts.entrySet())
+		{
+			dbCallsJSON.put(callCounts.getKey(), callCounts.getValue().values().stream().mapToLong(Long::longValue).sum());
+		}
+		reportJSON.put("dbCalls", dbCallsJSON);
+		JSONObject phaseSecondsJSON = new JSONObject();
+		for (Map.Entry<String, InferenceMetrics.PhaseHistogram> phaseHistogram : InferenceMetrics.getPhaseHistograms().entrySet())
+		{
+			phaseSecondsJSON.put(phaseHistogram.getKey(), phaseHistogram.getValue().getTotalSeconds());
+		}
+		reportJSON.put("phaseSeconds", phaseSecondsJSON);
+		reportJSON.put("wallSeconds", TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - startTime));
+		reportJSON.put("peakHeapBytes", getPeakHeap());
+		reportJSON.put("heapSamples", HeapSampler.getSamples());
+		return reportJSON;
+	}
+
+	// Sum of the peak use of each heap memory pool since the JVM started. Pools can peak at different times, so this is an upper bound.
+	private static long getPeakHeap()
+	{
+		long peakHeap = 0;
+		for (MemoryPoolMXBean memoryPool : ManagementFactory.getMemoryPoolMXBeans())
+		{
+			if (memoryPool.getType() == MemoryType.HEAP && memoryPool.getPeakUsage() != null)
+			{
+				peakHeap += memoryPool.getPeakUsage().getUsed();
+			}
+		}
+		return peakHeap;
+	}
+}
@@ -0,0 +1,159 @@
+package org.reactome.orthoinference;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A LongLongMap that keeps at most 'maxHotEntries' entries on the heap. When the in-memory map fills up, the least recently used half
+ * of its entries is moved to a memory-mapped MappedLongLongTable, and the rest stay on the heap. Spilled entries that are looked up
+ * again are moved back into memory. Recency is tracked as a sequence number per in-memory entry, kept in a second LongLongHashMap.
+ */
+public class SpillingLongLongMap implements LongLongMap {
+
+	private static final Logger logger = LogManager.getLogger();
+	// Fraction of the in-memory entries that is spilled when the map fills up
+	private static final double SPILL_FRACTION = 0.5;
+	private final String name;
+	private final int maxHotEntries;
+	private final Path spillDirectory;
+	private final LongLongHashMap hotEntries;
+	private final LongLongHashMap hotEntryAccesses;
+	private long accessCount = 0;
+	private MappedLongLongTable coldEntries;
+
+	public SpillingLongLongMap(String name, int maxHotEntries, Path spillDirectory)
+	{
+		this.name = name;
+		this.maxHotEntries = maxHotEntries;
+		this.spillDirectory = spillDirectory;
+		this.hotEntries = new LongLongHashMap(maxHotEntries);
+		this.hotEntryAccesses = new LongLongHashMap(maxHotEntries);
+	}
+
+	@Override
+	public long get(long key)
+	{
+		long value = hotEntries.get(key);
+		if (value != NO_VALUE)
+		{
+			hotEntryAccesses.put(key, ++accessCount);
+		} else if (coldEntries != null) {
+			value = coldEntries.remove(key);
+			if (value != NO_VALUE)
+			{
+				putHot(key, value);
+			}
+		}
+		return value;
+	}
+
+	@Override
+	public void put(long key, long value)
+	{
+		if (coldEntries != null)
+		{
+			coldEntries.remove(key);
+		}
+		putHot(key, value);
+	}
+
+	@Override
+	public long remove(long key)
+	{
+		long value = hotEntries.remove(key);
+		hotEntryAccesses.remove(key);
+		if (value == NO_VALUE && coldEntries != null)
+		{
+			value = coldEntries.remove(key);
+		}
+		return value;
+	}
+
+	@Override
+	public int size()
+	{
+		return hotEntries.size() + (coldEntries != null ? coldEntries.size() : 0);
+	}
+
+	@Override
+	public void clear()
+	{
+		hotEntries.clear();
+		hotEntryAccesses.clear();
+		if (coldEntries != null)
+		{
+			coldEntries.clear();
+		}
+	}
+
+	@Override
+	public void forEach(EntryConsumer consumer)
+	{
+		hotEntries.forEach(consumer);
+		if (coldEntries != null)
+		{
+			coldEntries.forEach(consumer);
+		}
+	}
+
+	public int getColdSize()
+	{
+		return coldEntries != null ? coldEntries.size() : 0;
+	}
+
+	public void close() throws IOException
+	{
+		if (coldEntries != null)
+		{
+			coldEntries.close();
+			coldEntries = null;
+		}
+	}
+
+	private void putHot(long key, long value)
+	{
+		hotEntries.put(key, value);
+		hotEntryAccesses.put(key, ++accessCount);
+		if (hotEntries.size() > maxHotEntries)
+		{
+			spill();
+		}
+	}
+
+	private void spill()
+	{
+		try {
+			if (coldEntries == null)
+			{
+				coldEntries = new MappedLongLongTable(spillDirectory);
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to create spilled cache file in " + spillDirectory, e);
+		}
+		// Entries last used before the access at the spill fraction are moved to disk
+		long[] accesses = new long[hotEntryAccesses.size()];
+		int[] accessIndex = {0};
+		hotEntryAccesses.forEach((key, access) -> accesses[accessIndex[0]++] = access);
+		Arrays.sort(accesses);
+		int spillCount = Math.max((int) (accesses.length * SPILL_FRACTION), 1);
+		long keepFromAccess = spillCount < accesses.length ? accesses[spillCount] : Long.MAX_VALUE;
+		long[] spilledKeys = new long[spillCount];
+		int[] spilledIndex = {0};
+		hotEntryAccesses.forEach((key, access) -> {
+			if (access < keepFromAccess)
+			{
+				spilledKeys[spilledIndex[0]++] = key;
+			}
+		});
+		for (long key : spilledKeys)
+		{
+			coldEntries.put(key, hotEntries.remove(key));
+			hotEntryAccesses.remove(key);
+		}
+		logger.debug("Spilled " + spillCount + " least recently used entries of " + name + " cache to disk, " + coldEntries.size() + " entries spilled");
+	}
+}
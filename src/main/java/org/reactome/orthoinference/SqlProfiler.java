@@ -0,0 +1,247 @@
+package org.reactome.orthoinference;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Opt-in profiling of the SQL sent by the DB adaptors ('sqlProfiling=true'). Adaptors created through EventsInferrer hand out their
+ * JDBC connection wrapped in a proxy (see CountingMySQLAdaptor.getConnection), whose statements time each execution and count the
+ * rows read from its results. Statements are grouped by fingerprint: the SQL with its literals replaced by '?' and IN lists collapsed,
+ * so that the same query shape issued for different instances (eg: by GKInstance lazy loading) is counted together.
+ *
+ * Each execution is also attributed to the inference phase (see InferenceMetrics) and the human RlE its thread is working on.
+ * The top 'sqlProfileTopCount' statement shapes by time, and the RlEs that issued the most statements, are written to
+ * 'sql_profile_(release)_(species).txt' at the end of the run.
+ */
+public class SqlProfiler {
+
+	private static final Logger logger = LogManager.getLogger();
+	private static final String NO_PHASE = "other";
+	private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^'\\\\]|\\\\.|'')*'");
+	private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+	private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+	private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+	private static boolean enabled = false;
+	private static int topCount = 25;
+	private static Map<String, StatementStatistics> statementStatistics = new ConcurrentHashMap<>();
+	private static Map<Long, StatementStatistics> reactionStatistics = new ConcurrentHashMap<>();
+	private static ThreadLocal<Long> currentReactionDbId = new ThreadLocal<>();
+	private static ThreadLocal<Deque<String>> currentPhases = ThreadLocal.withInitial(ArrayDeque::new);
+
+	public static boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	// Returns a proxy of the connection whose statements are profiled
+	public static Connection wrap(Connection connection)
+	{
+		return (Connection) Proxy.newProxyInstance(SqlProfiler.class.getClassLoader(), new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+			Object result = invoke(connection, method, args);
+			if (result instanceof Statement && Statement.class.isAssignableFrom(method.getReturnType()))
+			{
+				// prepareStatement and prepareCall are given their SQL up front, while plain Statements are given it when executed
+				String preparedSql = method.getName().startsWith("prepare") ? (String) args[0] : null;
+				return wrapStatement((Statement) result, method.getReturnType(), preparedSql);
+			}
+			return result;
+		});
+	}
+
+	// The RlE that statements run by this thread are attributed to, or null between RlEs. Also resets the thread's phases.
+	public static void setCurrentReaction(Long reactionDbId)
+	{
+		currentReactionDbId.set(reactionDbId);
+		currentPhases.get().clear();
+	}
+
+	public static void enterPhase(String phase)
+	{
+		currentPhases.get().push(phase);
+	}
+
+	public static void exitPhase(String phase)
+	{
+		Deque<String> phases = currentPhases.get();
+		if (!phases.isEmpty() && phases.peek().equals(phase))
+		{
+			phases.pop();
+		}
+	}
+
+	// Replaces literals with '?' and collapses IN lists and whitespace, so statements that only differ by their values match
+	static String fingerprint(String sql)
+	{
+		String fingerprint = STRING_LITERAL.matcher(sql).replaceAll("?");
+		fingerprint = NUMBER_LITERAL.matcher(fingerprint).replaceAll("?");
+		fingerprint = IN_LIST.matcher(fingerprint).replaceAll("(?+)");
+		return WHITESPACE.matcher(fingerprint).replaceAll(" ").trim();
+	}
+
+	public static void write(String filename) throws IOException
+	{
+		if (!enabled)
+		{
+			return;
+		}
+		List<String> lines = new ArrayList<>();
+		lines.add("Top statement shapes by total time");
+		lines.add("count\ttotal_ms\tmean_ms\trows\tphases\tstatement");
+		List<Map.Entry<String, StatementStatistics>> statements = new ArrayList<>(statementStatistics.entrySet());
+		statements.sort(Comparator.comparingLong((Map.Entry<String, StatementStatistics> entry) -> entry.getValue().nanos.sum()).reversed());
+		for (Map.Entry<String, StatementStatistics> statement : statements.subList(0, Math.min(topCount, statements.size())))
+		{
+			StatementStatistics statistics = statement.getValue();
+			lines.add(statistics.count.sum() + "\t" + toMillis(statistics.nanos.sum()) + "\t" + toMillis(statistics.nanos.sum() / Math.max(statistics.count.sum(), 1))
+					+ "\t" + statistics.rows.sum() + "\t" + statistics.phaseCounts + "\t" + statement.getKey());
+		}
+		lines.add("");
+		lines.add("Most query-heavy RlEs");
+		lines.add("count\ttotal_ms\trows\treaction_db_id");
+		List<Map.Entry<Long, StatementStatistics>> reactions = new ArrayList<>(reactionStatistics.entrySet());
+		reactions.sort(Comparator.comparingLong((Map.Entry<Long, StatementStatistics> entry) -> entry.getValue().count.sum()).reversed());
+		for (Map.Entry<Long, StatementStatistics> reaction : reactions.subList(0, Math.min(topCount, reactions.size())))
+		{
+			StatementStatistics statistics = reaction.getValue();
+			lines.add(statistics.count.sum() + "\t" + toMillis(statistics.nanos.sum()) + "\t" + statistics.rows.sum() + "\t" + reaction.getKey());
+		}
+		Files.write(Paths.get(filename), lines);
+		long totalCount = statementStatistics.values().stream().mapToLong(statistics -> statistics.count.sum()).sum();
+		logger.info("SQL profile of " + totalCount + " statements (" + statementStatistics.size() + " shapes) written to " + filename);
+	}
+
+	private static Object wrapStatement(Statement statement, Class<?> statementInterface, String preparedSql)
+	{
+		return Proxy.newProxyInstance(SqlProfiler.class.getClassLoader(), new Class<?>[] {statementInterface}, new StatementHandler(statement, preparedSql));
+	}
+
+	private static ResultSet wrapResultSet(ResultSet resultSet, List<StatementStatistics> statistics)
+	{
+		return (ResultSet) Proxy.newProxyInstance(SqlProfiler.class.getClassLoader(), new Class<?>[] {ResultSet.class}, (proxy, method, args) -> {
+			Object result = invoke(resultSet, method, args);
+			if (method.getName().equals("next") && Boolean.TRUE.equals(result))
+			{
+				statistics.forEach(rowStatistics -> rowStatistics.rows.increment());
+			}
+			return result;
+		});
+	}
+
+	// Records the execution against its statement shape and, if its thread is working on one, its RlE
+	private static List<StatementStatistics> record(String sql, long nanos)
+	{
+		String phase = currentPhases.get().isEmpty() ? NO_PHASE : currentPhases.get().peek();
+		StatementStatistics statistics = statementStatistics.computeIfAbsent(fingerprint(sql), k -> new StatementStatistics());
+		statistics.record(nanos);
+		statistics.phaseCounts.computeIfAbsent(phase, k -> new LongAdder()).increment();
+		List<StatementStatistics> recordedStatistics = new ArrayList<>();
+		recordedStatistics.add(statistics);
+		Long reactionDbId = currentReactionDbId.get();
+		if (reactionDbId != null)
+		{
+			StatementStatistics reactionStatistic = reactionStatistics.computeIfAbsent(reactionDbId, k -> new StatementStatistics());
+			reactionStatistic.record(nanos);
+			recordedStatistics.add(reactionStatistic);
+		}
+		return recordedStatistics;
+	}
+
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable
+	{
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+	private static long toMillis(long nanos)
+	{
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
+	}
+
+	public static void setEnabled(boolean enabledCopy)
+	{
+		enabled = enabledCopy;
+	}
+
+	public static void setTopCount(int topCountCopy)
+	{
+		topCount = topCountCopy;
+	}
+
+	// Times the statement's executions. Rows read through getResultSet() are counted against the statement's latest execution.
+	private static class StatementHandler implements InvocationHandler {
+
+		private final Statement statement;
+		private final String preparedSql;
+		private List<StatementStatistics> lastStatistics = new ArrayList<>();
+
+		private StatementHandler(Statement statement, String preparedSql)
+		{
+			this.statement = statement;
+			this.preparedSql = preparedSql;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+		{
+			if (!method.getName().startsWith("execute"))
+			{
+				Object result = SqlProfiler.invoke(statement, method, args);
+				return result instanceof ResultSet && method.getName().equals("getResultSet") ? wrapResultSet((ResultSet) result, lastStatistics) : result;
+			}
+			String sql = preparedSql != null ? preparedSql : (args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : "(unknown)");
+			long startTime = System.nanoTime();
+			Object result = SqlProfiler.invoke(statement, method, args);
+			lastStatistics = record(sql, System.nanoTime() - startTime);
+			if (result instanceof ResultSet)
+			{
+				return wrapResultSet((ResultSet) result, lastStatistics);
+			}
+			if (result instanceof Integer && (Integer) result > 0)
+			{
+				for (StatementStatistics statistics : lastStatistics)
+				{
+					statistics.rows.add((Integer) result);
+				}
+			}
+			return result;
+		}
+	}
+
+	private static class StatementStatistics {
+
+		private final LongAdder count = new LongAdder();
+		private final LongAdder nanos = new LongAdder();
+		private final LongAdder rows = new LongAdder();
+		private final Map<String, LongAdder> phaseCounts = new ConcurrentHashMap<>();
+
+		private void record(long executionNanos)
+		{
+			count.increment();
+			nanos.add(executionNanos);
+		}
+	}
+}
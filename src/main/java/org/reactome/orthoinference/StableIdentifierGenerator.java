@@ -5,10 +5,15 @@ import org.apache.logging.log4j.Logger;
 import org.gk.model.GKInstance;
 import org.gk.persistence.MySQLAdaptor;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.gk.model.ReactomeJavaConstants.*;
 
@@ -17,6 +22,10 @@ import static org.gk.model.ReactomeJavaConstants.*;
  */
 public class StableIdentifierGenerator {
     private static final Logger logger = LogManager.getLogger();
+    private static final String PROVISIONAL_MARKER = "-shard";
+    // Attributes that lead from an inferred RlE to the inferred instances that were given stable identifiers along with it
+    private static final String[] PARTICIPANT_ATTRIBUTES = {input, output, catalystActivity, physicalEntity, activeUnit, regulatedBy, regulator,
+            hasComponent, hasMember, hasCandidate, repeatedUnit};
     private static Map<String,Integer> seenOrthoIds = new HashMap<>();
 
     private MySQLAdaptor dba;
@@ -28,6 +37,7 @@ public class StableIdentifierGenerator {
     }
 
     public GKInstance generateOrthologousStableId(GKInstance inferredInst, GKInstance originalInst) throws Exception {
+        long startTime = InferenceMetrics.start(InferenceMetrics.STABLE_ID_GENERATION);
 
         // Sometimes there already exists a StableIdentifier value for an instance, if there are multiple instances that can create one instance.
         GKInstance orthoStableIdentifierInst = null;
@@ -43,22 +53,33 @@ public class StableIdentifierGenerator {
 
             // For now, Human is hard-coded as the source species, so we replace the stableIdentifier source species based on that assumption
             String sourceIdentifier = (String) stableIdentifierInst.getAttributeValue(identifier);
-            String targetIdentifier = sourceIdentifier.replace("HSA", speciesAbbreviation);
+            String baseIdentifier = sourceIdentifier.replace("HSA", speciesAbbreviation);
             // Paralogs will have the same base stable identifier, but we want to denote when that happens.
             // We pull the value from `seenOrthoIds`, increment it and then add it to the stable identifier name (eg: R-MMU-123456-2)
-            int paralogCount = Optional.ofNullable(seenOrthoIds.get(targetIdentifier)).orElse(0) + 1;
-            seenOrthoIds.put(targetIdentifier, paralogCount);
-            if (paralogCount > 1) {
-                targetIdentifier += "-" + paralogCount;
-            }
+            int previousParalogCount = Optional.ofNullable(seenOrthoIds.get(baseIdentifier)).orElse(0);
+            int paralogCount = previousParalogCount + 1;
+            String targetIdentifier = getParalogIdentifier(baseIdentifier, paralogCount);
 
             // Check that the stable identifier instance does not already exist in DB
             Collection<GKInstance> existingStableIdentifier = (Collection<GKInstance>) dba.fetchInstanceByAttribute("StableIdentifier", "identifier", "=", targetIdentifier);
-            
+            // A sharded run's provisional identifier that already exists was stored by this shard before it was resumed.
+            while (ShardCoordinator.isSharded() && existingStableIdentifier.size() > 0) {
+                paralogCount++;
+                targetIdentifier = getParalogIdentifier(baseIdentifier, paralogCount);
+                existingStableIdentifier = (Collection<GKInstance>) dba.fetchInstanceByAttribute("StableIdentifier", "identifier", "=", targetIdentifier);
+            }
+            seenOrthoIds.put(baseIdentifier, paralogCount);
+            // If the inference using this identifier is rolled back, the paralog count is restored so that the suffix can be reused.
+            // A sharded rollback can keep the StableIdentifier instance, so its provisional suffix is never reused.
+            if (!ShardCoordinator.isSharded()) {
+                ReactionWriteBuffer.registerRollbackAction(() -> restoreSeenOrthoIdCount(baseIdentifier, previousParalogCount));
+            }
+
             if (existingStableIdentifier.size() == 0) {
                 // Create new StableIdentifier instance
                 orthoStableIdentifierInst = createOrthologousStableIdentifierInstance(stableIdentifierInst, targetIdentifier);
                 dba.storeInstance(orthoStableIdentifierInst);
+                ReactionWriteBuffer.recordStoredInstance(orthoStableIdentifierInst);
             } else {
                 orthoStableIdentifierInst = existingStableIdentifier.iterator().next();
             }
@@ -66,9 +87,108 @@ public class StableIdentifierGenerator {
             // Populate inferred instance with new StableIdentifier instance
             logger.info("Stable identifier generated: " + orthoStableIdentifierInst.getDisplayName());
         }
+        InferenceMetrics.record(InferenceMetrics.STABLE_ID_GENERATION, startTime);
         return orthoStableIdentifierInst;
     }
 
+    // Sharded runs can't number paralogs consistently, since the order in which shards reach them depends on timing. Each shard
+    // instead gives out provisional identifiers unique to the shard (eg: R-MMU-123456-shard2-1), which the --finalize run replaces.
+    private String getParalogIdentifier(String baseIdentifier, int paralogCount) {
+        if (ShardCoordinator.isSharded()) {
+            return baseIdentifier + PROVISIONAL_MARKER + ShardCoordinator.getShardIndex() + "-" + paralogCount;
+        }
+        return getFinalParalogIdentifier(baseIdentifier, paralogCount);
+    }
+
+    private static String getFinalParalogIdentifier(String baseIdentifier, int paralogCount) {
+        return paralogCount > 1 ? baseIdentifier + "-" + paralogCount : baseIdentifier;
+    }
+
+    /*
+     * Replaces the provisional identifiers given out by the shards of a sharded run with final ones. This runs single-threaded
+     * in the --finalize run, and numbers paralogs in the order the inferred instances are reached when walking the inferred RlEs
+     * (in the order of their source RlE DB IDs) and their participants depth-first, so the result doesn't depend on shard timing.
+     * Provisional identifiers that no inferred RlE reaches (ie: instances kept by a sharded rollback) are numbered last.
+     */
+    public void assignProvisionalIdentifiers(List<GKInstance> inferredReactions) throws Exception {
+        Collection<GKInstance> speciesStableIdentifiers = (Collection<GKInstance>) dba.fetchInstanceByAttribute("StableIdentifier", "identifier", "LIKE", "R-" + speciesAbbreviation + "-%");
+        dba.loadInstanceAttributeValues(speciesStableIdentifiers, new String[]{identifier});
+        Set<String> takenIdentifiers = new HashSet<>();
+        Set<GKInstance> provisionalStableIdentifiers = new HashSet<>();
+        for (GKInstance stableIdentifierInst : speciesStableIdentifiers) {
+            String stableIdentifierValue = (String) stableIdentifierInst.getAttributeValue(identifier);
+            if (stableIdentifierValue.contains(PROVISIONAL_MARKER)) {
+                provisionalStableIdentifiers.add(stableIdentifierInst);
+            } else {
+                takenIdentifiers.add(stableIdentifierValue);
+            }
+        }
+        if (provisionalStableIdentifiers.isEmpty()) {
+            return;
+        }
+        logger.info("Assigning final stable identifiers to " + provisionalStableIdentifiers.size() + " provisional stable identifier(s)");
+
+        Set<GKInstance> visitedInstances = new HashSet<>();
+        for (GKInstance inferredReactionInst : inferredReactions) {
+            assignProvisionalIdentifiers(inferredReactionInst, provisionalStableIdentifiers, takenIdentifiers, visitedInstances);
+        }
+        List<GKInstance> unreachedStableIdentifiers = new ArrayList<>(provisionalStableIdentifiers);
+        unreachedStableIdentifiers.sort(Comparator.comparing(GKInstance::getDisplayName).thenComparing(GKInstance::getDBID));
+        for (GKInstance stableIdentifierInst : unreachedStableIdentifiers) {
+            assignFinalIdentifier(stableIdentifierInst, takenIdentifiers);
+        }
+    }
+
+    // Assigns the final identifiers of the instance's participants before its own, mirroring the order of an unsharded inference
+    private void assignProvisionalIdentifiers(GKInstance inferredInst, Set<GKInstance> provisionalStableIdentifiers, Set<String> takenIdentifiers, Set<GKInstance> visitedInstances) throws Exception {
+        if (!visitedInstances.add(inferredInst)) {
+            return;
+        }
+        for (String attribute : PARTICIPANT_ATTRIBUTES) {
+            if (inferredInst.getSchemClass().isValidAttribute(attribute)) {
+                for (Object value : inferredInst.getAttributeValuesList(attribute)) {
+                    if (value instanceof GKInstance) {
+                        assignProvisionalIdentifiers((GKInstance) value, provisionalStableIdentifiers, takenIdentifiers, visitedInstances);
+                    }
+                }
+            }
+        }
+        if (inferredInst.getSchemClass().isValidAttribute(stableIdentifier)) {
+            GKInstance stableIdentifierInst = (GKInstance) inferredInst.getAttributeValue(stableIdentifier);
+            if (stableIdentifierInst != null && provisionalStableIdentifiers.remove(stableIdentifierInst)) {
+                assignFinalIdentifier(stableIdentifierInst, takenIdentifiers);
+            }
+        }
+    }
+
+    private void assignFinalIdentifier(GKInstance stableIdentifierInst, Set<String> takenIdentifiers) throws Exception {
+        String provisionalIdentifier = (String) stableIdentifierInst.getAttributeValue(identifier);
+        String baseIdentifier = provisionalIdentifier.substring(0, provisionalIdentifier.indexOf(PROVISIONAL_MARKER));
+        int paralogCount = 1;
+        while (takenIdentifiers.contains(getFinalParalogIdentifier(baseIdentifier, paralogCount))) {
+            paralogCount++;
+        }
+        String targetIdentifier = getFinalParalogIdentifier(baseIdentifier, paralogCount);
+        takenIdentifiers.add(targetIdentifier);
+        stableIdentifierInst.setAttributeValue(identifier, targetIdentifier);
+        stableIdentifierInst.setDisplayName(targetIdentifier + "." + stableIdentifierInst.getAttributeValue(identifierVersion));
+        dba.updateInstanceAttribute(stableIdentifierInst, identifier);
+        dba.updateInstanceAttribute(stableIdentifierInst, _displayName);
+        logger.debug("Provisional stable identifier " + provisionalIdentifier + " is now " + targetIdentifier);
+    }
+
+    public static Map<String,Integer> getSeenOrthoIds() {
+        return seenOrthoIds;
+    }
+
+    private static void restoreSeenOrthoIdCount(String targetIdentifier, int paralogCount) {
+        if (paralogCount > 0) {
+            seenOrthoIds.put(targetIdentifier, paralogCount);
+        } else {
+            seenOrthoIds.remove(targetIdentifier);
+        }
+    }
+
     // Generates a new stable identifier instance
     private GKInstance createOrthologousStableIdentifierInstance(GKInstance stableIdentifierInst, String targetIdentifier) throws Exception {
         GKInstance orthoStableIdentifierInst = InstanceUtilities.createNewInferredGKInstance(stableIdentifierInst);
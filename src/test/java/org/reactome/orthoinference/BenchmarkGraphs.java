@@ -0,0 +1,209 @@
+package org.reactome.orthoinference;
+
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.gk.model.GKInstance;
+import static org.gk.model.ReactomeJavaConstants.*;
+
+/**
+ * Builds in-memory human GKInstance graphs for the benchmarks, and sets up the inference classes to infer them to mouse.
+ * Only the schema is read from the release database in config.properties (or the file in -Dorthoinference.config);
+ * instances are given synthetic DB IDs by the InMemoryAdaptor and nothing is written to the DB.
+ *
+ * Each human protein gets its own ReferenceGeneProduct, and its homologues are added to the orthopairs maps used by
+ * ProteinCountUtility and EWASInferrer, each with its own gene.
+ */
+public class BenchmarkGraphs {
+
+    private final InMemoryAdaptor dba;
+    private final GKInstance humanInst;
+    private final GKInstance compartmentInst;
+    private final GKInstance uniprotDbInst;
+    private final List<GKInstance> psiModInstances = new ArrayList<>();
+    private final Map<String, String[]> homologueMappings = new HashMap<>();
+    private final Map<String, List<String>> ensgMappings = new HashMap<>();
+    private int proteinCount = 0;
+    private int reactionCount = 0;
+
+    public static BenchmarkGraphs connect() throws Exception {
+        Properties props = new Properties();
+        try (InputStream configStream = new FileInputStream(System.getProperty("orthoinference.config", "src/main/resources/config.properties"))) {
+            props.load(configStream);
+        }
+        InMemoryAdaptor dba = new InMemoryAdaptor(props.getProperty("release.database.host"), props.getProperty("release_current.name"),
+                props.getProperty("release.database.user"), props.getProperty("release.database.password"),
+                Integer.valueOf(props.getProperty("release.database.port")));
+        return new BenchmarkGraphs(dba);
+    }
+
+    public BenchmarkGraphs(InMemoryAdaptor dba) throws Exception {
+        this.dba = dba;
+        GKInstance instanceEditInst = createInstance(InstanceEdit);
+        instanceEditInst.setAttributeValue(_displayName, "Benchmark, orthoinference");
+        humanInst = createNamedInstance(Species, "Homo sapiens");
+        GKInstance mouseInst = createNamedInstance(Species, "Mus musculus");
+        compartmentInst = createNamedInstance(Compartment, "cytosol");
+        uniprotDbInst = createNamedInstance(ReferenceDatabase, "UniProt");
+        dba.storeInstance(uniprotDbInst);
+        psiModInstances.add(createNamedInstance(PsiMod, "O-phospho-L-serine"));
+        psiModInstances.add(createNamedInstance(PsiMod, "N6-acetyl-L-lysine"));
+
+        InstanceUtilities.setAdaptor(dba);
+        InstanceUtilities.setSpeciesInstance(mouseInst);
+        InstanceUtilities.setInstanceEdit(instanceEditInst);
+        InferredInstanceCache.setAdaptor(dba);
+        ReactionWriteBuffer.setAdaptor(dba);
+        EWASInferrer.setAdaptor(dba);
+        EWASInferrer.setInstanceEdit(instanceEditInst);
+        EWASInferrer.setSpeciesInstance(mouseInst);
+        EWASInferrer.fetchAndSetUniprotDbInstance();
+        EWASInferrer.createEnsemblProteinDbInstance("Mus musculus", "https://www.ensembl.org", "https://www.ensembl.org/Mus_musculus/Transcript/ProteinSummary?peptide=###ID###");
+        EWASInferrer.createEnsemblGeneDBInstance("Mus musculus", "https://www.ensembl.org", "https://www.ensembl.org/Mus_musculus/geneview?gene=###ID###");
+        EWASInferrer.setAltRefDbToFalse();
+        EWASInferrer.setHomologueMappingFile(homologueMappings);
+        EWASInferrer.setENSGMappings(ensgMappings);
+        OrthologousEntityGenerator.setAdaptor(dba);
+        OrthologousEntityGenerator.setSpeciesInstance(mouseInst);
+        OrthologousEntityGenerator.setInstanceEdit(instanceEditInst);
+        OrthologousEntityGenerator.setComplexSummationInstance();
+        ProteinCountUtility.setHomologueMappingFile(homologueMappings);
+        EventsInferrer.setStableIdentifierGenerator(new StableIdentifierGenerator(dba, "MMU"));
+        dba.keepStoredInstances();
+    }
+
+    public InMemoryAdaptor getAdaptor() {
+        return dba;
+    }
+
+    // Human protein identifiers to their mouse homologues, as read from hsap_mmus_mapping.tsv
+    public Map<String, String[]> getHomologueMappings() {
+        return homologueMappings;
+    }
+
+    // Mouse protein identifiers to their genes, as read from mmus_gene_protein_mapping.tsv
+    public Map<String, List<String>> getENSGMappings() {
+        return ensgMappings;
+    }
+
+    public GKInstance createInstance(String className) throws Exception {
+        return dba.addInstance(new GKInstance(dba.getSchema().getClassByName(className)));
+    }
+
+    // An EWAS of a new protein with the given number of mouse homologues, and the given number of modified residues
+    public GKInstance createEWAS(int homologueCount, int modifiedResidueCount) throws Exception {
+        proteinCount++;
+        GKInstance referenceGeneProductInst = createInstance(ReferenceGeneProduct);
+        referenceGeneProductInst.addAttributeValue(identifier, "P" + proteinCount);
+        referenceGeneProductInst.addAttributeValue(referenceDatabase, uniprotDbInst);
+        referenceGeneProductInst.addAttributeValue(species, humanInst);
+        referenceGeneProductInst.setAttributeValue(_displayName, "UniProt:P" + proteinCount);
+        String[] homologues = new String[homologueCount];
+        for (int i = 0; i < homologueCount; i++) {
+            homologues[i] = "MOUSE" + proteinCount + "-" + i;
+            ensgMappings.put(homologues[i], new ArrayList<>(Arrays.asList("ENSMUSG" + proteinCount + "-" + i)));
+        }
+        if (homologueCount > 0) {
+            homologueMappings.put("P" + proteinCount, homologues);
+        }
+
+        GKInstance ewasInst = createEntity(EntityWithAccessionedSequence, "GENE" + proteinCount);
+        ewasInst.addAttributeValue(referenceEntity, referenceGeneProductInst);
+        ewasInst.addAttributeValue(startCoordinate, 1);
+        ewasInst.addAttributeValue(endCoordinate, 100 + proteinCount);
+        for (int i = 0; i < modifiedResidueCount; i++) {
+            GKInstance psiModInst = psiModInstances.get(i % psiModInstances.size());
+            GKInstance modifiedResidueInst = createInstance(ModifiedResidue);
+            modifiedResidueInst.addAttributeValue(referenceSequence, referenceGeneProductInst);
+            modifiedResidueInst.addAttributeValue(coordinate, 10 * (i + 1));
+            modifiedResidueInst.addAttributeValue(psiMod, psiModInst);
+            modifiedResidueInst.setAttributeValue(_displayName, psiModInst.getAttributeValue(name) + " at " + 10 * (i + 1));
+            ewasInst.addAttributeValue(hasModifiedResidue, modifiedResidueInst);
+        }
+        return ewasInst;
+    }
+
+    // A Complex nested 'depth' levels deep, each level having 'fanOut' components. The innermost components are EWAS with one homologue.
+    public GKInstance createComplex(int depth, int fanOut) throws Exception {
+        List<GKInstance> componentInstances = new ArrayList<>();
+        for (int i = 0; i < fanOut; i++) {
+            componentInstances.add(depth > 1 ? createComplex(depth - 1, fanOut) : createEWAS(1, 0));
+        }
+        return createComplex(componentInstances);
+    }
+
+    public GKInstance createComplex(List<GKInstance> componentInstances) throws Exception {
+        GKInstance complexInst = createEntity(Complex, "Complex of " + componentInstances.size());
+        complexInst.addAttributeValue(hasComponent, componentInstances);
+        return complexInst;
+    }
+
+    // A CandidateSet of EWAS, with one homologue each
+    public GKInstance createCandidateSet(int memberCount, int candidateCount) throws Exception {
+        List<GKInstance> memberInstances = new ArrayList<>();
+        for (int i = 0; i < memberCount; i++) {
+            memberInstances.add(createEWAS(1, 0));
+        }
+        List<GKInstance> candidateInstances = new ArrayList<>();
+        for (int i = 0; i < candidateCount; i++) {
+            candidateInstances.add(createEWAS(1, 0));
+        }
+        return createSet(CandidateSet, memberInstances, candidateInstances);
+    }
+
+    // A DefinedSet, or a CandidateSet if it has candidates
+    public GKInstance createSet(String className, List<GKInstance> memberInstances, List<GKInstance> candidateInstances) throws Exception {
+        GKInstance setInst = createEntity(className, className + " of " + (memberInstances.size() + candidateInstances.size()));
+        setInst.addAttributeValue(hasMember, memberInstances);
+        if (!candidateInstances.isEmpty()) {
+            setInst.addAttributeValue(hasCandidate, candidateInstances);
+        }
+        return setInst;
+    }
+
+    // A SimpleEntity has no species, so it is used as is by the inferred RlEs
+    public GKInstance createSimpleEntity(String entityName) throws Exception {
+        GKInstance simpleEntityInst = createNamedInstance(SimpleEntity, entityName);
+        simpleEntityInst.addAttributeValue(compartment, compartmentInst);
+        simpleEntityInst.setAttributeValue(_displayName, entityName + " [cytosol]");
+        return simpleEntityInst;
+    }
+
+    public GKInstance createReaction(List<GKInstance> inputInstances, List<GKInstance> outputInstances, GKInstance catalystInst) throws Exception {
+        GKInstance reactionInst = createEntity(Reaction, "Reaction " + (++reactionCount));
+        reactionInst.addAttributeValue(input, inputInstances);
+        reactionInst.addAttributeValue(output, outputInstances);
+        if (catalystInst != null) {
+            GKInstance catalystActivityInst = createInstance(CatalystActivity);
+            catalystActivityInst.addAttributeValue(physicalEntity, catalystInst);
+            reactionInst.addAttributeValue(catalystActivity, catalystActivityInst);
+        }
+        return reactionInst;
+    }
+
+    // Human PhysicalEntities and Events have a name, compartment, species and stable identifier
+    private GKInstance createEntity(String className, String entityName) throws Exception {
+        GKInstance entityInst = createNamedInstance(className, entityName);
+        entityInst.addAttributeValue(compartment, compartmentInst);
+        entityInst.addAttributeValue(species, humanInst);
+        GKInstance stableIdentifierInst = createInstance(StableIdentifier);
+        stableIdentifierInst.addAttributeValue(identifier, "R-HSA-" + entityInst.getDBID());
+        stableIdentifierInst.setAttributeValue(_displayName, "R-HSA-" + entityInst.getDBID() + ".1");
+        entityInst.addAttributeValue(stableIdentifier, stableIdentifierInst);
+        entityInst.setAttributeValue(_displayName, entityName + " [cytosol]");
+        return entityInst;
+    }
+
+    private GKInstance createNamedInstance(String className, String instanceName) throws Exception {
+        GKInstance inst = createInstance(className);
+        inst.addAttributeValue(name, instanceName);
+        inst.setAttributeValue(_displayName, instanceName);
+        return inst;
+    }
+}
@@ -0,0 +1,83 @@
+package org.reactome.orthoinference;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.gk.model.GKInstance;
+import org.gk.persistence.MySQLAdaptor;
+
+/**
+ * A MySQLAdaptor that only reads the schema from its database. Instances are held in memory with synthetic DB IDs counting up from
+ * 1,000,000,000 (DB IDs must be positive to be cached, see LongLongHashMap), identity checks never find a match, and attribute updates
+ * are dropped, so inferences can be run without writing to the DB.
+ */
+public class InMemoryAdaptor extends MySQLAdaptor {
+
+    private final Map<Long, GKInstance> instances = new HashMap<>();
+    private final List<GKInstance> storedInstances = new ArrayList<>();
+    private int keptInstanceCount = 0;
+    private static final long FIRST_DB_ID = 1_000_000_000L;
+    private long nextDbId = FIRST_DB_ID;
+
+    public InMemoryAdaptor(String host, String database, String username, String password, int port) throws SQLException {
+        super(host, database, username, password, port);
+    }
+
+    // Gives the instance the next DB ID, so that it can be fetched and cached like an instance loaded from the DB
+    public GKInstance addInstance(GKInstance instance) {
+        instance.setDBID(nextDbId++);
+        instance.setIsInflated(true);
+        instances.put(instance.getDBID(), instance);
+        return instance;
+    }
+
+    @Override
+    public GKInstance fetchInstance(Long dbId) throws Exception {
+        return instances.get(dbId);
+    }
+
+    @Override
+    public Collection fetchIdenticalInstances(GKInstance instance) throws Exception {
+        return null;
+    }
+
+    @Override
+    public Long storeInstance(GKInstance instance) throws Exception {
+        storedInstances.add(addInstance(instance));
+        return instance.getDBID();
+    }
+
+    @Override
+    public void updateInstanceAttribute(GKInstance instance, String attributeName) throws Exception {
+    }
+
+    // Finds stored instances of exactly the class that have the value, which is all StableIdentifierGenerator and EWASInferrer need
+    @Override
+    public Collection fetchInstanceByAttribute(String className, String attributeName, String operator, Object value) throws Exception {
+        List<GKInstance> matchingInstances = new ArrayList<>();
+        for (GKInstance storedInst : storedInstances) {
+            if (storedInst.getSchemClass().getName().equals(className) && storedInst.getAttributeValuesList(attributeName).contains(value)) {
+                matchingInstances.add(storedInst);
+            }
+        }
+        return matchingInstances;
+    }
+
+    // The instances stored so far are kept by discardStoredInstances
+    public void keepStoredInstances() {
+        keptInstanceCount = storedInstances.size();
+    }
+
+    // Forgets the instances stored since keepStoredInstances was last called
+    public void discardStoredInstances() {
+        List<GKInstance> discardedInstances = storedInstances.subList(keptInstanceCount, storedInstances.size());
+        for (GKInstance discardedInst : discardedInstances) {
+            instances.remove(discardedInst.getDBID());
+        }
+        discardedInstances.clear();
+    }
+}
@@ -0,0 +1,39 @@
+package org.reactome.orthoinference;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import java.util.concurrent.TimeUnit;
+
+public class InferenceMetricsTest {
+
+    @Test
+    public void recordedTimesAreCountedInCumulativeBuckets() {
+        InferenceMetrics.PhaseHistogram histogram = new InferenceMetrics.PhaseHistogram();
+        histogram.record(TimeUnit.MICROSECONDS.toNanos(50));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(2));
+        histogram.record(TimeUnit.SECONDS.toNanos(7200));
+
+        assertThat(histogram.getCount(), is(equalTo(3L)));
+        assertThat(histogram.getCumulativeCount(0), is(equalTo(1L)));
+        // 0.0025 second bucket
+        assertThat(histogram.getCumulativeCount(4), is(equalTo(2L)));
+        assertThat(histogram.getCumulativeCount(InferenceMetrics.BUCKET_BOUNDS.length - 1), is(equalTo(2L)));
+        assertThat(histogram.getPercentileBound(0.5), is(equalTo(0.0025)));
+        assertThat(histogram.getPercentileBound(0.99), is(equalTo(7200.0)));
+    }
+
+    @Test
+    public void prometheusTextHasBucketsSumAndCountForEachPhase() {
+        InferenceMetrics.setSpecies("mmus");
+        InferenceMetrics.record(InferenceMetrics.SKIP_CHECK, InferenceMetrics.start(InferenceMetrics.SKIP_CHECK));
+
+        String prometheusText = InferenceMetrics.toPrometheusText();
+
+        assertThat(prometheusText, containsString("# TYPE orthoinference_phase_duration_seconds histogram"));
+        assertThat(prometheusText, containsString("orthoinference_phase_duration_seconds_bucket{species=\"mmus\",phase=\"skip_check\",le=\"+Inf\"} 1"));
+        assertThat(prometheusText, containsString("orthoinference_phase_duration_seconds_count{species=\"mmus\",phase=\"diagram_generation\"} 0"));
+    }
+}
@@ -0,0 +1,74 @@
+package org.reactome.orthoinference;
+
+import org.gk.model.GKInstance;
+import org.gk.persistence.MySQLAdaptor;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class InferredInstanceCacheTest {
+
+    @Mock
+    MySQLAdaptor mockAdaptor;
+
+    @Mock
+    GKInstance mockSourceInst;
+
+    @Mock
+    GKInstance mockInferredInst;
+
+    @Mock
+    GKInstance mockOtherSourceInst;
+
+    @Before
+    public void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+        Mockito.when(mockSourceInst.getDBID()).thenReturn(100L);
+        Mockito.when(mockInferredInst.getDBID()).thenReturn(200L);
+        Mockito.when(mockOtherSourceInst.getDBID()).thenReturn(300L);
+        Mockito.when(mockAdaptor.fetchInstance(200L)).thenReturn(mockInferredInst);
+        InferredInstanceCache.setAdaptor(mockAdaptor);
+    }
+
+    @Test
+    public void cachedInstanceIsFetchedByDbIdAndLookupsAreCounted() {
+        InferredInstanceCache cache = new InferredInstanceCache("test");
+        cache.put(mockSourceInst, mockInferredInst);
+
+        assertThat(cache.get(mockSourceInst), is(sameInstance(mockInferredInst)));
+        assertThat(cache.containsKey(mockOtherSourceInst), is(false));
+        assertThat(cache.getHits(), is(equalTo(1L)));
+        assertThat(cache.getMisses(), is(equalTo(1L)));
+    }
+
+    @Test
+    public void cachingNullValueLeavesKeyUncached() {
+        InferredInstanceCache cache = new InferredInstanceCache("test");
+        cache.put(mockSourceInst, mockInferredInst);
+        cache.put(mockSourceInst, null);
+
+        assertThat(cache.containsKey(mockSourceInst), is(false));
+        assertThat(cache.size(), is(equalTo(0)));
+    }
+
+    @Test
+    public void removingByDbIdDoesNotFetchTheValue() throws Exception {
+        InferredInstanceCache cache = new InferredInstanceCache("test");
+        cache.put(mockSourceInst, mockInferredInst);
+        cache.removeDbId(100L);
+
+        assertThat(cache.containsKey(mockSourceInst), is(false));
+        Mockito.verify(mockAdaptor, Mockito.never()).fetchInstance(200L);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unstoredInstancesCannotBeCached() {
+        GKInstance unstoredInst = Mockito.mock(GKInstance.class);
+        new InferredInstanceCache("test").put(mockSourceInst, unstoredInst);
+    }
+}
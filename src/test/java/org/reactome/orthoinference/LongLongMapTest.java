@@ -0,0 +1,86 @@
+package org.reactome.orthoinference;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class LongLongMapTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void longLongHashMapMatchesHashMap() {
+        assertMatchesHashMap(new LongLongHashMap(16));
+    }
+
+    @Test
+    public void spillingLongLongMapMatchesHashMap() throws Exception {
+        SpillingLongLongMap spillingMap = new SpillingLongLongMap("test", 100, tempFolder.getRoot().toPath());
+
+        assertMatchesHashMap(spillingMap);
+        assertThat(spillingMap.getColdSize(), is(greaterThan(0)));
+        spillingMap.close();
+    }
+
+    @Test
+    public void spillingLongLongMapKeepsRecentlyUsedEntriesInMemory() throws Exception {
+        SpillingLongLongMap spillingMap = new SpillingLongLongMap("test", 4, tempFolder.getRoot().toPath());
+        for (long key = 1; key <= 4; key++) {
+            spillingMap.put(key, key * 10);
+        }
+        spillingMap.get(1L);
+        spillingMap.put(5L, 50L);
+
+        // Keys 2 and 3 were used least recently, so only they were spilled
+        assertThat(spillingMap.getColdSize(), is(equalTo(2)));
+        assertThat(spillingMap.get(1L), is(equalTo(10L)));
+        assertThat(spillingMap.getColdSize(), is(equalTo(2)));
+        assertThat(spillingMap.get(2L), is(equalTo(20L)));
+        assertThat(spillingMap.getColdSize(), is(equalTo(1)));
+        spillingMap.close();
+    }
+
+    @Test
+    public void missingKeysReturnNoValue() {
+        LongLongHashMap map = new LongLongHashMap();
+        map.put(5L, 50L);
+
+        assertThat(map.get(6L), is(equalTo(LongLongMap.NO_VALUE)));
+        assertThat(map.remove(6L), is(equalTo(LongLongMap.NO_VALUE)));
+        assertThat(map.remove(5L), is(equalTo(50L)));
+        assertThat(map.size(), is(equalTo(0)));
+    }
+
+    // Applies the same random puts, lookups and removals to the map and a HashMap, and checks they always agree
+    private void assertMatchesHashMap(LongLongMap map) {
+        Map<Long, Long> expectedMap = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            long key = 1 + random.nextInt(2000);
+            int operation = random.nextInt(3);
+            if (operation == 0) {
+                long value = 1 + random.nextInt(1000000);
+                map.put(key, value);
+                expectedMap.put(key, value);
+            } else if (operation == 1) {
+                Long expectedValue = expectedMap.remove(key);
+                assertThat(map.remove(key), is(equalTo(expectedValue == null ? LongLongMap.NO_VALUE : expectedValue)));
+            } else {
+                Long expectedValue = expectedMap.get(key);
+                assertThat(map.get(key), is(equalTo(expectedValue == null ? LongLongMap.NO_VALUE : expectedValue)));
+            }
+            assertThat(map.size(), is(equalTo(expectedMap.size())));
+        }
+        Map<Long, Long> actualMap = new HashMap<>();
+        map.forEach(actualMap::put);
+        assertThat(actualMap, is(equalTo(expectedMap)));
+    }
+}
@@ -0,0 +1,40 @@
+package org.reactome.orthoinference;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ProgressReporterTest {
+
+    @Test
+    public void throughputAndEtaAreMeasuredOverTheWindow() {
+        ProgressReporter.setWindow(10);
+        ProgressReporter.StageProgress stageProgress = new ProgressReporter.StageProgress(ProgressReporter.REACTIONS);
+        stageProgress.start(100, 0);
+        assertThat(stageProgress.getEtaSeconds(0), is(equalTo(-1L)));
+
+        // 1 RlE per second for 20 seconds, then 2 per second for 10 seconds
+        for (long second = 1; second <= 20; second++) {
+            stageProgress.advance(second * 1000);
+        }
+        for (long halfSecond = 41; halfSecond <= 60; halfSecond++) {
+            stageProgress.advance(halfSecond * 500);
+        }
+
+        assertThat(stageProgress.getProcessed(), is(equalTo(40)));
+        assertThat(stageProgress.getRatePerSecond(30000), is(closeTo(2.0, 0.01)));
+        assertThat(stageProgress.getEtaSeconds(30000), is(equalTo(30L)));
+    }
+
+    @Test
+    public void stalledStageHasNoThroughput() {
+        ProgressReporter.setWindow(10);
+        ProgressReporter.StageProgress stageProgress = new ProgressReporter.StageProgress(ProgressReporter.PATHWAYS);
+        stageProgress.start(10, 0);
+        stageProgress.advance(1000);
+
+        assertThat(stageProgress.getRatePerSecond(60000), is(equalTo(0.0)));
+        assertThat(stageProgress.getEtaSeconds(60000), is(equalTo(-1L)));
+    }
+}
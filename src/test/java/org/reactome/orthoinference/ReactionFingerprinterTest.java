@@ -0,0 +1,67 @@
+package org.reactome.orthoinference;
+
+import org.gk.model.GKInstance;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.gk.model.ReactomeJavaConstants.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Fingerprints an in-memory RlE (see BenchmarkGraphs). Needs the release database in config.properties for its schema.
+public class ReactionFingerprinterTest {
+
+    private BenchmarkGraphs graphs;
+    private GKInstance reactionInst;
+    private GKInstance insideEwasInst;
+    private GKInstance outsideEwasInst;
+
+    @Before
+    public void setUp() throws Exception {
+        try {
+            graphs = BenchmarkGraphs.connect();
+        } catch (SQLException e) {
+            Assume.assumeNoException("No release database to read the schema from", e);
+        }
+        insideEwasInst = graphs.createEWAS(1, 0);
+        outsideEwasInst = graphs.createEWAS(1, 0);
+        reactionInst = graphs.createReaction(Arrays.asList(insideEwasInst), Arrays.asList(graphs.createSimpleEntity("ADP")), null);
+    }
+
+    @Test
+    public void changedMappingOfProteinOutsideRlEKeepsFingerprint() throws Exception {
+        String fingerprint = fingerprint(graphs.getHomologueMappings(), graphs.getENSGMappings());
+
+        assertThat(fingerprintWithChangedMapping(outsideEwasInst), is(equalTo(fingerprint)));
+    }
+
+    @Test
+    public void changedMappingOfProteinInsideRlEChangesFingerprint() throws Exception {
+        String fingerprint = fingerprint(graphs.getHomologueMappings(), graphs.getENSGMappings());
+
+        assertThat(fingerprintWithChangedMapping(insideEwasInst), is(not(equalTo(fingerprint))));
+    }
+
+    // Fingerprints the RlE after giving the EWAS's protein a different homologue, with its own gene
+    private String fingerprintWithChangedMapping(GKInstance ewasInst) throws Exception {
+        String proteinId = (String) ((GKInstance) ewasInst.getAttributeValue(referenceEntity)).getAttributeValue(identifier);
+        Map<String, String[]> homologueMappings = new HashMap<>(graphs.getHomologueMappings());
+        Map<String, List<String>> ensgMappings = new HashMap<>(graphs.getENSGMappings());
+        homologueMappings.put(proteinId, new String[] {"MOUSE-CHANGED"});
+        ensgMappings.put("MOUSE-CHANGED", new ArrayList<>(Arrays.asList("ENSMUSG-CHANGED")));
+        return fingerprint(homologueMappings, ensgMappings);
+    }
+
+    private String fingerprint(Map<String, String[]> homologueMappings, Map<String, List<String>> ensgMappings) throws Exception {
+        return new ReactionFingerprinter(homologueMappings, ensgMappings, Collections.emptyMap()).fingerprint(reactionInst);
+    }
+}
@@ -0,0 +1,37 @@
+package org.reactome.orthoinference;
+
+import org.json.simple.JSONObject;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class ReportAggregatorTest {
+
+    @Test
+    public void speciesAreSortedInCurationOrderThenAlphabetically() {
+        List<JSONObject> speciesReports = Arrays.asList(speciesReport("mmus", 400L, 500L), speciesReport("zzzz", 1L, 2L),
+                speciesReport("ddis", 50L, 500L), speciesReport("aaaa", 1L, 3L));
+
+        List<String> lines = ReportAggregator.formatSortedReport("80", speciesReports);
+
+        assertThat(lines, contains(
+                "#Inferred reactions report for v80",
+                "hsap to ddis:\t50 out of 500 eligible reactions (10.00%)",
+                "hsap to mmus:\t400 out of 500 eligible reactions (80.00%)",
+                "hsap to aaaa:\t1 out of 3 eligible reactions (33.33%)",
+                "hsap to zzzz:\t1 out of 2 eligible reactions (50.00%)"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private JSONObject speciesReport(String species, long inferred, long eligible) {
+        JSONObject speciesReport = new JSONObject();
+        speciesReport.put("species", species);
+        speciesReport.put("inferred", inferred);
+        speciesReport.put("eligible", eligible);
+        return speciesReport;
+    }
+}
@@ -0,0 +1,55 @@
+package org.reactome.orthoinference;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+public class SkipDecisionsTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void loadOrComputeReadsSavedDecisionsForSameReactions() throws Exception {
+        List<Long> reactionDbIds = Arrays.asList(10L, 20L, 30L);
+        File skipDecisionsFile = tempFolder.newFile("skip_decisions_test_db.tsv");
+        long[] reactionDbIdArray = {10L, 20L, 30L};
+        Files.write(skipDecisionsFile.toPath(), Arrays.asList(
+                SkipDecisions.getHeader("test_db", reactionDbIdArray),
+                "10\t0",
+                "20\t" + (SkipInstanceChecker.CHIMERIC | SkipInstanceChecker.DISEASE),
+                "30\t0"));
+
+        // The adaptor factory is never called when decisions are read from the file
+        SkipDecisions skipDecisions = SkipDecisions.loadOrCompute(reactionDbIds, "test_db", skipDecisionsFile.getPath(), 1, () -> null);
+
+        assertThat(skipDecisions.getSkipReasons(10L), is(equalTo(0)));
+        assertThat(skipDecisions.getSkipReasons(20L), is(equalTo(SkipInstanceChecker.CHIMERIC | SkipInstanceChecker.DISEASE)));
+        assertThat(skipDecisions.getSkipReasons(25L), is(nullValue()));
+        assertThat(skipDecisions.getSkippedCount(), is(equalTo(1)));
+    }
+
+    @Test
+    public void headerChangesWithSkipList() {
+        long[] reactionDbIdArray = {10L, 20L, 30L};
+
+        assertThat(SkipDecisions.getHeader("test_db", reactionDbIdArray), is(equalTo("#test_db\t3\t" + Arrays.hashCode(reactionDbIdArray)
+                + "\t" + SkipInstanceChecker.getSkipListPathwayDbIds())));
+        assertThat(SkipInstanceChecker.getSkipListPathwayDbIds(), hasItems(162906L, 168255L, 977225L));
+    }
+
+    @Test
+    public void describeSkipReasonsListsEveryReason() {
+        String description = SkipInstanceChecker.describeSkipReasons(SkipInstanceChecker.IN_SKIP_LIST | SkipInstanceChecker.MULTIPLE_SPECIES);
+
+        assertThat(description, is(equalTo("is in skipList, has multiple species")));
+    }
+}
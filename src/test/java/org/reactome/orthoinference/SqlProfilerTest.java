@@ -0,0 +1,18 @@
+package org.reactome.orthoinference;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class SqlProfilerTest {
+
+    @Test
+    public void statementsThatOnlyDifferByValuesHaveTheSameFingerprint() {
+        String fingerprint = SqlProfiler.fingerprint("SELECT DB_ID FROM DatabaseObject\n  WHERE _displayName = 'It''s' AND DB_ID IN (1, 22, 333)");
+
+        assertThat(fingerprint, is(equalTo("SELECT DB_ID FROM DatabaseObject WHERE _displayName = ? AND DB_ID IN (?+)")));
+        assertThat(SqlProfiler.fingerprint("SELECT * FROM Event_2_species WHERE DB_ID = 42"),
+                is(equalTo(SqlProfiler.fingerprint("SELECT * FROM Event_2_species WHERE DB_ID = 7"))));
+    }
+}
@@ -0,0 +1,201 @@
+package org.reactome.orthoinference;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.gk.model.GKInstance;
+import static org.gk.model.ReactomeJavaConstants.*;
+
+/**
+ * Generates a synthetic human ReactionlikeEvent graph, shaped like Reactome's, in memory (see BenchmarkGraphs) for measuring
+ * how the inference scales as the content grows. Each RlE has inputs, outputs and possibly a catalyst, drawn from entities
+ * at levels 0 (EWAS and SimpleEntities) to 'complexDepth' (Complexes and sets of entities one level down). An entity is
+ * reused from those already generated at its level with the probability 'sharingRatio', and otherwise created. Each new
+ * protein has no homologue with the probability 'unmappedFraction', and otherwise a geometrically distributed number of
+ * homologues averaging 'paralogFanOut'.
+ *
+ * The same seed and settings always generate the same graph. The orthopairs it implies can be written out in the
+ * format of the release-orthopairs files, so that a run or another tool can read them.
+ */
+public class SyntheticGraphGenerator {
+
+    // About the number of human ReactionlikeEvents in a current release, ie: a scale of 1
+    public static final int REACTOME_REACTION_COUNT = 15000;
+
+    private final BenchmarkGraphs graphs;
+    private final Random random;
+    private int reactionCount = REACTOME_REACTION_COUNT;
+    private int participantsPerReaction = 4;
+    private double catalystFraction = 0.5;
+    private int complexDepth = 3;
+    private int complexFanOut = 3;
+    private int setSize = 6;
+    private double setFraction = 0.25;
+    private double candidateSetFraction = 0.3;
+    private double simpleEntityFraction = 0.4;
+    private double sharingRatio = 0.6;
+    private double paralogFanOut = 1.5;
+    private double unmappedFraction = 0.2;
+    private final List<List<GKInstance>> entityPools = new ArrayList<>();
+    private final List<GKInstance> entities = new ArrayList<>();
+    private int simpleEntityCount = 0;
+
+    public SyntheticGraphGenerator(BenchmarkGraphs graphs, long seed) {
+        this.graphs = graphs;
+        this.random = new Random(seed);
+    }
+
+    // Generates the RlEs, and adds the orthopairs of their proteins to the BenchmarkGraphs' maps
+    public List<GKInstance> generate() throws Exception {
+        entityPools.clear();
+        for (int level = 0; level <= complexDepth; level++) {
+            entityPools.add(new ArrayList<>());
+        }
+        List<GKInstance> reactions = new ArrayList<>();
+        for (int i = 0; i < reactionCount; i++) {
+            List<GKInstance> inputInstances = new ArrayList<>();
+            List<GKInstance> outputInstances = new ArrayList<>();
+            for (int j = 0; j < participantsPerReaction; j++) {
+                GKInstance participantInst = getEntity(random.nextInt(complexDepth + 1));
+                (j % 2 == 0 ? inputInstances : outputInstances).add(participantInst);
+            }
+            GKInstance catalystInst = random.nextDouble() < catalystFraction ? getEntity(random.nextInt(complexDepth + 1)) : null;
+            reactions.add(graphs.createReaction(inputInstances, outputInstances, catalystInst));
+        }
+        return reactions;
+    }
+
+    // Every PhysicalEntity generated so far, each once
+    public List<GKInstance> getEntities() {
+        return Collections.unmodifiableList(entities);
+    }
+
+    // Writes hsap_(species)_mapping.tsv, (species)_gene_protein_mapping.tsv and an empty (species)_gene_name_mapping.tsv
+    public void writeOrthopairs(Path orthopairsDirectory, String species) throws IOException {
+        Files.createDirectories(orthopairsDirectory);
+        List<String> homologueLines = new ArrayList<>();
+        for (Map.Entry<String, String[]> homologueMapping : new TreeMap<>(graphs.getHomologueMappings()).entrySet()) {
+            homologueLines.add(homologueMapping.getKey() + "\t" + String.join(" ", homologueMapping.getValue()));
+        }
+        Files.write(orthopairsDirectory.resolve("hsap_" + species + "_mapping.tsv"), homologueLines);
+        Map<String, List<String>> geneProteins = new TreeMap<>();
+        for (Map.Entry<String, List<String>> ensgMapping : graphs.getENSGMappings().entrySet()) {
+            for (String gene : ensgMapping.getValue()) {
+                geneProteins.computeIfAbsent(gene, k -> new ArrayList<>()).add(ensgMapping.getKey());
+            }
+        }
+        List<String> geneProteinLines = new ArrayList<>();
+        for (Map.Entry<String, List<String>> geneProteinMapping : geneProteins.entrySet()) {
+            geneProteinLines.add(geneProteinMapping.getKey() + "\t" + String.join(" ", geneProteinMapping.getValue()));
+        }
+        Files.write(orthopairsDirectory.resolve(species + "_gene_protein_mapping.tsv"), geneProteinLines);
+        Files.write(orthopairsDirectory.resolve(species + "_gene_name_mapping.tsv"), new ArrayList<String>());
+    }
+
+    private GKInstance getEntity(int level) throws Exception {
+        List<GKInstance> entityPool = entityPools.get(level);
+        if (!entityPool.isEmpty() && random.nextDouble() < sharingRatio) {
+            return entityPool.get(random.nextInt(entityPool.size()));
+        }
+        GKInstance entityInst = level == 0 ? createLeafEntity() : createContainerEntity(level);
+        entityPool.add(entityInst);
+        entities.add(entityInst);
+        return entityInst;
+    }
+
+    private GKInstance createLeafEntity() throws Exception {
+        if (random.nextDouble() < simpleEntityFraction) {
+            return graphs.createSimpleEntity("Chemical " + (++simpleEntityCount));
+        }
+        int homologueCount = 0;
+        if (random.nextDouble() >= unmappedFraction) {
+            homologueCount = 1;
+            while (random.nextDouble() < 1 - 1 / paralogFanOut) {
+                homologueCount++;
+            }
+        }
+        return graphs.createEWAS(homologueCount, random.nextDouble() < 0.2 ? 1 : 0);
+    }
+
+    private GKInstance createContainerEntity(int level) throws Exception {
+        if (random.nextDouble() >= setFraction) {
+            List<GKInstance> componentInstances = new ArrayList<>();
+            for (int i = 0; i < complexFanOut; i++) {
+                componentInstances.add(getEntity(level - 1));
+            }
+            return graphs.createComplex(componentInstances);
+        }
+        boolean candidateSet = random.nextDouble() < candidateSetFraction;
+        List<GKInstance> memberInstances = new ArrayList<>();
+        List<GKInstance> candidateInstances = new ArrayList<>();
+        for (int i = 0; i < setSize; i++) {
+            // CandidateSets have about as many candidates as members
+            (candidateSet && i % 2 == 1 ? candidateInstances : memberInstances).add(getEntity(level - 1));
+        }
+        return graphs.createSet(candidateSet ? CandidateSet : DefinedSet, memberInstances, candidateInstances);
+    }
+
+    // Multiplies the number of RlEs in a current release
+    public void setScale(double scale) {
+        reactionCount = (int) Math.round(REACTOME_REACTION_COUNT * scale);
+    }
+
+    public void setReactionCount(int reactionCountCopy) {
+        reactionCount = reactionCountCopy;
+    }
+
+    public void setParticipantsPerReaction(int participantsPerReactionCopy) {
+        participantsPerReaction = participantsPerReactionCopy;
+    }
+
+    public void setCatalystFraction(double catalystFractionCopy) {
+        catalystFraction = catalystFractionCopy;
+    }
+
+    public void setComplexDepth(int complexDepthCopy) {
+        complexDepth = complexDepthCopy;
+    }
+
+    public void setComplexFanOut(int complexFanOutCopy) {
+        complexFanOut = complexFanOutCopy;
+    }
+
+    public void setSetSize(int setSizeCopy) {
+        setSize = setSizeCopy;
+    }
+
+    // The fraction of new Complexes and sets that are sets
+    public void setSetFraction(double setFractionCopy) {
+        setFraction = setFractionCopy;
+    }
+
+    // The fraction of new sets that are CandidateSets
+    public void setCandidateSetFraction(double candidateSetFractionCopy) {
+        candidateSetFraction = candidateSetFractionCopy;
+    }
+
+    // The fraction of new level 0 entities that are SimpleEntities rather than EWAS
+    public void setSimpleEntityFraction(double simpleEntityFractionCopy) {
+        simpleEntityFraction = simpleEntityFractionCopy;
+    }
+
+    public void setSharingRatio(double sharingRatioCopy) {
+        sharingRatio = sharingRatioCopy;
+    }
+
+    // The mean number of homologues of the proteins that have any, at least 1
+    public void setParalogFanOut(double paralogFanOutCopy) {
+        paralogFanOut = paralogFanOutCopy;
+    }
+
+    public void setUnmappedFraction(double unmappedFractionCopy) {
+        unmappedFraction = unmappedFractionCopy;
+    }
+}